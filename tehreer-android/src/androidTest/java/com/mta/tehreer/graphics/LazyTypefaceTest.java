@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mta.tehreer.sfnt.ShapingEngine;
+import com.mta.tehreer.sfnt.tables.NameTable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a lazy typeface whose font file has been deleted before first use reports the
+ * failure as an exception, rather than handing a null face to the native code.
+ */
+public class LazyTypefaceTest {
+    private static final String FONT_ASSET = "NafeesWeb.ttf";
+
+    private File fontFile;
+    private File indexFile;
+
+    @Before
+    public void setUp() throws IOException {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        fontFile = new File(context.getCacheDir(), "LazyTypefaceTest.ttf");
+        indexFile = new File(context.getCacheDir(), "LazyTypefaceTest.index");
+
+        InputStream input = context.getAssets().open(FONT_ASSET);
+        OutputStream output = new FileOutputStream(fontFile);
+        try {
+            byte[] chunk = new byte[65536];
+            int count;
+            while ((count = input.read(chunk)) > 0) {
+                output.write(chunk, 0, count);
+            }
+        } finally {
+            input.close();
+            output.close();
+        }
+
+        // Index the file once so that reopening the index yields lazy typefaces.
+        FontIndex index = FontIndex.open(indexFile);
+        index.getTypefaces(fontFile);
+        index.save();
+    }
+
+    @After
+    public void tearDown() {
+        fontFile.delete();
+        indexFile.delete();
+    }
+
+    private Typeface createOrphanTypeface() {
+        List<Typeface> typefaces = FontIndex.open(indexFile).getTypefaces(fontFile);
+        assertEquals(1, typefaces.size());
+
+        Typeface typeface = typefaces.get(0);
+        assertTrue(fontFile.delete());
+
+        return typeface;
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testShapingEngineTypeface() {
+        ShapingEngine engine = new ShapingEngine();
+        try {
+            engine.setTypeface(createOrphanTypeface());
+        } finally {
+            engine.dispose();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNameTable() {
+        NameTable nameTable = new NameTable(createOrphanTypeface());
+        nameTable.recordCount();
+    }
+}
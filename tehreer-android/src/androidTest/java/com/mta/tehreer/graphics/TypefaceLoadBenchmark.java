@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the time taken by different ways of loading a typeface. Results are written to logcat
+ * under the <code>TypefaceLoadBenchmark</code> tag.
+ */
+public class TypefaceLoadBenchmark {
+    private static final String TAG = "TypefaceLoadBenchmark";
+    private static final String FONT_ASSET = "NafeesWeb.ttf";
+    private static final int ITERATIONS = 20;
+
+    private File fontFile;
+    private int glyphCount;
+
+    @Before
+    public void setUp() throws IOException {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        fontFile = new File(context.getCacheDir(), FONT_ASSET);
+
+        InputStream input = context.getAssets().open(FONT_ASSET);
+        OutputStream output = new FileOutputStream(fontFile);
+        try {
+            byte[] chunk = new byte[65536];
+            int count;
+            while ((count = input.read(chunk)) > 0) {
+                output.write(chunk, 0, count);
+            }
+        } finally {
+            input.close();
+            output.close();
+        }
+
+        glyphCount = new Typeface(fontFile).getGlyphCount();
+    }
+
+    private interface Loader {
+        Typeface load() throws IOException;
+    }
+
+    private void measure(String name, Loader loader) throws IOException {
+        // Warm up the code paths and the page cache before measuring.
+        loader.load();
+
+        long total = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            Typeface typeface = loader.load();
+            total += System.nanoTime() - start;
+
+            assertEquals(glyphCount, typeface.getGlyphCount());
+        }
+
+        Log.i(TAG, name + ": " + (total / ITERATIONS / 1000) + " us per load");
+    }
+
+    @Test
+    public void benchmarkLoading() throws IOException {
+        final int fileLength = (int) fontFile.length();
+
+        measure("InputStream", new Loader() {
+            @Override
+            public Typeface load() throws IOException {
+                InputStream stream = new BufferedInputStream(new FileInputStream(fontFile));
+                try {
+                    return new Typeface(stream);
+                } finally {
+                    stream.close();
+                }
+            }
+        });
+        measure("InputStream with length hint", new Loader() {
+            @Override
+            public Typeface load() throws IOException {
+                InputStream stream = new FileInputStream(fontFile);
+                try {
+                    return new Typeface(stream, fileLength);
+                } finally {
+                    stream.close();
+                }
+            }
+        });
+        measure("ReadableByteChannel", new Loader() {
+            @Override
+            public Typeface load() throws IOException {
+                FileChannel channel = new FileInputStream(fontFile).getChannel();
+                try {
+                    return new Typeface(channel);
+                } finally {
+                    channel.close();
+                }
+            }
+        });
+        measure("ReadableByteChannel with length hint", new Loader() {
+            @Override
+            public Typeface load() throws IOException {
+                FileChannel channel = new FileInputStream(fontFile).getChannel();
+                try {
+                    return new Typeface(channel, fileLength);
+                } finally {
+                    channel.close();
+                }
+            }
+        });
+
+        final ByteBuffer directBuffer = ByteBuffer.allocateDirect(fileLength);
+        FileChannel channel = new FileInputStream(fontFile).getChannel();
+        try {
+            while (directBuffer.hasRemaining() && channel.read(directBuffer) >= 0) { }
+        } finally {
+            channel.close();
+        }
+        directBuffer.flip();
+
+        measure("Direct ByteBuffer", new Loader() {
+            @Override
+            public Typeface load() {
+                return new Typeface(directBuffer);
+            }
+        });
+        measure("File", new Loader() {
+            @Override
+            public Typeface load() {
+                return new Typeface(fontFile);
+            }
+        });
+    }
+}
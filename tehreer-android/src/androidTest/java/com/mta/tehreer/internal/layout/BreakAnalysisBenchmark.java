@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.layout;
+
+import android.util.Log;
+
+import org.junit.Test;
+
+import java.text.BreakIterator;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Measures the throughput of break analysis on a document of 100k characters, comparing the single
+ * pass analysis against the previous forward and backward passes. Results are written to logcat
+ * under the <code>BreakAnalysisBenchmark</code> tag.
+ */
+public class BreakAnalysisBenchmark {
+    private static final String TAG = "BreakAnalysisBenchmark";
+    private static final String PARAGRAPH = "Lorem ipsum dolor sit amet, consectetur adipiscing "
+            + "elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. "
+            + "اردو ایک ہند آریائی زبان ہے جو بنیادی طور پر جنوبی ایشیا میں بولی جاتی ہے۔\n";
+    private static final int DOCUMENT_LENGTH = 100000;
+    private static final int ITERATIONS = 10;
+
+    private static void fillTwoPass(String text, byte[] breaks, byte type) {
+        BreakIterator iterator = (type == BreakResolver.CHARACTER
+                                  ? BreakIterator.getCharacterInstance()
+                                  : BreakIterator.getLineInstance());
+        iterator.setText(text);
+        iterator.first();
+
+        byte forwardType = BreakResolver.typeMode(type, true);
+        int charNext;
+        while ((charNext = iterator.next()) != BreakIterator.DONE) {
+            breaks[charNext - 1] |= forwardType;
+        }
+
+        iterator.last();
+        byte backwardType = BreakResolver.typeMode(type, false);
+        int charIndex;
+        while ((charIndex = iterator.previous()) != BreakIterator.DONE) {
+            breaks[charIndex] |= backwardType;
+        }
+    }
+
+    @Test
+    public void benchmarkBreakAnalysis() {
+        StringBuilder builder = new StringBuilder(DOCUMENT_LENGTH + PARAGRAPH.length());
+        while (builder.length() < DOCUMENT_LENGTH) {
+            builder.append(PARAGRAPH);
+        }
+        String text = builder.toString();
+        int length = text.length();
+
+        byte[] expected = new byte[length];
+        byte[] actual = new byte[length];
+        long twoPassTime = 0;
+        long singlePassTime = 0;
+
+        // The first iteration only warms up the code paths.
+        for (int i = 0; i <= ITERATIONS; i++) {
+            expected = new byte[length];
+            actual = new byte[length];
+
+            long twoPassStart = System.nanoTime();
+            fillTwoPass(text, expected, BreakResolver.LINE);
+            fillTwoPass(text, expected, BreakResolver.CHARACTER);
+            long singlePassStart = System.nanoTime();
+            BreakResolver.fillBreaks(text, actual);
+            long singlePassEnd = System.nanoTime();
+
+            if (i > 0) {
+                twoPassTime += singlePassStart - twoPassStart;
+                singlePassTime += singlePassEnd - singlePassStart;
+            }
+        }
+
+        assertArrayEquals(expected, actual);
+
+        long twoPassRate = (long) length * ITERATIONS * 1000 / Math.max(twoPassTime / 1000, 1);
+        long singlePassRate = (long) length * ITERATIONS * 1000 / Math.max(singlePassTime / 1000, 1);
+
+        Log.i(TAG, "Forward and backward passes: " + twoPassRate + " chars/ms, "
+                + "single pass: " + singlePassRate + " chars/ms");
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.layout;
+
+import android.content.Context;
+import android.text.SpannableString;
+import android.text.Spanned;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.layout.style.FallbackSpan;
+import com.mta.tehreer.layout.style.TypefaceSpan;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks how shaping runs are split along a fallback chain of a Latin system font followed by an
+ * Urdu font.
+ */
+public class FontFallbackTest {
+    private static final String URDU_ASSET = "NafeesWeb.ttf";
+    private static final String LATIN_FILE = "/system/fonts/Roboto-Regular.ttf";
+
+    private Typeface latinTypeface;
+    private Typeface urduTypeface;
+
+    private static class Run {
+        final int start;
+        final int end;
+        final Typeface typeface;
+
+        Run(int start, int end, Typeface typeface) {
+            this.start = start;
+            this.end = end;
+            this.typeface = typeface;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        File latinFile = new File(LATIN_FILE);
+        assumeTrue(latinFile.exists());
+
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        latinTypeface = new Typeface(latinFile);
+        urduTypeface = new Typeface(context.getAssets(), URDU_ASSET);
+    }
+
+    private List<Run> locateRuns(String text) {
+        SpannableString spanned = new SpannableString(text);
+        spanned.setSpan(new TypefaceSpan(latinTypeface), 0, text.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+        spanned.setSpan(FallbackSpan.ofTypefaces(Collections.singletonList(urduTypeface)),
+                        0, text.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+
+        ShapingRunLocator locator = new ShapingRunLocator(spanned, Collections.<Object>emptyList());
+        locator.reset(0, text.length());
+
+        List<Run> runs = new ArrayList<>();
+        while (locator.moveNext()) {
+            runs.add(new Run(locator.getRunStart(), locator.getRunEnd(), locator.getTypeface()));
+        }
+
+        return runs;
+    }
+
+    private static void assertRun(Run run, int start, int end, Typeface typeface) {
+        assertEquals(start, run.start);
+        assertEquals(end, run.end);
+        assertSame(typeface, run.typeface);
+    }
+
+    @Test
+    public void testMixedText() {
+        // "Hello " followed by an Urdu word and a Latin word.
+        List<Run> runs = locateRuns("Hello \u0627\u0631\u062F\u0648 world");
+
+        assertEquals(3, runs.size());
+        assertRun(runs.get(0), 0, 6, latinTypeface);
+        assertRun(runs.get(1), 6, 11, urduTypeface);
+        assertRun(runs.get(2), 11, 16, latinTypeface);
+    }
+
+    @Test
+    public void testWhitespaceKeptByPrecedingTypeface() {
+        // The space after the Urdu word is covered by both typefaces, so it stays with the Urdu
+        // run rather than switching back to the primary typeface.
+        List<Run> runs = locateRuns("\u0627\u0631\u062F\u0648 abc");
+
+        assertEquals(2, runs.size());
+        assertRun(runs.get(0), 0, 5, urduTypeface);
+        assertRun(runs.get(1), 5, 8, latinTypeface);
+    }
+
+    @Test
+    public void testCombiningMarksStayWithBase() {
+        // The Arabic hamza above is not covered by the Latin typeface, but it extends the cluster
+        // of preceding Latin letter.
+        List<Run> runs = locateRuns("ae\u0654b");
+
+        assertEquals(1, runs.size());
+        assertRun(runs.get(0), 0, 4, latinTypeface);
+
+        // The damma extends the Urdu letter before it.
+        runs = locateRuns("a\u0627\u064Fb");
+
+        assertEquals(3, runs.size());
+        assertRun(runs.get(0), 0, 1, latinTypeface);
+        assertRun(runs.get(1), 1, 3, urduTypeface);
+        assertRun(runs.get(2), 3, 4, latinTypeface);
+    }
+
+    @Test
+    public void testJoinerStaysWithBase() {
+        // A zero width joiner stays with the letter before it, whichever typeface that is.
+        List<Run> runs = locateRuns("a\u200Db\u0628\u200D");
+
+        assertEquals(2, runs.size());
+        assertRun(runs.get(0), 0, 3, latinTypeface);
+        assertRun(runs.get(1), 3, 5, urduTypeface);
+    }
+
+    @Test
+    public void testUncoveredFallsBackToPrimary() {
+        // Tibetan is covered by neither typeface, so it is left to the primary one, even after an
+        // Urdu letter.
+        List<Run> runs = locateRuns("\u0628\u0F40\u0F41");
+
+        assertEquals(2, runs.size());
+        assertRun(runs.get(0), 0, 1, urduTypeface);
+        assertRun(runs.get(1), 1, 3, latinTypeface);
+    }
+}
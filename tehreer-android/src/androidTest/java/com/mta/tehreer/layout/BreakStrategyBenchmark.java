@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import android.content.Context;
+import android.graphics.RectF;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mta.tehreer.graphics.Typeface;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the cost and result of simple and optimal line breaking on a long chapter. Results are
+ * written to logcat under the <code>BreakStrategyBenchmark</code> tag.
+ */
+public class BreakStrategyBenchmark {
+    private static final String TAG = "BreakStrategyBenchmark";
+    private static final String FONT_ASSET = "NafeesWeb.ttf";
+    private static final String PARAGRAPH = "اردو ایک ہند آریائی زبان ہے جو بنیادی طور پر "
+            + "جنوبی ایشیا میں بولی جاتی ہے۔ یہ پاکستان کی قومی اور رابطہ عامہ کی زبان ہے، "
+            + "جبکہ بھارت کی چھ ریاستوں کی دفتری زبان کا درجہ بھی رکھتی ہے۔ "
+            + "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor "
+            + "incididunt ut labore et dolore magna aliqua.\n";
+    private static final int CHAPTER_LENGTH = 100000;
+    private static final float FRAME_WIDTH = 360.0f;
+    private static final int ITERATIONS = 5;
+
+    private Typesetter typesetter;
+    private int length;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        Typeface typeface = new Typeface(context.getAssets(), FONT_ASSET);
+
+        StringBuilder builder = new StringBuilder(CHAPTER_LENGTH + PARAGRAPH.length());
+        while (builder.length() < CHAPTER_LENGTH) {
+            builder.append(PARAGRAPH);
+        }
+
+        typesetter = new Typesetter(builder.toString(), typeface, 16.0f);
+        length = builder.length();
+    }
+
+    private ComposedFrame createFrame(BreakStrategy breakStrategy) {
+        FrameResolver resolver = new FrameResolver();
+        resolver.setTypesetter(typesetter);
+        resolver.setFrameBounds(new RectF(0.0f, 0.0f, FRAME_WIDTH, Float.POSITIVE_INFINITY));
+        resolver.setBreakStrategy(breakStrategy);
+
+        return resolver.createFrame(0, length);
+    }
+
+    private void measure(BreakStrategy breakStrategy) {
+        // Warm up the code paths and the measurement index before measuring.
+        ComposedFrame frame = createFrame(breakStrategy);
+
+        long total = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            createFrame(breakStrategy);
+            total += System.nanoTime() - start;
+        }
+
+        // Sum of squared slack of all lines except the last line of each paragraph.
+        List<ComposedLine> lines = frame.getLines();
+        double raggedness = 0.0;
+        for (int i = 0; i < lines.size(); i++) {
+            ComposedLine line = lines.get(i);
+            float contentWidth = line.getWidth() - line.getTrailingWhitespaceExtent();
+            assertTrue("Line " + i + " overflows", contentWidth <= FRAME_WIDTH + 0.01f);
+
+            boolean endsParagraph = (line.getCharEnd() == length
+                                  || typesetter.getSpanned().charAt(line.getCharEnd() - 1) == '\n');
+            if (!endsParagraph) {
+                float slack = FRAME_WIDTH - contentWidth;
+                raggedness += slack * slack;
+            }
+        }
+
+        Log.i(TAG, breakStrategy + ": " + (total / ITERATIONS / 1000000) + " ms per chapter, "
+                + lines.size() + " lines, raggedness " + Math.round(raggedness));
+    }
+
+    @Test
+    public void benchmarkBreakStrategies() {
+        measure(BreakStrategy.SIMPLE);
+        measure(BreakStrategy.OPTIMAL);
+    }
+}
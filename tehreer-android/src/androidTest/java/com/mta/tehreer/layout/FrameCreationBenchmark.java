@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import android.content.Context;
+import android.graphics.RectF;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.internal.layout.RunCollection;
+import com.mta.tehreer.internal.layout.TextRun;
+import com.mta.tehreer.layout.style.TypeSizeSpan;
+import com.mta.tehreer.layout.style.TypefaceSpan;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures frame creation on a document of 100k characters, and compares the indexed measurement
+ * of character ranges against the previous approach of walking the caret edges of each run, both
+ * for whole frames and for the ranges alone. The time to the first screenful is also compared
+ * between eager and lazy typesetters.
+ * Results are written to logcat under the <code>FrameCreationBenchmark</code> tag.
+ */
+public class FrameCreationBenchmark {
+    private static final String TAG = "FrameCreationBenchmark";
+    private static final String FONT_ASSET = "NafeesWeb.ttf";
+    private static final String PARAGRAPH = "Lorem ipsum dolor sit amet, consectetur adipiscing "
+            + "elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. "
+            + "اردو ایک ہند آریائی "
+            + "زبان ہے جو بنیادی طور پر جنوبی ایشیا میں بولی جاتی ہے۔\n";
+    private static final int DOCUMENT_LENGTH = 100000;
+    private static final int ITERATIONS = 5;
+
+    private Typeface typeface;
+    private String document;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        typeface = new Typeface(context.getAssets(), FONT_ASSET);
+
+        StringBuilder builder = new StringBuilder(DOCUMENT_LENGTH + PARAGRAPH.length());
+        while (builder.length() < DOCUMENT_LENGTH) {
+            builder.append(PARAGRAPH);
+        }
+        document = builder.toString();
+    }
+
+    private static float measureByRuns(RunCollection runs, int charStart, int charEnd) {
+        float extent = 0.0f;
+
+        if (charEnd > charStart) {
+            int runIndex = runs.binarySearch(charStart);
+
+            do {
+                TextRun textRun = runs.get(runIndex);
+                int segmentEnd = Math.min(charEnd, textRun.getCharEnd());
+                extent += textRun.getRangeDistance(charStart, segmentEnd);
+
+                charStart = segmentEnd;
+                runIndex++;
+            } while (charStart < charEnd);
+        }
+
+        return extent;
+    }
+
+    /**
+     * A run collection measuring ranges by walking its runs, as was done before the index.
+     */
+    private static class WalkingRunCollection extends RunCollection {
+        @Override
+        public float measureChars(int charStart, int charEnd) {
+            return measureByRuns(this, charStart, charEnd);
+        }
+    }
+
+    /**
+     * A typesetter handing out the walking copy of its runs, so that frames are resolved through
+     * the same path as usual, except for the measurement of ranges.
+     */
+    private static class WalkingTypesetter extends Typesetter {
+        final RunCollection walkingRuns = new WalkingRunCollection();
+
+        WalkingTypesetter(String text, Typeface typeface, float typeSize) {
+            super(text, typeface, typeSize);
+            walkingRuns.addAll(super.getRuns());
+        }
+
+        @Override
+        RunCollection getRuns() {
+            return walkingRuns;
+        }
+    }
+
+    private ComposedFrame createWholeFrame(Typesetter typesetter) {
+        FrameResolver resolver = new FrameResolver();
+        resolver.setTypesetter(typesetter);
+        resolver.setFrameBounds(new RectF(0.0f, 0.0f, 360.0f, Float.POSITIVE_INFINITY));
+
+        return resolver.createFrame(0, document.length());
+    }
+
+    @Test
+    public void benchmarkFrameCreation() {
+        long indexedTime = 0;
+        long walkedTime = 0;
+
+        for (int i = 0; i <= ITERATIONS; i++) {
+            Typesetter indexed = new Typesetter(document, typeface, 16.0f);
+            Typesetter walking = new WalkingTypesetter(document, typeface, 16.0f);
+
+            long indexedStart = System.nanoTime();
+            ComposedFrame indexedFrame = createWholeFrame(indexed);
+            long walkedStart = System.nanoTime();
+            ComposedFrame walkedFrame = createWholeFrame(walking);
+            long walkedEnd = System.nanoTime();
+
+            List<ComposedLine> indexedLines = indexedFrame.getLines();
+            List<ComposedLine> walkedLines = walkedFrame.getLines();
+            assertEquals(walkedLines.size(), indexedLines.size());
+            for (int j = 0; j < walkedLines.size(); j++) {
+                assertEquals(walkedLines.get(j).getCharEnd(), indexedLines.get(j).getCharEnd());
+            }
+
+            indexed.close();
+            walking.close();
+
+            // The first iteration only warms up the code paths.
+            if (i > 0) {
+                indexedTime += walkedStart - indexedStart;
+                walkedTime += walkedEnd - walkedStart;
+            }
+        }
+
+        Log.i(TAG, "Frame creation: " + (walkedTime / ITERATIONS / 1000000) + " ms by walking runs, "
+                + (indexedTime / ITERATIONS / 1000000) + " ms with prefix index");
+    }
+
+    private ComposedFrame createFirstFrame(Typesetter typesetter) {
+        FrameResolver resolver = new FrameResolver();
+        resolver.setTypesetter(typesetter);
+        resolver.setFrameBounds(new RectF(0.0f, 0.0f, 360.0f, 640.0f));
+
+        return resolver.createFrame(0, document.length());
+    }
+
+    @Test
+    public void benchmarkFirstFrame() {
+        SpannableString spanned = new SpannableString(document);
+        spanned.setSpan(new TypefaceSpan(typeface), 0, document.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+        spanned.setSpan(new TypeSizeSpan(16.0f), 0, document.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+
+        long eagerTime = 0;
+        long lazyTime = 0;
+
+        for (int i = 0; i <= ITERATIONS; i++) {
+            long eagerStart = System.nanoTime();
+            Typesetter eager = new Typesetter(spanned, null);
+            ComposedFrame eagerFrame = createFirstFrame(eager);
+
+            long lazyStart = System.nanoTime();
+            Typesetter lazy = Typesetter.createLazily(spanned, null);
+            ComposedFrame lazyFrame = createFirstFrame(lazy);
+            long lazyEnd = System.nanoTime();
+
+            List<ComposedLine> eagerLines = eagerFrame.getLines();
+            List<ComposedLine> lazyLines = lazyFrame.getLines();
+            assertEquals(eagerLines.size(), lazyLines.size());
+            for (int j = 0; j < eagerLines.size(); j++) {
+                assertEquals(eagerLines.get(j).getCharEnd(), lazyLines.get(j).getCharEnd());
+                assertEquals(eagerLines.get(j).getWidth(), lazyLines.get(j).getWidth(), 1e-3f);
+            }
+
+            eager.close();
+            lazy.close();
+
+            if (i > 0) {
+                eagerTime += lazyStart - eagerStart;
+                lazyTime += lazyEnd - lazyStart;
+            }
+        }
+
+        Log.i(TAG, "First frame: " + (eagerTime / ITERATIONS / 1000) + " us eagerly, "
+                + (lazyTime / ITERATIONS / 1000) + " us lazily");
+    }
+
+    @Test
+    public void benchmarkRangeMeasurement() {
+        Typesetter typesetter = new Typesetter(document, typeface, 16.0f);
+        RunCollection runs = typesetter.getRuns();
+        int length = document.length();
+
+        // Measure every line-sized range ending at a break opportunity, as line breaking does.
+        int rangeCount = 0;
+        long indexedTime = 0;
+        long walkedTime = 0;
+
+        for (int i = 0; i <= ITERATIONS; i++) {
+            long indexedStart = System.nanoTime();
+            float indexedSum = 0.0f;
+            for (int end = 1; end <= length; end++) {
+                if (end == length || document.charAt(end) == ' ') {
+                    indexedSum += runs.measureChars(Math.max(0, end - 60), end);
+                }
+            }
+            long walkedStart = System.nanoTime();
+            float walkedSum = 0.0f;
+            rangeCount = 0;
+            for (int end = 1; end <= length; end++) {
+                if (end == length || document.charAt(end) == ' ') {
+                    walkedSum += measureByRuns(runs, Math.max(0, end - 60), end);
+                    rangeCount++;
+                }
+            }
+            long walkedEnd = System.nanoTime();
+
+            assertEquals(walkedSum, indexedSum, walkedSum * 1e-4f);
+
+            if (i > 0) {
+                indexedTime += walkedStart - indexedStart;
+                walkedTime += walkedEnd - walkedStart;
+            }
+        }
+
+        Log.i(TAG, "Measuring " + rangeCount + " ranges: "
+                + (walkedTime / ITERATIONS / 1000) + " us by walking runs, "
+                + (indexedTime / ITERATIONS / 1000) + " us with prefix index");
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import android.content.Context;
+import android.graphics.RectF;
+import android.os.Debug;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mta.tehreer.graphics.Typeface;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that the native memory of typesetters and their frames is reclaimed, both when they are
+ * closed explicitly and when they are left to the garbage collector.
+ */
+public class NativeMemoryTest {
+    private static final String FONT_ASSET = "NafeesWeb.ttf";
+    private static final String PARAGRAPH = "Lorem ipsum dolor sit amet, consectetur adipiscing "
+            + "elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. "
+            + "اردو ایک ہند آریائی "
+            + "زبان ہے۔\n";
+    private static final int PARAGRAPH_COUNT = 500;
+    private static final int ITERATIONS = 50;
+    private static final long TOLERANCE = 1024 * 1024;
+
+    private Typeface typeface;
+    private String document;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        typeface = new Typeface(context.getAssets(), FONT_ASSET);
+
+        StringBuilder builder = new StringBuilder(PARAGRAPH.length() * PARAGRAPH_COUNT);
+        for (int i = 0; i < PARAGRAPH_COUNT; i++) {
+            builder.append(PARAGRAPH);
+        }
+        document = builder.toString();
+    }
+
+    private void typesetDocument(boolean close) {
+        Typesetter typesetter = new Typesetter(document, typeface, 16.0f);
+
+        FrameResolver resolver = new FrameResolver();
+        resolver.setTypesetter(typesetter);
+        resolver.setFrameBounds(new RectF(0.0f, 0.0f, 360.0f, Float.POSITIVE_INFINITY));
+        resolver.createFrame(0, document.length());
+
+        if (close) {
+            typesetter.close();
+        }
+    }
+
+    private static long settledNativeHeap() throws InterruptedException {
+        long allocated = Long.MAX_VALUE;
+
+        // Cleaning actions run on a background thread, so give the reaper a chance to catch up
+        // after each collection and keep going until the heap stops shrinking.
+        for (int i = 0; i < 20; i++) {
+            Runtime.getRuntime().gc();
+            System.runFinalization();
+            Thread.sleep(100);
+
+            long current = Debug.getNativeHeapAllocatedSize();
+            if (current >= allocated) {
+                break;
+            }
+            allocated = current;
+        }
+
+        return Math.min(allocated, Debug.getNativeHeapAllocatedSize());
+    }
+
+    private void assertReturnsToBaseline(boolean close) throws InterruptedException {
+        // Typeset once beforehand so that lazily allocated caches are part of the baseline.
+        typesetDocument(close);
+        long baseline = settledNativeHeap();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            typesetDocument(close);
+        }
+        long settled = settledNativeHeap();
+
+        assertTrue("Native heap grew from " + baseline + " to " + settled + " bytes",
+                   settled - baseline < TOLERANCE);
+    }
+
+    @Test
+    public void testClosedTypesetters() throws InterruptedException {
+        assertReturnsToBaseline(true);
+    }
+
+    @Test
+    public void testUnreachableTypesetters() throws InterruptedException {
+        assertReturnsToBaseline(false);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import android.content.Context;
+import android.graphics.RectF;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.LeadingMarginSpan;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.layout.style.TypeSizeSpan;
+import com.mta.tehreer.layout.style.TypefaceSpan;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the pages laid out directly from a page index match the frames of the pagination
+ * the index was created from. It needs native typesetting, so it is an instrumented companion of
+ * the serialization tests in <code>PageIndexTest</code>.
+ */
+public class PageIndexLayoutTest {
+    private static final String FONT_ASSET = "NafeesWeb.ttf";
+    private static final String ENGLISH = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, "
+            + "sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. ";
+    private static final String URDU = "اردو ایک ہند آریائی زبان ہے جو بنیادی طور پر جنوبی ایشیا میں "
+            + "بولی جاتی ہے۔ ";
+    private static final RectF PAGE_BOUNDS = new RectF(0.0f, 0.0f, 300.0f, 200.0f);
+
+    private Spanned document;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        Typeface typeface = new Typeface(context.getAssets(), FONT_ASSET);
+        SpannableStringBuilder builder = new SpannableStringBuilder();
+
+        // Long paragraphs with a first line margin, so that pages start in the middle of them.
+        for (int i = 0; i < 12; i++) {
+            int paragraphStart = builder.length();
+            String sentence = ((i & 1) == 0 ? ENGLISH : URDU);
+            for (int j = 0; j <= i; j++) {
+                builder.append(sentence);
+            }
+            builder.append('\n');
+            builder.setSpan(new LeadingMarginSpan.Standard(40, 10), paragraphStart, builder.length(),
+                            Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        }
+        builder.setSpan(new TypefaceSpan(typeface), 0, builder.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+        builder.setSpan(new TypeSizeSpan(16.0f), 0, builder.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+
+        document = builder;
+    }
+
+    private void checkPages(BreakStrategy breakStrategy, int charStart) {
+        FrameResolver resolver = new FrameResolver();
+        resolver.setTypesetter(new Typesetter(document, null));
+        resolver.setFrameBounds(PAGE_BOUNDS);
+        resolver.setBreakStrategy(breakStrategy);
+
+        int charEnd = document.length();
+        List<ComposedFrame> frames = new ArrayList<>();
+        Paginator paginator = resolver.createPaginator(charStart, charEnd);
+        while (paginator.hasNext()) {
+            frames.add(paginator.next());
+        }
+
+        PageIndex index = PageIndex.create(resolver, charStart, charEnd, 0);
+        assertEquals(frames.size(), index.getPageCount());
+
+        boolean continuesParagraph = false;
+
+        for (int i = 0; i < frames.size(); i++) {
+            ComposedFrame expected = frames.get(i);
+            ComposedFrame actual = index.createPage(resolver, i);
+            String message = breakStrategy + ", page " + i;
+
+            assertEquals(message, expected.getCharStart(), actual.getCharStart());
+            assertEquals(message, expected.getCharEnd(), actual.getCharEnd());
+
+            List<ComposedLine> expectedLines = expected.getLines();
+            List<ComposedLine> actualLines = actual.getLines();
+            assertEquals(message, expectedLines.size(), actualLines.size());
+
+            for (int j = 0; j < expectedLines.size(); j++) {
+                ComposedLine expectedLine = expectedLines.get(j);
+                ComposedLine actualLine = actualLines.get(j);
+                String lineMessage = message + ", line " + j;
+
+                assertEquals(lineMessage, expectedLine.getCharStart(), actualLine.getCharStart());
+                assertEquals(lineMessage, expectedLine.getCharEnd(), actualLine.getCharEnd());
+                assertEquals(lineMessage, expectedLine.isFirst(), actualLine.isFirst());
+                assertEquals(lineMessage, expectedLine.getOriginX(), actualLine.getOriginX(), 1e-3f);
+                assertEquals(lineMessage, expectedLine.getOriginY(), actualLine.getOriginY(), 1e-3f);
+            }
+
+            if (i > 0 && document.charAt(expected.getCharStart() - 1) != '\n') {
+                continuesParagraph = true;
+            }
+        }
+
+        assertTrue("No page continues a paragraph", continuesParagraph);
+    }
+
+    @Test
+    public void testSimplePages() {
+        checkPages(BreakStrategy.SIMPLE, 0);
+    }
+
+    @Test
+    public void testOptimalPages() {
+        checkPages(BreakStrategy.OPTIMAL, 0);
+    }
+
+    @Test
+    public void testPagesFromMiddleOfParagraph() {
+        checkPages(BreakStrategy.SIMPLE, document.toString().indexOf(ENGLISH, 1) + 6);
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import android.content.Context;
+import android.graphics.RectF;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.layout.style.TypeSizeSpan;
+import com.mta.tehreer.layout.style.TypefaceSpan;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares paginating a document of 100k characters with a paginator against creating each page
+ * separately from the end of previous one. Results are written to logcat under the
+ * <code>PaginationBenchmark</code> tag.
+ */
+public class PaginationBenchmark {
+    private static final String TAG = "PaginationBenchmark";
+    private static final String FONT_ASSET = "NafeesWeb.ttf";
+    private static final String PARAGRAPH = "Lorem ipsum dolor sit amet, consectetur adipiscing "
+            + "elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua. "
+            + "اردو ایک ہند آریائی "
+            + "زبان ہے جو بنیادی طور پر جنوبی ایشیا میں بولی جاتی ہے۔\n";
+    private static final int DOCUMENT_LENGTH = 100000;
+    private static final int ITERATIONS = 5;
+    private static final RectF PAGE_BOUNDS = new RectF(0.0f, 0.0f, 360.0f, 640.0f);
+
+    private Typeface typeface;
+    private String document;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        typeface = new Typeface(context.getAssets(), FONT_ASSET);
+
+        StringBuilder builder = new StringBuilder(DOCUMENT_LENGTH + PARAGRAPH.length());
+        while (builder.length() < DOCUMENT_LENGTH) {
+            builder.append(PARAGRAPH);
+        }
+        document = builder.toString();
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+
+        return array;
+    }
+
+    private FrameResolver createResolver(Typesetter typesetter) {
+        FrameResolver resolver = new FrameResolver();
+        if (typesetter != null) {
+            resolver.setTypesetter(typesetter);
+        }
+        resolver.setFrameBounds(PAGE_BOUNDS);
+
+        return resolver;
+    }
+
+    @Test
+    public void benchmarkPagination() {
+        Typesetter typesetter = new Typesetter(document, typeface, 16.0f);
+        FrameResolver resolver = createResolver(typesetter);
+        int length = document.length();
+
+        long separateTime = 0;
+        long paginatorTime = 0;
+
+        for (int i = 0; i <= ITERATIONS; i++) {
+            List<Integer> separateStarts = new ArrayList<>();
+            List<Integer> paginatorStarts = new ArrayList<>();
+
+            long separateStart = System.nanoTime();
+            int charIndex = 0;
+            while (charIndex < length) {
+                separateStarts.add(charIndex);
+                charIndex = resolver.createFrame(charIndex, length).getCharEnd();
+            }
+
+            long paginatorStart = System.nanoTime();
+            Paginator paginator = resolver.createPaginator(0, length);
+            while (paginator.hasNext()) {
+                paginatorStarts.add(paginator.getCharIndex());
+                paginator.next();
+            }
+            long paginatorEnd = System.nanoTime();
+
+            assertArrayEquals(toArray(separateStarts), toArray(paginatorStarts));
+
+            if (i > 0) {
+                separateTime += paginatorStart - separateStart;
+                paginatorTime += paginatorEnd - paginatorStart;
+            }
+        }
+
+        Log.i(TAG, "Paginating document: " + (separateTime / ITERATIONS / 1000) + " us with separate "
+                + "frames, " + (paginatorTime / ITERATIONS / 1000) + " us with paginator");
+    }
+
+    @Test
+    public void benchmarkPageAccess() throws IOException {
+        Typesetter typesetter = new Typesetter(document, typeface, 16.0f);
+        FrameResolver resolver = createResolver(typesetter);
+        int length = document.length();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PageIndex.create(resolver, 0, length, 16).writeTo(out);
+
+        long readStart = System.nanoTime();
+        PageIndex index = PageIndex.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertTrue(index.matches(resolver, 16));
+
+        int lastPage = index.getPageCount() - 1;
+        ComposedFrame frame = index.createPage(resolver, lastPage);
+        long readEnd = System.nanoTime();
+
+        assertEquals(index.getPageStart(lastPage), frame.getCharStart());
+        assertEquals(index.getPageEnd(lastPage), frame.getCharEnd());
+
+        Log.i(TAG, "Opening page " + (lastPage + 1) + " from an index of " + out.size()
+                + " bytes: " + ((readEnd - readStart) / 1000) + " us");
+    }
+
+    @Test
+    public void benchmarkRelayout() throws InterruptedException {
+        SpannableString spanned = new SpannableString(document);
+        spanned.setSpan(new TypefaceSpan(typeface), 0, document.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+        spanned.setSpan(new TypeSizeSpan(16.0f), 0, document.length(), Spanned.SPAN_INCLUSIVE_INCLUSIVE);
+
+        ExecutorService background = Executors.newSingleThreadExecutor();
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        final CountDownLatch latch = new CountDownLatch(1);
+        final PageIndex[] result = new PageIndex[1];
+
+        long start = System.nanoTime();
+        RelayoutPipeline pipeline = new RelayoutPipeline(background, direct);
+        List<ComposedFrame> visible = pipeline.start(spanned, null, createResolver(null), 16,
+                                                     document.length() / 2, 2,
+                                                     new RelayoutPipeline.Listener() {
+            @Override
+            public void onProgress(int pageCount, int charIndex, int charEnd) {
+            }
+
+            @Override
+            public void onCompleted(Typesetter typesetter, PageIndex pageIndex) {
+                result[0] = pageIndex;
+                latch.countDown();
+            }
+
+            @Override
+            public void onFailed(RuntimeException exception) {
+                latch.countDown();
+            }
+        });
+        long visibleEnd = System.nanoTime();
+
+        assertEquals(2, visible.size());
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        long completeEnd = System.nanoTime();
+        background.shutdown();
+
+        Typesetter typesetter = new Typesetter(spanned, null);
+        PageIndex expected = PageIndex.create(createResolver(typesetter), 0, document.length(), 16);
+        assertEquals(expected.getLayoutKey(), result[0].getLayoutKey());
+        assertEquals(expected.getPageCount(), result[0].getPageCount());
+
+        Log.i(TAG, "Relayout: visible pages in " + ((visibleEnd - start) / 1000) + " us, "
+                + "whole document in " + ((completeEnd - start) / 1000) + " us");
+    }
+
+    @Test
+    public void testCancellation() {
+        Typesetter typesetter = new Typesetter(document, typeface, 16.0f);
+        Paginator paginator = createResolver(typesetter).createPaginator(0, document.length());
+
+        paginator.next();
+        paginator.cancel();
+
+        assertTrue(paginator.isCancelled());
+        assertFalse(paginator.hasNext());
+
+        try {
+            paginator.next();
+        } catch (CancellationException e) {
+            return;
+        }
+        throw new AssertionError("Cancelled paginator created a frame");
+    }
+}
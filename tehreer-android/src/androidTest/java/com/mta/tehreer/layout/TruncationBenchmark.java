@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mta.tehreer.graphics.Typeface;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the creation of truncated lines, such as for the labels of a list or a long paragraph
+ * squeezed into a single line. Results are written
+ * to logcat under the <code>TruncationBenchmark</code> tag.
+ */
+public class TruncationBenchmark {
+    private static final String TAG = "TruncationBenchmark";
+    private static final String FONT_ASSET = "NafeesWeb.ttf";
+    private static final String LABEL = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, "
+            + "sed do eiusmod tempor incididunt ut labore et dolore magna aliqua.";
+    private static final int LABEL_COUNT = 1000;
+    private static final float MAX_WIDTH = 200.0f;
+    private static final int PARAGRAPH_LENGTH = 10000;
+
+    private Typeface typeface;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        typeface = new Typeface(context.getAssets(), FONT_ASSET);
+    }
+
+    @Test
+    public void benchmarkLabels() {
+        int length = LABEL.length();
+
+        // Warm up the code paths.
+        new Typesetter(LABEL, typeface, 16.0f)
+                .createTruncatedLine(0, length, MAX_WIDTH, BreakMode.CHARACTER, TruncationPlace.END);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < LABEL_COUNT; i++) {
+            // A new typesetter for each label, as when binding the items of a list.
+            Typesetter typesetter = new Typesetter(LABEL, typeface, 16.0f);
+            ComposedLine line = typesetter.createTruncatedLine(0, length, MAX_WIDTH,
+                                                               BreakMode.CHARACTER, TruncationPlace.END);
+            assertTrue(line.getWidth() <= MAX_WIDTH);
+            typesetter.close();
+        }
+        long end = System.nanoTime();
+
+        Log.i(TAG, "Truncating " + LABEL_COUNT + " labels: " + ((end - start) / 1000) + " us");
+    }
+
+    @Test
+    public void benchmarkLongParagraph() {
+        // A long paragraph without any line break opportunity.
+        StringBuilder builder = new StringBuilder(PARAGRAPH_LENGTH);
+        while (builder.length() < PARAGRAPH_LENGTH) {
+            builder.append("abcdefghij");
+        }
+        String paragraph = builder.toString();
+        Typesetter typesetter = new Typesetter(paragraph, typeface, 16.0f);
+
+        for (TruncationPlace place : TruncationPlace.values()) {
+            typesetter.createTruncatedLine(0, PARAGRAPH_LENGTH, MAX_WIDTH, BreakMode.LINE, place);
+
+            long start = System.nanoTime();
+            ComposedLine line = typesetter.createTruncatedLine(0, PARAGRAPH_LENGTH, MAX_WIDTH,
+                                                               BreakMode.LINE, place);
+            long end = System.nanoTime();
+
+            assertTrue(line.getWidth() <= MAX_WIDTH);
+            Log.i(TAG, "Truncating " + PARAGRAPH_LENGTH + " characters at " + place + ": "
+                    + ((end - start) / 1000) + " us");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.internal.layout.TokenResolver;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that shaped truncation tokens are shared by all typesetters using the same typeface and
+ * type size, such as the ones created for each label of a list.
+ */
+public class TruncationTokenTest {
+    private static final String FONT_ASSET = "NafeesWeb.ttf";
+
+    private Typeface typeface;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+        typeface = new Typeface(context.getAssets(), FONT_ASSET);
+    }
+
+    private ComposedLine createToken(String text, float typeSize, String tokenStr) {
+        Typesetter typesetter = new Typesetter(text, typeface, typeSize);
+        try {
+            return TokenResolver.createToken(typesetter.getParagraphs(), typesetter.getRuns(),
+                                             0, text.length(), TruncationPlace.END, tokenStr);
+        } finally {
+            typesetter.close();
+        }
+    }
+
+    @Test
+    public void testTokenSharedAcrossTypesetters() {
+        ComposedLine first = createToken("First label", 16.0f, null);
+        ComposedLine second = createToken("Second label", 16.0f, null);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testCustomTokenSharedAcrossTypesetters() {
+        ComposedLine first = createToken("First label", 16.0f, "[more]");
+        ComposedLine second = createToken("Second label", 16.0f, "[more]");
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testTokenNotSharedAcrossSizes() {
+        ComposedLine first = createToken("First label", 16.0f, null);
+        ComposedLine second = createToken("Second label", 18.0f, null);
+
+        assertNotSame(first, second);
+    }
+}
@@ -17,11 +17,14 @@
 package com.mta.tehreer.font;
 
 import android.content.res.AssetManager;
+import android.os.ParcelFileDescriptor;
 
 import androidx.annotation.NonNull;
 
 import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.internal.Cleaner;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -32,23 +35,28 @@ import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
 
 /**
  * A <code>FontFile</code> object represents the file of a specific font format.
+ * <p>
+ * The native font file is reference counted by the typefaces obtained from it. It is released when
+ * this object is closed or becomes unreachable, and the typefaces stay valid regardless.
  */
-public final class FontFile {
-    long nativeFontFile;
-    private final Finalizer finalizer = new Finalizer();
-    private List<Typeface> mTypefaces;
+public final class FontFile implements Closeable {
+    private static final class Releaser implements Runnable {
+        private final long nativeFontFile;
+
+        Releaser(long nativeFontFile) {
+            this.nativeFontFile = nativeFontFile;
+        }
 
-    private class Finalizer {
         @Override
-        protected void finalize() throws Throwable {
-            try {
-                release();
-            } finally {
-                super.finalize();
-            }
+        public void run() {
+            nRelease(nativeFontFile);
         }
     }
 
+    long nativeFontFile;
+    private Cleaner.Cleanable cleanable;
+    private List<Typeface> mTypefaces;
+
     /**
      * Constructs a font file instance representing the specified asset. The data of the asset is
      * not copied to an in-memory buffer. Rather, it is directly read from a stream of the asset
@@ -69,11 +77,15 @@ public final class FontFile {
         if (nativeFontFile == 0) {
             throw new RuntimeException("Could not create typeface from specified asset");
         }
+
+        cleanable = Cleaner.register(this, new Releaser(nativeFontFile));
     }
 
     /**
-     * Constructs a font file instance representing the specified file path. The data of the font
-     * is directly read from a stream of the file when needed.
+     * Constructs a font file instance representing the specified file path. The file is mapped
+     * into the memory and the mapping is shared by all typefaces obtained from the font file. If
+     * the file cannot be mapped, the data of the font is directly read from a stream of the file
+     * when needed.
      *
      * @param file The file describing the path of the font.
      *
@@ -87,6 +99,29 @@ public final class FontFile {
         if (nativeFontFile == 0) {
             throw new RuntimeException("Could not create typeface from specified file");
         }
+
+        cleanable = Cleaner.register(this, new Releaser(nativeFontFile));
+    }
+
+    /**
+     * Constructs a font file instance from the specified parcel file descriptor by mapping the
+     * underlying file into the memory. The mapping is shared by all typefaces obtained from the
+     * font file. The descriptor is not retained and can be closed by the caller afterwards.
+     *
+     * @param pfd The parcel file descriptor of the font, referring to a regular file.
+     *
+     * @throws NullPointerException if <code>pfd</code> is null.
+     * @throws RuntimeException if an error occurred while initialization.
+     */
+    public FontFile(@NonNull ParcelFileDescriptor pfd) {
+        checkNotNull(pfd, "pfd");
+
+        nativeFontFile = nCreateFromDescriptor(pfd.getFd());
+        if (nativeFontFile == 0) {
+            throw new RuntimeException("Could not create typeface from specified file descriptor");
+        }
+
+        cleanable = Cleaner.register(this, new Releaser(nativeFontFile));
     }
 
     /**
@@ -106,6 +141,8 @@ public final class FontFile {
         if (nativeFontFile == 0) {
             throw new RuntimeException("Could not create typeface from specified stream");
         }
+
+        cleanable = Cleaner.register(this, new Releaser(nativeFontFile));
     }
 
     private void loadTypefaces() {
@@ -159,12 +196,18 @@ public final class FontFile {
         return mTypefaces;
     }
 
-    void release() {
-        nRelease(nativeFontFile);
+    /**
+     * Releases this object's reference to the native font file. The typefaces already obtained
+     * from this font file remain usable, but no new typefaces can be obtained afterwards.
+     */
+    @Override
+    public void close() {
+        cleanable.clean();
     }
 
     private static native long nCreateFromAsset(AssetManager assetManager, String path);
     private static native long nCreateFromPath(String path);
+    private static native long nCreateFromDescriptor(int fd);
     private static native long nCreateFromStream(InputStream stream);
     private static native void nRelease(long nativeFontFile);
 
@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mta.tehreer.font.FontFile;
+import com.mta.tehreer.font.VariationAxis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
+
+/**
+ * A <code>FontIndex</code> object keeps the metadata of font files in a compact binary file so that
+ * typefaces can be registered without opening the fonts on every process start.
+ * <p>
+ * For each face of an indexed font file, the index stores its family, style and full name, its
+ * weight, width and slope, and its variation axes. A font file is identified by its path, length
+ * and modification time; if any of these change, the file is opened again and its entry is
+ * refreshed. Typefaces of indexed files are returned in a lazy state in which only the stored
+ * metadata is available without opening the font. The native face is opened on first use of any
+ * other information, such as glyphs, metrics or tables.
+ * <p>
+ * Typical usage is to open the index from a file in the cache directory, obtain the typefaces of
+ * each font file, register them with {@link TypefaceManager} and finally save the index.
+ */
+public final class FontIndex {
+    private static final int MAGIC = 0x54464958; // 'TFIX'
+    private static final int VERSION = 1;
+
+    private static final class FaceRecord {
+        int faceIndex;
+        String familyName;
+        String styleName;
+        String fullName;
+        int weight;
+        int width;
+        int slope;
+        @Nullable List<VariationAxis> variationAxes;
+    }
+
+    private static final class FileRecord {
+        long length;
+        long lastModified;
+        List<FaceRecord> faces;
+    }
+
+    private final @NonNull File indexFile;
+    private final @NonNull Map<String, FileRecord> records;
+    private boolean modified;
+
+    private FontIndex(@NonNull File indexFile, @NonNull Map<String, FileRecord> records) {
+        this.indexFile = indexFile;
+        this.records = records;
+    }
+
+    /**
+     * Opens the font index stored in the specified file. If the file does not exist or cannot be
+     * read, an empty index is returned which will be written to the file when saved.
+     *
+     * @param indexFile The file holding the index, usually located in the cache directory.
+     * @return The font index backed by the specified file.
+     *
+     * @throws NullPointerException if <code>indexFile</code> is null.
+     */
+    public static @NonNull FontIndex open(@NonNull File indexFile) {
+        checkNotNull(indexFile, "indexFile");
+
+        Map<String, FileRecord> records = new LinkedHashMap<>();
+
+        if (indexFile.isFile()) {
+            try {
+                readRecords(indexFile, records);
+            } catch (IOException | RuntimeException e) {
+                // A corrupt or outdated index is simply rebuilt.
+                records.clear();
+            }
+        }
+
+        return new FontIndex(indexFile, records);
+    }
+
+    /**
+     * Returns the typefaces of the specified font file. If the file is indexed and has not changed
+     * since, the returned typefaces are lazy and the font is not opened. Otherwise, the font is
+     * opened and indexed, and the returned typefaces are fully loaded.
+     *
+     * @param fontFile The font file whose typefaces are returned.
+     * @return The named typefaces of the font file.
+     *
+     * @throws NullPointerException if <code>fontFile</code> is null.
+     * @throws RuntimeException if the font file could not be opened.
+     */
+    public synchronized @NonNull List<Typeface> getTypefaces(@NonNull File fontFile) {
+        checkNotNull(fontFile, "fontFile");
+
+        String path = fontFile.getAbsolutePath();
+        long length = fontFile.length();
+        long lastModified = fontFile.lastModified();
+
+        FileRecord fileRecord = records.get(path);
+        if (fileRecord != null
+                && fileRecord.length == length
+                && fileRecord.lastModified == lastModified) {
+            List<Typeface> typefaces = new ArrayList<>(fileRecord.faces.size());
+
+            for (FaceRecord face : fileRecord.faces) {
+                typefaces.add(new Typeface(path, face.faceIndex,
+                                           face.familyName, face.styleName, face.fullName,
+                                           TypeWeight.values()[face.weight],
+                                           TypeWidth.values()[face.width],
+                                           TypeSlope.values()[face.slope],
+                                           face.variationAxes));
+            }
+
+            return Collections.unmodifiableList(typefaces);
+        }
+
+        List<Typeface> typefaces = new FontFile(fontFile).getTypefaces();
+
+        fileRecord = new FileRecord();
+        fileRecord.length = length;
+        fileRecord.lastModified = lastModified;
+        fileRecord.faces = new ArrayList<>(typefaces.size());
+
+        for (Typeface typeface : typefaces) {
+            FaceRecord face = new FaceRecord();
+            face.faceIndex = typeface.getFaceIndex();
+            face.familyName = typeface.getFamilyName();
+            face.styleName = typeface.getStyleName();
+            face.fullName = typeface.getFullName();
+            face.weight = typeface.getWeight().ordinal();
+            face.width = typeface.getWidth().ordinal();
+            face.slope = typeface.getSlope().ordinal();
+            face.variationAxes = typeface.getVariationAxes();
+
+            fileRecord.faces.add(face);
+        }
+
+        records.put(path, fileRecord);
+        modified = true;
+
+        return Collections.unmodifiableList(typefaces);
+    }
+
+    /**
+     * Writes this index to its file if any entry has been added or refreshed. Entries of font files
+     * which no longer exist are dropped. The file is replaced atomically, so a concurrent reader
+     * either sees the old or the new index.
+     *
+     * @throws IOException if an I/O error occurred while writing the index.
+     */
+    public synchronized void save() throws IOException {
+        Iterator<Map.Entry<String, FileRecord>> iterator = records.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (!new File(iterator.next().getKey()).exists()) {
+                iterator.remove();
+                modified = true;
+            }
+        }
+
+        if (!modified) {
+            return;
+        }
+
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)));
+        try {
+            writeRecords(output, records);
+        } finally {
+            output.close();
+        }
+
+        if (!tempFile.renameTo(indexFile)) {
+            tempFile.delete();
+            throw new IOException("Could not replace font index: " + indexFile);
+        }
+
+        modified = false;
+    }
+
+    private static void readRecords(@NonNull File indexFile,
+                                    @NonNull Map<String, FileRecord> records) throws IOException {
+        DataInputStream input = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(indexFile)));
+        try {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return;
+            }
+
+            int fileCount = input.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                String path = input.readUTF();
+                FileRecord fileRecord = new FileRecord();
+                fileRecord.length = input.readLong();
+                fileRecord.lastModified = input.readLong();
+
+                int faceCount = input.readInt();
+                fileRecord.faces = new ArrayList<>(faceCount);
+
+                for (int j = 0; j < faceCount; j++) {
+                    FaceRecord face = new FaceRecord();
+                    face.faceIndex = input.readInt();
+                    face.familyName = input.readUTF();
+                    face.styleName = input.readUTF();
+                    face.fullName = input.readUTF();
+                    face.weight = input.readUnsignedByte();
+                    face.width = input.readUnsignedByte();
+                    face.slope = input.readUnsignedByte();
+
+                    int axisCount = input.readInt();
+                    if (axisCount >= 0) {
+                        face.variationAxes = new ArrayList<>(axisCount);
+
+                        for (int k = 0; k < axisCount; k++) {
+                            int tag = input.readInt();
+                            String name = input.readUTF();
+                            int flags = input.readInt();
+                            float defaultValue = input.readFloat();
+                            float minValue = input.readFloat();
+                            float maxValue = input.readFloat();
+
+                            face.variationAxes.add(VariationAxis.of(tag, name, flags,
+                                                                    defaultValue, minValue, maxValue));
+                        }
+                    }
+
+                    fileRecord.faces.add(face);
+                }
+
+                records.put(path, fileRecord);
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    private static void writeRecords(@NonNull DataOutputStream output,
+                                     @NonNull Map<String, FileRecord> records) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(records.size());
+
+        for (Map.Entry<String, FileRecord> entry : records.entrySet()) {
+            FileRecord fileRecord = entry.getValue();
+
+            output.writeUTF(entry.getKey());
+            output.writeLong(fileRecord.length);
+            output.writeLong(fileRecord.lastModified);
+            output.writeInt(fileRecord.faces.size());
+
+            for (FaceRecord face : fileRecord.faces) {
+                output.writeInt(face.faceIndex);
+                output.writeUTF(face.familyName);
+                output.writeUTF(face.styleName);
+                output.writeUTF(face.fullName);
+                output.writeByte(face.weight);
+                output.writeByte(face.width);
+                output.writeByte(face.slope);
+
+                List<VariationAxis> variationAxes = face.variationAxes;
+                if (variationAxes == null) {
+                    output.writeInt(-1);
+                } else {
+                    output.writeInt(variationAxes.size());
+
+                    for (VariationAxis axis : variationAxes) {
+                        output.writeInt(axis.tag());
+                        output.writeUTF(axis.name());
+                        output.writeInt(axis.flags());
+                        output.writeFloat(axis.defaultValue());
+                        output.writeFloat(axis.minValue());
+                        output.writeFloat(axis.maxValue());
+                    }
+                }
+            }
+        }
+    }
+}
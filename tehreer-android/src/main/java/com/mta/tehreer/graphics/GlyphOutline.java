@@ -16,6 +16,7 @@
 
 package com.mta.tehreer.graphics;
 
+import com.mta.tehreer.internal.Cleaner;
 import com.mta.tehreer.internal.JniBridge;
 
 final class GlyphOutline {
@@ -23,20 +24,26 @@ final class GlyphOutline {
         JniBridge.loadLibrary();
     }
 
+    private static final class Disposer implements Runnable {
+        private final long nativeOutline;
+
+        Disposer(long nativeOutline) {
+            this.nativeOutline = nativeOutline;
+        }
+
+        @Override
+        public void run() {
+            nDispose(nativeOutline);
+        }
+    }
+
     long nativeOutline;
 
     public GlyphOutline(long nativeOutline) {
         this.nativeOutline = nativeOutline;
-    }
 
-    @Override
-    protected void finalize() throws Throwable {
-        try {
-            if (nativeOutline != 0) {
-                nDispose(nativeOutline);
-            }
-        } finally {
-            super.finalize();
+        if (nativeOutline != 0) {
+            Cleaner.register(this, new Disposer(nativeOutline));
         }
     }
 
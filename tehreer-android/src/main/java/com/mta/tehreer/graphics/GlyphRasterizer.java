@@ -34,7 +34,7 @@ final class GlyphRasterizer implements Disposable {
 	long nativeRasterizer;
 
     public GlyphRasterizer(@NonNull GlyphKey key) {
-	    nativeRasterizer = nCreate(key.typeface.nativeTypeface,
+	    nativeRasterizer = nCreate(key.typeface.handle(),
                                    key.pixelWidth, key.pixelHeight,
                                    0x10000, -key.skewX, 0, 0x10000);
 	}
@@ -20,7 +20,6 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.Size;
 
-import java.util.Iterator;
 import java.util.List;
 
 import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
@@ -32,12 +31,14 @@ import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
 public class TypeFamily {
     private final @NonNull String familyName;
     private final @NonNull @Size(min = 1) List<Typeface> typefaces;
+    private volatile @Nullable int[] styleTable;
 
     /**
      * Constructs a type family object.
      *
      * @param familyName The name of family.
-     * @param typefaces The list of typefaces belonging to family.
+     * @param typefaces The list of typefaces belonging to family. The list should not be modified
+     *                  afterwards as style matching results are cached.
      */
     public TypeFamily(@NonNull String familyName, @NonNull @Size(min = 1) List<Typeface> typefaces) {
         checkNotNull(familyName, "familyName");
@@ -66,11 +67,15 @@ public class TypeFamily {
         return typefaces;
     }
 
-    private static int widthGap(@NonNull TypeWidth desired, @NonNull TypeWidth candidate) {
-        return Math.abs(desired.ordinal() - candidate.ordinal());
+    private static final int WIDTH_COUNT = TypeWidth.values().length;
+    private static final int WEIGHT_COUNT = TypeWeight.values().length;
+    private static final int SLOPE_COUNT = TypeSlope.values().length;
+
+    private static int widthGap(int desired, int candidate) {
+        return Math.abs(desired - candidate);
     }
 
-    private static int slopeGap(@NonNull TypeSlope desired, @NonNull TypeSlope candidate) {
+    private static int slopeGap(int desired, int candidate) {
         int[] gaps = {
             // "If the value is `normal`, normal faces are checked first, then oblique faces, then
             // italic faces."
@@ -84,13 +89,10 @@ public class TypeFamily {
             // then normal faces."
             /* OBLIQUE: */ 2, 1, 0,
         };
-        int row = desired.ordinal();
-        int column = candidate.ordinal();
-
-        return gaps[(row * 3) + column];
+        return gaps[(desired * 3) + candidate];
     }
 
-    private static int weightGap(@NonNull TypeWeight desired, @NonNull TypeWeight candidate) {
+    private static int weightGap(int desired, int candidate) {
         int[] gaps = {
             // "If the desired weight is less than 400, weights below the desired weight are checked
             // in descending order followed by weights above the desired weight in ascending order
@@ -115,46 +117,37 @@ public class TypeFamily {
             /* 800: */ 8, 7, 6, 5, 4, 3, 2, 0, 1,
             /* 900: */ 8, 7, 6, 5, 4, 3, 2, 1, 0,
         };
-        int row = desired.ordinal();
-        int column = candidate.ordinal();
+        return gaps[(desired * 9) + candidate];
+    }
 
-        return gaps[(row * 9) + column];
+    static int styleIndex(int width, int weight, int slope) {
+        return (((width * WEIGHT_COUNT) + weight) * SLOPE_COUNT) + slope;
     }
 
     /**
-     * Returns a typeface best matching the specified style.
-     *
-     * @param typeWidth The typographic width of desired typeface.
-     * @param typeWeight The typographic weight of desired typeface.
-     * @param typeSlope The typographic slope of desired typeface.
-     * @return A typeface best matching the specified style.
+     * Returns the index of the candidate style that best matches the desired one. Styles are given
+     * as ordinals of width, weight and slope.
      */
-    public @NonNull Typeface getTypefaceByStyle(@NonNull TypeWidth typeWidth, @NonNull TypeWeight typeWeight, @NonNull TypeSlope typeSlope) {
-        checkNotNull(typeWidth, "typeWidth");
-        checkNotNull(typeWeight, "typeWeight");
-        checkNotNull(typeSlope, "typeSlope");
-
+    static int matchStyle(@NonNull int[] widths, @NonNull int[] weights, @NonNull int[] slopes,
+                          int desiredWidth, int desiredWeight, int desiredSlope) {
         // BASED ON CSS FONT MATCHING ALGORITHM.
-        Iterator<Typeface> iterator = typefaces.iterator();
-        Typeface candidate = iterator.next();
+        int candidate = 0;
 
-        while (iterator.hasNext()) {
-            Typeface current = iterator.next();
-
-            int widthGap = widthGap(typeWidth, current.getWidth())
-                         - widthGap(typeWidth, candidate.getWidth());
+        for (int current = 1; current < widths.length; current++) {
+            int widthGap = widthGap(desiredWidth, widths[current])
+                         - widthGap(desiredWidth, widths[candidate]);
             if (widthGap > 0) {
                 continue;
             }
 
-            int slopeGap = slopeGap(typeSlope, current.getSlope())
-                         - slopeGap(typeSlope, candidate.getSlope());
+            int slopeGap = slopeGap(desiredSlope, slopes[current])
+                         - slopeGap(desiredSlope, slopes[candidate]);
             if (slopeGap > 0) {
                 continue;
             }
 
-            int weightGap = weightGap(typeWeight, current.getWeight())
-                          - weightGap(typeWeight, candidate.getWeight());
+            int weightGap = weightGap(desiredWeight, weights[current])
+                          - weightGap(desiredWeight, weights[candidate]);
             if (weightGap > 0) {
                 continue;
             }
@@ -165,6 +158,66 @@ public class TypeFamily {
         return candidate;
     }
 
+    /**
+     * Builds a table holding the best matching candidate for every combination of width, weight
+     * and slope, addressed by {@link #styleIndex(int, int, int)}.
+     */
+    static @NonNull int[] buildStyleTable(@NonNull int[] widths, @NonNull int[] weights, @NonNull int[] slopes) {
+        int[] table = new int[WIDTH_COUNT * WEIGHT_COUNT * SLOPE_COUNT];
+
+        for (int width = 0; width < WIDTH_COUNT; width++) {
+            for (int weight = 0; weight < WEIGHT_COUNT; weight++) {
+                for (int slope = 0; slope < SLOPE_COUNT; slope++) {
+                    table[styleIndex(width, weight, slope)] = matchStyle(widths, weights, slopes,
+                                                                         width, weight, slope);
+                }
+            }
+        }
+
+        return table;
+    }
+
+    private @NonNull int[] styleTable() {
+        int[] table = styleTable;
+        if (table == null) {
+            final int count = typefaces.size();
+            int[] widths = new int[count];
+            int[] weights = new int[count];
+            int[] slopes = new int[count];
+
+            for (int i = 0; i < count; i++) {
+                Typeface typeface = typefaces.get(i);
+                widths[i] = typeface.getWidth().ordinal();
+                weights[i] = typeface.getWeight().ordinal();
+                slopes[i] = typeface.getSlope().ordinal();
+            }
+
+            // Concurrent callers may build the same table, which is harmless.
+            table = buildStyleTable(widths, weights, slopes);
+            styleTable = table;
+        }
+
+        return table;
+    }
+
+    /**
+     * Returns a typeface best matching the specified style.
+     *
+     * @param typeWidth The typographic width of desired typeface.
+     * @param typeWeight The typographic weight of desired typeface.
+     * @param typeSlope The typographic slope of desired typeface.
+     * @return A typeface best matching the specified style.
+     */
+    public @NonNull Typeface getTypefaceByStyle(@NonNull TypeWidth typeWidth, @NonNull TypeWeight typeWeight, @NonNull TypeSlope typeSlope) {
+        checkNotNull(typeWidth, "typeWidth");
+        checkNotNull(typeWeight, "typeWeight");
+        checkNotNull(typeSlope, "typeSlope");
+
+        int index = styleTable()[styleIndex(typeWidth.ordinal(), typeWeight.ordinal(), typeSlope.ordinal())];
+
+        return typefaces.get(index);
+    }
+
     @Override
     public boolean equals(@Nullable Object obj) {
         if (this != obj) {
@@ -20,6 +20,7 @@ import android.content.res.AssetManager;
 import android.graphics.Matrix;
 import android.graphics.Path;
 import android.graphics.Rect;
+import android.os.ParcelFileDescriptor;
 
 import androidx.annotation.Keep;
 import androidx.annotation.NonNull;
@@ -27,7 +28,9 @@ import androidx.annotation.Nullable;
 
 import com.mta.tehreer.font.ColorPalette;
 import com.mta.tehreer.font.VariationAxis;
+import com.mta.tehreer.internal.Cleaner;
 import com.mta.tehreer.internal.JniBridge;
+import com.mta.tehreer.internal.layout.TokenCache;
 import com.mta.tehreer.internal.sfnt.tables.cpal.ColorPaletteTable;
 import com.mta.tehreer.internal.sfnt.tables.cpal.ColorRecordsArray;
 import com.mta.tehreer.internal.sfnt.tables.cpal.PaletteLabelsArray;
@@ -38,12 +41,20 @@ import com.mta.tehreer.sfnt.SfntTag;
 import com.mta.tehreer.sfnt.tables.NameTable;
 
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 
 import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
+import static com.mta.tehreer.internal.util.Preconditions.checkArrayBounds;
+import static com.mta.tehreer.internal.util.Preconditions.checkIndexRange;
 import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
 
 /**
@@ -56,30 +67,95 @@ public class Typeface {
         JniBridge.loadLibrary();
     }
 
-    private class Finalizable {
+    private static final class Disposer implements Runnable {
+        private final long nativeTypeface;
+
+        Disposer(long nativeTypeface) {
+            this.nativeTypeface = nativeTypeface;
+        }
+
         @Override
-        protected void finalize() throws Throwable {
-            try {
-                dispose();
-            } finally {
-                super.finalize();
-            }
+        public void run() {
+            nDispose(nativeTypeface);
+        }
+    }
+
+    /**
+     * Describes where the native face of a lazily opened typeface comes from.
+     */
+    private static final class LazySource {
+        final @NonNull String path;
+        final int faceIndex;
+
+        LazySource(@NonNull String path, int faceIndex) {
+            this.path = path;
+            this.faceIndex = faceIndex;
         }
     }
 
     @Keep
     long nativeTypeface;
+    private volatile @Nullable LazySource lazySource;
     @Nullable Object tag;
-    private final @NonNull Finalizable finalizable = new Finalizable();
 
-    private @Nullable List<VariationAxis> variationAxes;
+    private static final class Variations {
+        final @Nullable List<VariationAxis> axes;
+
+        Variations(@Nullable List<VariationAxis> axes) {
+            this.axes = axes;
+        }
+    }
+
+    private static final class Palettes {
+        final @Nullable List<String> entryNames;
+        final @Nullable List<ColorPalette> predefinedPalettes;
+
+        Palettes(@Nullable List<String> entryNames, @Nullable List<ColorPalette> predefinedPalettes) {
+            this.entryNames = entryNames;
+            this.predefinedPalettes = predefinedPalettes;
+        }
+    }
+
+    private static final class Traits {
+        final @NonNull TypeWeight weight;
+        final @NonNull TypeWidth width;
+        final @NonNull TypeSlope slope;
+
+        Traits(@NonNull TypeWeight weight, @NonNull TypeWidth width, @NonNull TypeSlope slope) {
+            this.weight = weight;
+            this.width = width;
+            this.slope = slope;
+        }
+    }
+
+    private static final class Names {
+        final @NonNull String familyName;
+        final @NonNull String styleName;
+        final @NonNull String fullName;
+
+        Names(@NonNull String familyName, @NonNull String styleName, @NonNull String fullName) {
+            this.familyName = familyName;
+            this.styleName = styleName;
+            this.fullName = fullName;
+        }
+    }
 
-    private @Nullable List<String> paletteEntryNames;
-    private @Nullable List<ColorPalette> predefinedPalettes;
+    /**
+     * Holds the metadata parsed from SFNT tables. Each part is computed on first access so that
+     * constructing a typeface only opens the native face. The object is shared with the color
+     * instances of the typeface as they are backed by the same font data. The cache of variation
+     * instances is created only for variable fonts, and is shared with the variation instances too.
+     */
+    private static final class Metadata {
+        volatile @Nullable Variations variations;
+        volatile @Nullable Palettes palettes;
+        volatile @Nullable Names names;
+        volatile @Nullable VariationInstanceCache variationCache;
+        @Nullable Traits traits;
+    }
 
-    private @NonNull String familyName = "";
-    private @NonNull String styleName = "";
-    private @NonNull String fullName = "";
+    private @NonNull Metadata metadata = new Metadata();
+    private volatile @Nullable TokenCache tokenCache;
 
     /**
      * Constructs a typeface from the specified asset. The data of the asset is not copied into the
@@ -105,8 +181,9 @@ public class Typeface {
     }
 
     /**
-     * Constructs a typeface from the specified file. The data for the font is directly read from
-     * the file when needed.
+     * Constructs a typeface from the specified file. The file is mapped into the memory, so its
+     * data is neither copied nor held resident by the typeface; pages are loaded by the system
+     * when needed and shared with all variation and color instances of the typeface.
      *
      * @param file The font file.
      *
@@ -124,6 +201,49 @@ public class Typeface {
         init(nativeTypeface);
     }
 
+    /**
+     * Constructs a typeface from the specified file descriptor. The file is mapped into the memory
+     * in the same way as {@link #Typeface(File)}, so the descriptor must refer to a regular file.
+     * The descriptor is not retained by the typeface and can be closed by the caller afterwards.
+     *
+     * @param fd The file descriptor of the font file.
+     *
+     * @throws NullPointerException if <code>fd</code> is null.
+     * @throws RuntimeException if an error occurred while initialization.
+     */
+    public Typeface(@NonNull FileDescriptor fd) {
+        checkNotNull(fd, "fd");
+
+        long nativeTypeface = createWithDescriptor(fd);
+        if (nativeTypeface == 0) {
+            throw new RuntimeException("Could not create typeface from specified file descriptor");
+        }
+
+        init(nativeTypeface);
+    }
+
+    /**
+     * Constructs a typeface from the specified parcel file descriptor. The file is mapped into the
+     * memory in the same way as {@link #Typeface(File)}, so the descriptor must refer to a regular
+     * file. The descriptor is not retained by the typeface and can be closed by the caller
+     * afterwards.
+     *
+     * @param pfd The parcel file descriptor of the font file.
+     *
+     * @throws NullPointerException if <code>pfd</code> is null.
+     * @throws RuntimeException if an error occurred while initialization.
+     */
+    public Typeface(@NonNull ParcelFileDescriptor pfd) {
+        checkNotNull(pfd, "pfd");
+
+        long nativeTypeface = nCreateWithDescriptor(pfd.getFd());
+        if (nativeTypeface == 0) {
+            throw new RuntimeException("Could not create typeface from specified file descriptor");
+        }
+
+        init(nativeTypeface);
+    }
+
     /**
      * Constructs a new typeface from the input stream by copying its data into a native memory
      * buffer. It may take time to create the typeface if the stream holds larger data.
@@ -134,9 +254,26 @@ public class Typeface {
      * @throws RuntimeException if an error occurred while initialization.
      */
     public Typeface(@NonNull InputStream stream) {
+        this(stream, 0);
+    }
+
+    /**
+     * Constructs a new typeface from the input stream by copying its data into a native memory
+     * buffer. The expected length is used to size the buffer up front, so an accurate hint avoids
+     * reallocating and copying the data while the stream is being read.
+     *
+     * @param stream The input stream that contains the data of the font.
+     * @param expectedLength The expected number of bytes in the stream, or zero if unknown.
+     *
+     * @throws NullPointerException if <code>stream</code> is null.
+     * @throws IllegalArgumentException if <code>expectedLength</code> is negative.
+     * @throws RuntimeException if an error occurred while initialization.
+     */
+    public Typeface(@NonNull InputStream stream, int expectedLength) {
         checkNotNull(stream, "stream");
+        checkArgument(expectedLength >= 0, "Expected length is negative: " + expectedLength);
 
-        long nativeTypeface = nCreateFromStream(stream);
+        long nativeTypeface = nCreateFromStream(stream, expectedLength);
         if (nativeTypeface == 0) {
             throw new RuntimeException("Could not create typeface from specified stream");
         }
@@ -144,41 +281,273 @@ public class Typeface {
         init(nativeTypeface);
     }
 
+    /**
+     * Constructs a new typeface from the remaining bytes of the specified buffer by copying them
+     * into a native memory buffer. The position of the buffer is not changed. A direct buffer is
+     * copied in a single step without going through the Java heap.
+     *
+     * @param buffer The buffer that contains the data of the font.
+     *
+     * @throws NullPointerException if <code>buffer</code> is null.
+     * @throws RuntimeException if an error occurred while initialization.
+     */
+    public Typeface(@NonNull ByteBuffer buffer) {
+        checkNotNull(buffer, "buffer");
+
+        long nativeTypeface = createWithBuffer(buffer);
+        if (nativeTypeface == 0) {
+            throw new RuntimeException("Could not create typeface from specified buffer");
+        }
+
+        init(nativeTypeface);
+    }
+
+    /**
+     * Constructs a new typeface by reading the specified channel until the end directly into a
+     * native memory buffer. The data is read in large chunks without any intermediate copy, so
+     * this is considerably faster than going through an input stream. The channel is not closed by
+     * this constructor.
+     *
+     * @param channel The blocking channel that contains the data of the font.
+     *
+     * @throws NullPointerException if <code>channel</code> is null.
+     * @throws RuntimeException if an error occurred while reading the channel or initialization.
+     */
+    public Typeface(@NonNull ReadableByteChannel channel) {
+        this(channel, 0);
+    }
+
+    /**
+     * Constructs a new typeface by reading the specified channel until the end directly into a
+     * native memory buffer. The expected length is used to size the buffer up front, so an
+     * accurate hint lets the channel be read without any reallocation. If no hint is given for a
+     * file channel, its remaining size is used instead.
+     *
+     * @param channel The blocking channel that contains the data of the font.
+     * @param expectedLength The expected number of bytes in the channel, or zero if unknown.
+     *
+     * @throws NullPointerException if <code>channel</code> is null.
+     * @throws IllegalArgumentException if <code>expectedLength</code> is negative.
+     * @throws RuntimeException if an error occurred while reading the channel or initialization.
+     */
+    public Typeface(@NonNull ReadableByteChannel channel, int expectedLength) {
+        checkNotNull(channel, "channel");
+        checkArgument(expectedLength >= 0, "Expected length is negative: " + expectedLength);
+
+        long nativeTypeface;
+        try {
+            if (expectedLength == 0 && channel instanceof FileChannel) {
+                FileChannel fileChannel = (FileChannel) channel;
+                long remaining = fileChannel.size() - fileChannel.position();
+                if (remaining > 0 && remaining <= Integer.MAX_VALUE) {
+                    expectedLength = (int) remaining;
+                }
+            }
+
+            nativeTypeface = nCreateFromChannel(channel, expectedLength);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read typeface from specified channel", e);
+        }
+
+        if (nativeTypeface == 0) {
+            throw new RuntimeException("Could not create typeface from specified channel");
+        }
+
+        init(nativeTypeface);
+    }
+
+    private static long createWithBuffer(@NonNull ByteBuffer buffer) {
+        int offset = buffer.position();
+        int length = buffer.remaining();
+
+        if (buffer.isDirect()) {
+            return nCreateWithBuffer(buffer, offset, length);
+        }
+        if (buffer.hasArray()) {
+            return nCreateWithBytes(buffer.array(), buffer.arrayOffset() + offset, length);
+        }
+
+        // Read-only heap buffers do not expose their array.
+        byte[] bytes = new byte[length];
+        buffer.duplicate().get(bytes);
+
+        return nCreateWithBytes(bytes, 0, length);
+    }
+
+    private static long createWithDescriptor(@NonNull FileDescriptor fd) {
+        ParcelFileDescriptor pfd;
+        try {
+            pfd = ParcelFileDescriptor.dup(fd);
+        } catch (IOException e) {
+            return 0;
+        }
+
+        try {
+            return nCreateWithDescriptor(pfd.getFd());
+        } finally {
+            try {
+                pfd.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
     @Keep
     Typeface(long nativeTypeface) {
         init(nativeTypeface);
     }
 
-    private Typeface(@NonNull Typeface typeface, @NonNull int[] colors) {
-        this.nativeTypeface = nGetColorInstance(typeface.nativeTypeface, colors);
+    /**
+     * Constructs a typeface whose native face is opened on first use. The given metadata is
+     * served without touching the font file until then.
+     */
+    Typeface(@NonNull String path, int faceIndex,
+             @NonNull String familyName, @NonNull String styleName, @NonNull String fullName,
+             @NonNull TypeWeight weight, @NonNull TypeWidth width, @NonNull TypeSlope slope,
+             @Nullable List<VariationAxis> variationAxes) {
+        this.metadata.names = new Names(familyName, styleName, fullName);
+        this.metadata.variations = new Variations(variationAxes);
+        this.metadata.traits = new Traits(weight, width, slope);
+        this.lazySource = new LazySource(path, faceIndex);
+    }
 
-        this.variationAxes = typeface.variationAxes;
-        this.paletteEntryNames = typeface.paletteEntryNames;
-        this.predefinedPalettes = typeface.predefinedPalettes;
+    private Typeface(@NonNull Typeface typeface, @NonNull int[] colors) {
+        init(nGetColorInstance(typeface.handle(), colors));
 
-        this.familyName = typeface.familyName;
-        this.styleName = typeface.styleName;
-        this.fullName = typeface.fullName;
+        this.metadata = typeface.metadata;
     }
 
 	private void init(long nativeTypeface) {
 	    this.nativeTypeface = nativeTypeface;
 
-        setupVariations();
-        setupPalettes();
-	    setupNames();
+        if (nativeTypeface != 0) {
+            Cleaner.register(this, new Disposer(nativeTypeface));
+        }
 	}
 
-    private void setupVariations() {
+    /**
+     * Returns the native handle of this typeface, opening the native face first if this typeface
+     * has been created lazily.
+     */
+    @Keep
+    long handle() {
+        LazySource source = lazySource;
+        if (source != null) {
+            synchronized (source) {
+                if (lazySource != null) {
+                    long nativeTypeface = nCreateWithFace(source.path, source.faceIndex);
+                    if (nativeTypeface == 0) {
+                        throw new IllegalStateException("Could not open typeface from file: " + source.path);
+                    }
+
+                    init(nativeTypeface);
+                    this.lazySource = null;
+                }
+            }
+        }
+
+        return nativeTypeface;
+    }
+
+    /**
+     * Returns the index of this typeface's face within its font file. The upper 16 bits hold the
+     * index of the named instance, if any.
+     */
+    int getFaceIndex() {
+        return nGetFaceIndex(handle());
+    }
+
+    private @Nullable List<VariationAxis> variationAxes() {
+        Variations variations = metadata.variations;
+        if (variations == null) {
+            synchronized (metadata) {
+                variations = metadata.variations;
+                if (variations == null) {
+                    variations = new Variations(loadVariationAxes());
+                    metadata.variations = variations;
+                }
+            }
+        }
+
+        return variations.axes;
+    }
+
+    private @NonNull VariationInstanceCache variationCache() {
+        VariationInstanceCache variationCache = metadata.variationCache;
+        if (variationCache == null) {
+            synchronized (metadata) {
+                variationCache = metadata.variationCache;
+                if (variationCache == null) {
+                    variationCache = new VariationInstanceCache();
+                    metadata.variationCache = variationCache;
+                }
+            }
+        }
+
+        return variationCache;
+    }
+
+    /**
+     * Returns the cache of truncation tokens shaped with this typeface. It is created on first use
+     * and released along with the typeface.
+     *
+     * @hide
+     */
+    public @NonNull TokenCache getTokenCache() {
+        TokenCache tokenCache = this.tokenCache;
+        if (tokenCache == null) {
+            synchronized (this) {
+                tokenCache = this.tokenCache;
+                if (tokenCache == null) {
+                    tokenCache = new TokenCache();
+                    this.tokenCache = tokenCache;
+                }
+            }
+        }
+
+        return tokenCache;
+    }
+
+    private @NonNull Palettes palettes() {
+        Palettes palettes = metadata.palettes;
+        if (palettes == null) {
+            synchronized (metadata) {
+                palettes = metadata.palettes;
+                if (palettes == null) {
+                    palettes = loadPalettes();
+                    metadata.palettes = palettes;
+                }
+            }
+        }
+
+        return palettes;
+    }
+
+    private @NonNull Names names() {
+        Names names = metadata.names;
+        if (names == null) {
+            synchronized (metadata) {
+                names = metadata.names;
+                if (names == null) {
+                    names = loadNames();
+                    metadata.names = names;
+                }
+            }
+        }
+
+        return names;
+    }
+
+    private @Nullable List<VariationAxis> loadVariationAxes() {
         FontVariationsTable fvarTable = FontVariationsTable.from(this);
         if (fvarTable == null) {
-            return;
+            return null;
         }
 
         NameTable nameTable = NameTable.from(this);
         VariationAxisRecord[] axisRecords = fvarTable.axisRecords();
 
-        variationAxes = new ArrayList<>(axisRecords.length);
+        List<VariationAxis> variationAxes = new ArrayList<>(axisRecords.length);
 
         for (VariationAxisRecord axisRecord : axisRecords) {
             final int axisTag = axisRecord.axisTag();
@@ -202,12 +571,14 @@ public class Typeface {
             variationAxes.add(VariationAxis.of(axisTag, axisName, flags,
                                                defaultValue, minValue, maxValue));
         }
+
+        return variationAxes;
     }
 
-    private void setupPalettes() {
+    private @NonNull Palettes loadPalettes() {
         ColorPaletteTable cpalTable = ColorPaletteTable.from(this);
         if (cpalTable == null) {
-            return;
+            return new Palettes(null, null);
         }
 
         NameTable nameTable = NameTable.from(this);
@@ -220,7 +591,7 @@ public class Typeface {
         PaletteLabelsArray paletteLabels = cpalTable.paletteLabels();
         PaletteLabelsArray paletteEntryLabels = cpalTable.paletteEntryLabels();
 
-        predefinedPalettes = new ArrayList<>(numPalettes);
+        List<ColorPalette> predefinedPalettes = new ArrayList<>(numPalettes);
 
         /* Populate predefined palettes. */
         for (int i = 0; i < numPalettes; i++) {
@@ -255,7 +626,7 @@ public class Typeface {
             predefinedPalettes.add(ColorPalette.of(name, flags, colors));
         }
 
-        paletteEntryNames = new ArrayList<>(numPaletteEntries);
+        List<String> paletteEntryNames = new ArrayList<>(numPaletteEntries);
 
         /* Populate palette entry names. */
         if (paletteEntryLabels == null) {
@@ -281,16 +652,22 @@ public class Typeface {
                 paletteEntryNames.add(name);
             }
         }
+
+        return new Palettes(paletteEntryNames, predefinedPalettes);
     }
 
-	private void setupNames() {
+	private @NonNull Names loadNames() {
+        String familyName = "";
+        String styleName = "";
+        String fullName = "";
+
         NameTable nameTable = NameTable.from(this);
         if (nameTable == null) {
-            return;
+            return new Names(familyName, styleName, fullName);
         }
 
         final int[] nameRecordIndexes = new int[3];
-        nGetNameRecordIndexes(nativeTypeface, nameRecordIndexes);
+        nGetNameRecordIndexes(handle(), nameRecordIndexes);
 
         final int familyNameIndex = nameRecordIndexes[0];
         final int styleNameIndex = nameRecordIndexes[1];
@@ -323,6 +700,8 @@ public class Typeface {
                 fullName = styleName;
             }
         }
+
+        return new Names(familyName, styleName, fullName);
     }
 
     /**
@@ -331,11 +710,16 @@ public class Typeface {
      * @return <code>true</code> if this typeface supports OpenType font variations.
      */
     public boolean isVariable() {
-        return variationAxes != null;
+        return variationAxes() != null;
     }
 
     /**
      * Returns a variation instance of this typeface with the specified design coordinates.
+     * <p>
+     * Calls whose coordinates fall in the same 1/1024 of each axis range return the same typeface
+     * object as long as it is in use, so that its glyph and shaping caches are reused. A new
+     * instance is created with the exact coordinates given, which are then reported by its
+     * {@link #getVariationCoordinates()} method.
      *
      * @param coordinates The variation design coordinates.
      * @return A variation instance of this typeface with the specified design coordinates.
@@ -346,19 +730,33 @@ public class Typeface {
      *                                  the number of variation axes.
      */
     public @Nullable Typeface getVariationInstance(@NonNull float[] coordinates) {
+        List<VariationAxis> variationAxes = variationAxes();
         if (variationAxes == null) {
             throw new IllegalStateException("This typeface does not support variations.");
         }
         checkNotNull(coordinates, "coordinates");
         checkArgument(coordinates.length == variationAxes.size(), "The number of coordinates does not match with variation axes.");
 
-        Typeface typeface = new Typeface(nGetVariationInstance(nativeTypeface, coordinates));
+        int[] steps = VariationInstanceCache.quantize(variationAxes, coordinates);
+        int[] colors = null;
+
+        if (palettes().entryNames != null) {
+            colors = getAssociatedColors();
+        }
+
+        VariationInstanceCache variationCache = variationCache();
+        VariationInstanceCache.Key key = new VariationInstanceCache.Key(steps, colors);
+        Typeface typeface = variationCache.get(key);
+
+        if (typeface == null) {
+            typeface = new Typeface(nGetVariationInstance(handle(), coordinates));
+            typeface.metadata.variationCache = variationCache;
 
-        if (paletteEntryNames != null) {
-            int[] colors = getAssociatedColors();
             if (colors != null) {
                 typeface = typeface.getColorInstance(colors);
             }
+
+            typeface = variationCache.putIfAbsent(key, typeface);
         }
 
         return typeface;
@@ -370,6 +768,7 @@ public class Typeface {
      * @return The variation axes of this typeface if it supports OpenType font variations.
      */
     public @Nullable List<VariationAxis> getVariationAxes() {
+        List<VariationAxis> variationAxes = variationAxes();
         if (variationAxes != null) {
             return Collections.unmodifiableList(variationAxes);
         }
@@ -385,9 +784,10 @@ public class Typeface {
      *         variations.
      */
     public @Nullable float[] getVariationCoordinates() {
+        List<VariationAxis> variationAxes = variationAxes();
         if (variationAxes != null) {
             float[] coordinates = new float[variationAxes.size()];
-            nGetVariationCoordinates(nativeTypeface, coordinates);
+            nGetVariationCoordinates(handle(), coordinates);
 
             return coordinates;
         }
@@ -403,6 +803,7 @@ public class Typeface {
      * palettes.
      */
     public @Nullable List<String> getPaletteEntryNames() {
+        List<String> paletteEntryNames = palettes().entryNames;
         if (paletteEntryNames != null) {
             return Collections.unmodifiableList(paletteEntryNames);
         }
@@ -416,6 +817,7 @@ public class Typeface {
      * @return The predefined palettes in this typeface if it supports OpenType color palettes.
      */
     public @Nullable List<ColorPalette> getPredefinedPalettes() {
+        List<ColorPalette> predefinedPalettes = palettes().predefinedPalettes;
         if (predefinedPalettes != null) {
             return Collections.unmodifiableList(predefinedPalettes);
         }
@@ -429,9 +831,10 @@ public class Typeface {
      * @return The colors associated with this typeface if it supports OpenType color palettes.
      */
     public @Nullable int[] getAssociatedColors() {
+        List<String> paletteEntryNames = palettes().entryNames;
         if (paletteEntryNames != null) {
             int[] colors = new int[paletteEntryNames.size()];
-            nGetAssociatedColors(nativeTypeface, colors);
+            nGetAssociatedColors(handle(), colors);
 
             return colors;
         }
@@ -451,6 +854,7 @@ public class Typeface {
      *                                  of colors in `CPAL` table.
      */
     public @Nullable Typeface getColorInstance(@NonNull int[] colors) {
+        List<String> paletteEntryNames = palettes().entryNames;
         if (paletteEntryNames == null) {
             throw new IllegalStateException("This typeface does not support color palettes");
         }
@@ -468,7 +872,7 @@ public class Typeface {
      * @return The family name of this typeface.
      */
     public String getFamilyName() {
-        return familyName;
+        return names().familyName;
     }
 
     /**
@@ -477,7 +881,7 @@ public class Typeface {
      * @return The style name of this typeface.
      */
     public String getStyleName() {
-        return styleName;
+        return names().styleName;
     }
 
     /**
@@ -486,7 +890,7 @@ public class Typeface {
      * @return The full name of this typeface.
      */
     public String getFullName() {
-        return fullName;
+        return names().fullName;
     }
 
     /**
@@ -496,7 +900,12 @@ public class Typeface {
      * @return The typographic weight of this typeface.
      */
     public @NonNull TypeWeight getWeight() {
-        final int weight = nGetWeight(nativeTypeface);
+        Traits traits = metadata.traits;
+        if (traits != null) {
+            return traits.weight;
+        }
+
+        final int weight = nGetWeight(handle());
 
         return TypeWeight.valueOf(weight);
     }
@@ -508,7 +917,12 @@ public class Typeface {
      * @return The typographic width of this typeface.
      */
     public @NonNull TypeWidth getWidth() {
-        final int width = nGetWidth(nativeTypeface);
+        Traits traits = metadata.traits;
+        if (traits != null) {
+            return traits.width;
+        }
+
+        final int width = nGetWidth(handle());
 
         return TypeWidth.valueOf(width);
     }
@@ -520,7 +934,12 @@ public class Typeface {
      * @return The typographic slope of this typeface.
      */
     public @NonNull TypeSlope getSlope() {
-        final int slope = nGetSlope(nativeTypeface);
+        Traits traits = metadata.traits;
+        if (traits != null) {
+            return traits.slope;
+        }
+
+        final int slope = nGetSlope(handle());
 
         return TypeSlope.valueOf(slope);
     }
@@ -534,11 +953,11 @@ public class Typeface {
      *         table exists.
      */
     public @Nullable byte[] getTableData(int tableTag) {
-        return nGetTableData(nativeTypeface, tableTag);
+        return nGetTableData(handle(), tableTag);
     }
 
     int searchNameRecordIndex(int nameId) {
-        return nSearchNameRecordIndex(nativeTypeface, nameId);
+        return nSearchNameRecordIndex(handle(), nameId);
     }
 
     /**
@@ -547,7 +966,7 @@ public class Typeface {
      * @return The number of font units per EM square for this typeface.
      */
 	public int getUnitsPerEm() {
-		return nGetUnitsPerEm(nativeTypeface);
+		return nGetUnitsPerEm(handle());
 	}
 
     /**
@@ -556,7 +975,7 @@ public class Typeface {
      * @return The typographic ascender of this typeface expressed in font units.
      */
 	public int getAscent() {
-		return nGetAscent(nativeTypeface);
+		return nGetAscent(handle());
 	}
 
     /**
@@ -565,7 +984,7 @@ public class Typeface {
      * @return The typographic descender of this typeface expressed in font units.
      */
 	public int getDescent() {
-		return nGetDescent(nativeTypeface);
+		return nGetDescent(handle());
 	}
 
     /**
@@ -574,7 +993,7 @@ public class Typeface {
      * @return The typographic leading of this typeface expressed in font units.
      */
     public int getLeading() {
-        return nGetLeading(nativeTypeface);
+        return nGetLeading(handle());
     }
 
     /**
@@ -583,7 +1002,7 @@ public class Typeface {
      * @return The number of glyphs in this typeface.
      */
 	public int getGlyphCount() {
-        return nGetGlyphCount(nativeTypeface);
+        return nGetGlyphCount(handle());
     }
 
     /**
@@ -593,7 +1012,80 @@ public class Typeface {
      * @return The glyph id for the specified code point.
      */
     public int getGlyphId(int codePoint) {
-        return nGetGlyphId(nativeTypeface, codePoint);
+        return nGetGlyphId(handle(), codePoint);
+    }
+
+    /**
+     * Retrieves the glyph ids for the specified code points in a single native call. A glyph id of
+     * zero means that the corresponding code point is not supported by this typeface.
+     *
+     * @param codePoints The code points for which the glyph ids are obtained.
+     * @param glyphIds The array receiving the glyph ids at the same indexes as the code points.
+     *
+     * @throws NullPointerException if <code>codePoints</code> or <code>glyphIds</code> is
+     *         <code>null</code>.
+     * @throws ArrayIndexOutOfBoundsException if <code>glyphIds</code> is shorter than
+     *         <code>codePoints</code>.
+     */
+    public void getGlyphIds(@NonNull int[] codePoints, @NonNull int[] glyphIds) {
+        checkNotNull(codePoints, "codePoints");
+        checkNotNull(glyphIds, "glyphIds");
+        checkArrayBounds(glyphIds, 0, codePoints.length);
+
+        nGetGlyphIds(handle(), codePoints, 0, glyphIds, 0, codePoints.length);
+    }
+
+    /**
+     * Determines which characters of the specified text range are supported by this typeface. Bit
+     * <code>i</code> of the returned set corresponds to the character at index
+     * <code>charStart + i</code>, and is set if the code point containing that character maps to
+     * a glyph. Both halves of a surrogate pair share the bit value of their code point.
+     *
+     * @param text The text whose coverage is determined.
+     * @param charStart The index to the first character of the range.
+     * @param charEnd The index after the last character of the range.
+     * @return A bit set describing the coverage of the text range.
+     *
+     * @throws NullPointerException if <code>text</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException if <code>charStart</code> is negative, or
+     *         <code>charEnd</code> is greater than the length of <code>text</code>, or
+     *         <code>charStart</code> is greater than <code>charEnd</code>.
+     */
+    public @NonNull BitSet getCoverage(@NonNull CharSequence text, int charStart, int charEnd) {
+        checkNotNull(text, "text");
+        checkIndexRange(charStart, charEnd, text.length());
+
+        int[] codePoints = new int[charEnd - charStart];
+        int codePointCount = 0;
+
+        for (int i = charStart; i < charEnd; ) {
+            int codePoint = text.charAt(i++);
+            if (Character.isHighSurrogate((char) codePoint) && i < charEnd) {
+                char low = text.charAt(i);
+                if (Character.isLowSurrogate(low)) {
+                    codePoint = Character.toCodePoint((char) codePoint, low);
+                    i++;
+                }
+            }
+
+            codePoints[codePointCount++] = codePoint;
+        }
+
+        int[] glyphIds = new int[codePointCount];
+        nGetGlyphIds(handle(), codePoints, 0, glyphIds, 0, codePointCount);
+
+        BitSet coverage = new BitSet(charEnd - charStart);
+        int charIndex = 0;
+
+        for (int i = 0; i < codePointCount; i++) {
+            int charCount = Character.charCount(codePoints[i]);
+            if (glyphIds[i] != 0) {
+                coverage.set(charIndex, charIndex + charCount);
+            }
+            charIndex += charCount;
+        }
+
+        return coverage;
     }
 
     /**
@@ -605,7 +1097,7 @@ public class Typeface {
      * @return The advance for the specified glyph.
      */
     public float getGlyphAdvance(int glyphId, float typeSize, boolean vertical) {
-        return nGetGlyphAdvance(nativeTypeface, glyphId, typeSize, vertical);
+        return nGetGlyphAdvance(handle(), glyphId, typeSize, vertical);
     }
 
     /**
@@ -624,7 +1116,7 @@ public class Typeface {
             matrix.getValues(values);
         }
 
-        return nGetGlyphPath(nativeTypeface, glyphId, typeSize, values);
+        return nGetGlyphPath(handle(), glyphId, typeSize, values);
     }
 
     /**
@@ -635,7 +1127,7 @@ public class Typeface {
      */
     public @NonNull Rect getBoundingBox() {
 	    Rect boundingBox = new Rect();
-	    nGetBoundingBox(nativeTypeface, boundingBox);
+	    nGetBoundingBox(handle(), boundingBox);
 
 	    return boundingBox;
 	}
@@ -646,7 +1138,7 @@ public class Typeface {
      * @return The position, in font units, of the underline for this typeface.
      */
 	public int getUnderlinePosition() {
-	    return nGetUnderlinePosition(nativeTypeface);
+	    return nGetUnderlinePosition(handle());
 	}
 
     /**
@@ -655,7 +1147,7 @@ public class Typeface {
      * @return The thickness, in font units, of the underline for this typeface.
      */
 	public int getUnderlineThickness() {
-	    return nGetUnderlineThickness(nativeTypeface);
+	    return nGetUnderlineThickness(handle());
 	}
 
     /**
@@ -664,7 +1156,7 @@ public class Typeface {
      * @return The position, in font units, of the strikeout for this typeface.
      */
     public int getStrikeoutPosition() {
-        return nGetStrikeoutPosition(nativeTypeface);
+        return nGetStrikeoutPosition(handle());
     }
 
     /**
@@ -673,11 +1165,7 @@ public class Typeface {
      * @return The thickness, in font units, of the strikeout for this typeface.
      */
     public int getStrikeoutThickness() {
-        return nGetStrikeoutThickness(nativeTypeface);
-    }
-
-    void dispose() {
-        nDispose(nativeTypeface);
+        return nGetStrikeoutThickness(handle());
     }
 
     @Override
@@ -703,8 +1191,14 @@ public class Typeface {
 
     private static native long nCreateWithAsset(AssetManager assetManager, String path);
     private static native long nCreateWithFile(String path);
-    private static native long nCreateFromStream(InputStream stream);
+    private static native long nCreateWithDescriptor(int fd);
+    private static native long nCreateWithFace(String path, int faceIndex);
+    private static native long nCreateWithBuffer(ByteBuffer buffer, int offset, int length);
+    private static native long nCreateWithBytes(byte[] bytes, int offset, int length);
+    private static native long nCreateFromStream(InputStream stream, int sizeHint);
+    private static native long nCreateFromChannel(ReadableByteChannel channel, int sizeHint) throws IOException;
 	private static native void nDispose(long nativeTypeface);
+    private static native int nGetFaceIndex(long nativeTypeface);
 
     private static native long nGetVariationInstance(long nativeTypeface, float[] coordinates);
 	private static native void nGetVariationCoordinates(long nativeTypeface, float[] coordinates);
@@ -727,6 +1221,8 @@ public class Typeface {
 
 	private static native int nGetGlyphCount(long nativeTypeface);
     private static native int nGetGlyphId(long nativeTypeface, int codePoint);
+    private static native void nGetGlyphIds(long nativeTypeface, int[] codePoints, int codeOffset,
+                                            int[] glyphIds, int glyphOffset, int count);
     private static native float nGetGlyphAdvance(long nativeTypeface, int glyphId, float typeSize, boolean vertical);
     private static native Path nGetGlyphPath(long nativeTypeface, int glyphId, float typeSize, float[] matrix);
 
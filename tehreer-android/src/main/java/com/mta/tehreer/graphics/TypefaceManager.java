@@ -20,18 +20,23 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
 import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
 
 /**
  * The <code>TypefaceManager</code> class provides management activities related to typefaces.
+ * <p>
+ * Registration and name based lookups only need the names and styles of typefaces, so the lazy
+ * typefaces obtained from a {@link FontIndex} can be registered without opening their fonts.
  */
 public class TypefaceManager {
     private static class TypefaceComparator implements Comparator<Typeface> {
@@ -46,12 +51,101 @@ public class TypefaceManager {
         }
     }
 
+    /**
+     * An immutable view of the registered typefaces along with the indexes used for lookups. It is
+     * rebuilt after registrations change and published through a volatile field, so readers never
+     * need to take a lock.
+     */
+    private static final class Snapshot {
+        final @NonNull Map<Object, Typeface> tags;
+        final @NonNull List<Typeface> typefaces;
+        final @NonNull List<TypeFamily> families;
+        final @NonNull Map<String, Typeface> fullNameIndex;
+        final @NonNull Map<String, TypeFamily> familyIndex;
+
+        Snapshot(@NonNull Map<Object, Typeface> tags, @NonNull Collection<Typeface> registered) {
+            List<Typeface> sortedTypefaces = new ArrayList<>(registered);
+            Collections.sort(sortedTypefaces, new TypefaceComparator());
+
+            Map<String, Typeface> fullNameIndex = new HashMap<>();
+            Map<String, List<Typeface>> familyMembers = new LinkedHashMap<>();
+            Map<String, String> familyNames = new HashMap<>();
+
+            for (Typeface typeface : sortedTypefaces) {
+                String fullNameKey = foldCase(typeface.getFullName());
+                if (!fullNameIndex.containsKey(fullNameKey)) {
+                    fullNameIndex.put(fullNameKey, typeface);
+                }
+
+                String familyName = typeface.getFamilyName();
+                String familyKey = foldCase(familyName);
+                List<Typeface> entryList = familyMembers.get(familyKey);
+                if (entryList == null) {
+                    entryList = new ArrayList<>();
+                    familyMembers.put(familyKey, entryList);
+                    familyNames.put(familyKey, familyName);
+                }
+
+                entryList.add(typeface);
+            }
+
+            // Typefaces are sorted by family name, so families are created in sorted order.
+            Map<String, TypeFamily> familyIndex = new HashMap<>();
+            List<TypeFamily> families = new ArrayList<>(familyMembers.size());
+
+            for (Map.Entry<String, List<Typeface>> entry : familyMembers.entrySet()) {
+                String familyKey = entry.getKey();
+                List<Typeface> entryList = Collections.unmodifiableList(entry.getValue());
+                TypeFamily typeFamily = new TypeFamily(familyNames.get(familyKey), entryList);
+
+                familyIndex.put(familyKey, typeFamily);
+                families.add(typeFamily);
+            }
+
+            this.tags = Collections.unmodifiableMap(new HashMap<>(tags));
+            this.typefaces = Collections.unmodifiableList(sortedTypefaces);
+            this.families = Collections.unmodifiableList(families);
+            this.fullNameIndex = fullNameIndex;
+            this.familyIndex = familyIndex;
+        }
+    }
+
     private static final @NonNull HashMap<Object, Typeface> tags = new HashMap<>();
-    private static final @NonNull ArrayList<Typeface> typefaces = new ArrayList<>();
-    private static boolean sorted;
+    private static final @NonNull LinkedHashSet<Typeface> typefaces = new LinkedHashSet<>();
+    private static volatile @Nullable Snapshot snapshot;
 
     private TypefaceManager() { }
 
+    /**
+     * Folds the case of a name in the same way as {@link String#equalsIgnoreCase(String)} compares
+     * characters, so that equal keys mean names that are equal ignoring case.
+     */
+    private static @NonNull String foldCase(@NonNull String name) {
+        final int length = name.length();
+        char[] chars = new char[length];
+
+        for (int i = 0; i < length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+        }
+
+        return new String(chars);
+    }
+
+    private static @NonNull Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (TypefaceManager.class) {
+                current = snapshot;
+                if (current == null) {
+                    current = new Snapshot(tags, typefaces);
+                    snapshot = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
     /**
      * Registers a typeface in <code>TypefaceManager</code>.
      *
@@ -74,8 +168,8 @@ public class TypefaceManager {
                 typeface.tag = tag;
             }
 
-            sorted = false;
             typefaces.add(typeface);
+            snapshot = null;
         }
     }
 
@@ -90,12 +184,14 @@ public class TypefaceManager {
         checkNotNull(typeface, "typeface");
 
         synchronized (TypefaceManager.class) {
-            int index = typefaces.indexOf(typeface);
-            checkArgument(index >= 0, "This typeface is not registered");
+            checkArgument(typefaces.remove(typeface), "This typeface is not registered");
 
-            typefaces.remove(index);
-            tags.remove(typeface.tag);
-            typeface.tag = null;
+            if (typeface.tag != null) {
+                tags.remove(typeface.tag);
+                typeface.tag = null;
+            }
+
+            snapshot = null;
         }
     }
 
@@ -109,9 +205,7 @@ public class TypefaceManager {
     public static @Nullable Typeface getTypeface(@NonNull Object tag) {
         checkNotNull(tag, "tag");
 
-        synchronized (TypefaceManager.class) {
-            return tags.get(tag);
-        }
+        return snapshot().tags.get(tag);
     }
 
     /**
@@ -140,25 +234,9 @@ public class TypefaceManager {
      * @return A type family having specified family name.
      */
     public static @Nullable TypeFamily getTypeFamily(@NonNull String familyName) {
-        List<Typeface> entryList = new ArrayList<>();
+        checkNotNull(familyName, "familyName");
 
-        synchronized (TypefaceManager.class) {
-            sortTypefaces();
-
-            for (Typeface typeface : typefaces) {
-                if (typeface.getFamilyName().equalsIgnoreCase(familyName)) {
-                    entryList.add(typeface);
-                }
-            }
-        }
-
-        TypeFamily typeFamily = null;
-
-        if (entryList.size() > 0) {
-            typeFamily = new TypeFamily(familyName, entryList);
-        }
-
-        return typeFamily;
+        return snapshot().familyIndex.get(foldCase(familyName));
     }
 
     /**
@@ -169,15 +247,9 @@ public class TypefaceManager {
      *         registered.
      */
     public static @Nullable Typeface getTypefaceByName(@NonNull String fullName) {
-        synchronized (TypefaceManager.class) {
-            for (Typeface typeface : typefaces) {
-                if (typeface.getFullName().equalsIgnoreCase(fullName)) {
-                    return typeface;
-                }
-            }
-        }
+        checkNotNull(fullName, "fullName");
 
-        return null;
+        return snapshot().fullNameIndex.get(foldCase(fullName));
     }
 
     /**
@@ -186,32 +258,7 @@ public class TypefaceManager {
      * @return A list of available type families.
      */
     public static @NonNull List<TypeFamily> getAvailableFamilies() {
-        Map<String, List<Typeface>> familyMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
-
-        synchronized (TypefaceManager.class) {
-            sortTypefaces();
-
-            for (Typeface typeface : typefaces) {
-                List<Typeface> entryList = familyMap.get(typeface.getFamilyName());
-                if (entryList == null) {
-                    entryList = new ArrayList<>();
-                    familyMap.put(typeface.getFamilyName(), entryList);
-                }
-
-                entryList.add(typeface);
-            }
-        }
-
-        List<TypeFamily> familyList = new ArrayList<>(familyMap.size());
-
-        for (Map.Entry<String, List<Typeface>> entry : familyMap.entrySet()) {
-            String familyName = entry.getKey();
-            List<Typeface> typefaces = entry.getValue();
-
-            familyList.add(new TypeFamily(familyName, typefaces));
-        }
-
-        return Collections.unmodifiableList(familyList);
+        return snapshot().families;
     }
 
     /**
@@ -221,17 +268,6 @@ public class TypefaceManager {
      * @return A list of available typefaces.
      */
     public static @NonNull List<Typeface> getAvailableTypefaces() {
-        synchronized (TypefaceManager.class) {
-            sortTypefaces();
-
-            return Collections.unmodifiableList(new ArrayList<>(typefaces));
-        }
-    }
-
-    private static void sortTypefaces() {
-        if (!sorted) {
-            Collections.sort(typefaces, new TypefaceComparator());
-            sorted = true;
-        }
+        return snapshot().typefaces;
     }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mta.tehreer.font.VariationAxis;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches the variation instances derived from a typeface by their quantized coordinates, so that
+ * identical or near-identical coordinates resolve to the same typeface object and thus reuse its
+ * glyph and pattern caches. Only the lookup is quantized; an instance is created with the exact
+ * coordinates of the request that first produced it.
+ * <p>
+ * An instance stays in the cache as long as it is referenced anywhere else. In addition, the most
+ * recently used instances are held strongly so that they survive short gaps in usage, such as
+ * between the frames of an animation.
+ */
+final class VariationInstanceCache {
+    /**
+     * The number of steps each axis range is divided into. Coordinates closer than half a step are
+     * treated as identical.
+     */
+    private static final int QUANTIZATION_STEPS = 1024;
+    private static final int MAX_RECENT_INSTANCES = 16;
+
+    static final class Key {
+        private final @NonNull int[] steps;
+        private final @Nullable int[] colors;
+        private final int hash;
+
+        Key(@NonNull int[] steps, @Nullable int[] colors) {
+            this.steps = steps;
+            this.colors = colors;
+            this.hash = 31 * Arrays.hashCode(steps) + Arrays.hashCode(colors);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+            return Arrays.equals(steps, other.steps)
+                && Arrays.equals(colors, other.colors);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class InstanceReference extends WeakReference<Typeface> {
+        final @NonNull Key key;
+
+        InstanceReference(@NonNull Key key, @NonNull Typeface typeface,
+                          @NonNull ReferenceQueue<Typeface> queue) {
+            super(typeface, queue);
+            this.key = key;
+        }
+    }
+
+    private final @NonNull HashMap<Key, InstanceReference> instances = new HashMap<>();
+    private final @NonNull ReferenceQueue<Typeface> queue = new ReferenceQueue<>();
+    private final @NonNull LinkedHashMap<Key, Typeface> recentInstances =
+            new LinkedHashMap<Key, Typeface>(MAX_RECENT_INSTANCES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Typeface> eldest) {
+            return size() > MAX_RECENT_INSTANCES;
+        }
+    };
+
+    /**
+     * Returns the step indexes of the coordinates, clamping each one to the range of its axis. The
+     * coordinates themselves are left untouched.
+     */
+    static @NonNull int[] quantize(@NonNull List<VariationAxis> axes, @NonNull float[] coordinates) {
+        final int count = coordinates.length;
+        int[] steps = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            VariationAxis axis = axes.get(i);
+            float minValue = axis.minValue();
+            float range = axis.maxValue() - minValue;
+
+            if (range > 0.0f) {
+                float value = Math.max(minValue, Math.min(axis.maxValue(), coordinates[i]));
+                steps[i] = Math.round((value - minValue) / range * QUANTIZATION_STEPS);
+            }
+        }
+
+        return steps;
+    }
+
+    private void purgeClearedReferences() {
+        InstanceReference reference;
+        while ((reference = (InstanceReference) queue.poll()) != null) {
+            if (instances.get(reference.key) == reference) {
+                instances.remove(reference.key);
+            }
+        }
+    }
+
+    synchronized @Nullable Typeface get(@NonNull Key key) {
+        Typeface typeface = recentInstances.get(key);
+        if (typeface == null) {
+            InstanceReference reference = instances.get(key);
+            if (reference != null) {
+                typeface = reference.get();
+                if (typeface != null) {
+                    recentInstances.put(key, typeface);
+                }
+            }
+        }
+
+        return typeface;
+    }
+
+    /**
+     * Adds an instance unless another one has been added for the same key in the meantime, and
+     * returns the instance that should be used.
+     */
+    synchronized @NonNull Typeface putIfAbsent(@NonNull Key key, @NonNull Typeface typeface) {
+        purgeClearedReferences();
+
+        InstanceReference reference = instances.get(key);
+        if (reference != null) {
+            Typeface existing = reference.get();
+            if (existing != null) {
+                recentInstances.put(key, existing);
+                return existing;
+            }
+        }
+
+        instances.put(key, new InstanceReference(key, typeface, queue));
+        recentInstances.put(key, typeface);
+
+        return typeface;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.mta.tehreer.Disposable;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Releases native resources of objects once they become phantom reachable, replacing the use of
+ * <code>finalize()</code>. Cleaning actions are run on a single daemon thread in the order their
+ * objects are discovered by the GC, without the overhead of the finalizer queue.
+ * <p>
+ * A cleaning action must not hold a reference to the object it is registered for, otherwise the
+ * object never becomes phantom reachable.
+ */
+public final class Cleaner {
+    private static final String TAG = "Tehreer";
+
+    public interface Cleanable {
+        /**
+         * Unregisters the cleanable and runs its action if it has not already been run. This can
+         * be used to release the native resources of an object deterministically.
+         */
+        void clean();
+    }
+
+    private static final class PhantomCleanable extends PhantomReference<Object> implements Cleanable {
+        private final @NonNull Runnable action;
+
+        PhantomCleanable(@NonNull Object referent, @NonNull Runnable action) {
+            super(referent, QUEUE);
+            this.action = action;
+        }
+
+        @Override
+        public void clean() {
+            boolean registered;
+            synchronized (CLEANABLES) {
+                registered = CLEANABLES.remove(this);
+            }
+
+            if (registered) {
+                clear();
+                action.run();
+            }
+        }
+    }
+
+    private static final class Disposer implements Runnable {
+        private final @NonNull Disposable disposable;
+
+        Disposer(@NonNull Disposable disposable) {
+            this.disposable = disposable;
+        }
+
+        @Override
+        public void run() {
+            disposable.dispose();
+        }
+    }
+
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+    private static final Set<PhantomCleanable> CLEANABLES = new HashSet<>();
+
+    static {
+        Thread reaper = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        ((Cleanable) QUEUE.remove()).clean();
+                    } catch (InterruptedException ignored) {
+                    } catch (Throwable e) {
+                        Log.e(TAG, "Failed to clean native resources", e);
+                    }
+                }
+            }
+        }, "TehreerCleaner");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    private Cleaner() { }
+
+    /**
+     * Registers an action to be run when the given object becomes phantom reachable.
+     *
+     * @param referent The object to monitor.
+     * @param action The action releasing the native resources; must not refer to the object.
+     * @return A cleanable which can be used to run the action earlier.
+     */
+    public static @NonNull Cleanable register(@NonNull Object referent, @NonNull Runnable action) {
+        PhantomCleanable cleanable = new PhantomCleanable(referent, action);
+        synchronized (CLEANABLES) {
+            CLEANABLES.add(cleanable);
+        }
+
+        return cleanable;
+    }
+
+    /**
+     * Returns an action disposing the given object. It is meant for finalizable wrappers sharing
+     * their native resources with a separate, unwrapped object.
+     */
+    public static @NonNull Runnable disposer(@NonNull Disposable disposable) {
+        return new Disposer(disposable);
+    }
+}
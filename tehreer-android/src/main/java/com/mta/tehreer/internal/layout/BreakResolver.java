@@ -22,6 +22,7 @@ import com.mta.tehreer.internal.util.StringUtils;
 import com.mta.tehreer.layout.BreakMode;
 
 import java.text.BreakIterator;
+import java.text.StringCharacterIterator;
 
 public class BreakResolver {
     public static final byte LINE = 1 << 0;
@@ -32,41 +33,65 @@ public class BreakResolver {
         return (byte) (forward ? type : type << 1);
     }
 
-    private static void fillBreaks(@NonNull String text, @NonNull byte[] breaks, byte type) {
+    private static final ThreadLocal<BreakIterator> LINE_ITERATOR = new ThreadLocal<BreakIterator>() {
+        @Override
+        protected BreakIterator initialValue() {
+            return BreakIterator.getLineInstance();
+        }
+    };
+
+    private static final ThreadLocal<BreakIterator> CHARACTER_ITERATOR = new ThreadLocal<BreakIterator>() {
+        @Override
+        protected BreakIterator initialValue() {
+            return BreakIterator.getCharacterInstance();
+        }
+    };
+
+    private static void fillBreaks(@NonNull String text, @NonNull byte[] breaks, byte type,
+                                   int charStart, int charEnd) {
         BreakIterator iterator;
 
         switch (type) {
         case CHARACTER:
-            iterator = BreakIterator.getCharacterInstance();
+            iterator = CHARACTER_ITERATOR.get();
             break;
 
         default:
-            iterator = BreakIterator.getLineInstance();
+            iterator = LINE_ITERATOR.get();
             break;
         }
 
-        iterator.setText(text);
-        iterator.first();
+        if (charStart == 0 && charEnd == text.length()) {
+            iterator.setText(text);
+        } else {
+            iterator.setText(new StringCharacterIterator(text, charStart, charEnd, charStart));
+        }
 
+        // Boundaries are the same in both directions, so a single forward pass marks the character
+        // before each boundary for forward breaking and the one after it for backward breaking.
         byte forwardType = typeMode(type, true);
+        byte backwardType = typeMode(type, false);
+        int charIndex = iterator.first();
         int charNext;
 
         while ((charNext = iterator.next()) != BreakIterator.DONE) {
+            breaks[charIndex] |= backwardType;
             breaks[charNext - 1] |= forwardType;
-        }
 
-        iterator.last();
-        byte backwardType = typeMode(type, false);
-        int charIndex;
-
-        while ((charIndex = iterator.previous()) != BreakIterator.DONE) {
-            breaks[charIndex] |= backwardType;
+            charIndex = charNext;
         }
+
+        // Release the text so that it is not retained by the cached iterator.
+        iterator.setText("");
     }
 
     public static void fillBreaks(@NonNull String text, @NonNull byte[] breaks) {
-        BreakResolver.fillBreaks(text, breaks, BreakResolver.LINE);
-        BreakResolver.fillBreaks(text, breaks, BreakResolver.CHARACTER);
+        fillBreaks(text, breaks, 0, text.length());
+    }
+
+    public static void fillBreaks(@NonNull String text, @NonNull byte[] breaks, int charStart, int charEnd) {
+        BreakResolver.fillBreaks(text, breaks, BreakResolver.LINE, charStart, charEnd);
+        BreakResolver.fillBreaks(text, breaks, BreakResolver.CHARACTER, charStart, charEnd);
     }
 
     private static int findForwardBreak(@NonNull CharSequence text, @NonNull RunCollection runs,
@@ -170,20 +195,21 @@ public class BreakResolver {
 
         // Take at least one character (grapheme) if extent is too small.
         if (forwardBreak == charStart) {
-            for (int i = charStart; i < charEnd; i++) {
-                if ((breaks[i] & CHARACTER) != 0) {
-                    forwardBreak = i + 1;
-                    break;
-                }
-            }
+            forwardBreak = takeForwardGrapheme(breaks, charStart, charEnd);
+        }
 
-            // Character range does not cover even a single grapheme?
-            if (forwardBreak == charStart) {
-                forwardBreak = Math.min(charStart + 1, charEnd);
+        return forwardBreak;
+    }
+
+    private static int takeForwardGrapheme(@NonNull byte[] breaks, int charStart, int charEnd) {
+        for (int i = charStart; i < charEnd; i++) {
+            if ((breaks[i] & CHARACTER) != 0) {
+                return i + 1;
             }
         }
 
-        return forwardBreak;
+        // Character range does not cover even a single grapheme.
+        return Math.min(charStart + 1, charEnd);
     }
 
     public static int suggestBackwardCharBreak(@NonNull CharSequence text,
@@ -193,20 +219,23 @@ public class BreakResolver {
 
         // Take at least one character (grapheme) if extent is too small.
         if (backwardBreak == end) {
-            for (int i = end - 1; i >= start; i++) {
-                if ((breaks[i] & CHARACTER) != 0) {
-                    backwardBreak = i;
-                    break;
-                }
-            }
+            backwardBreak = takeBackwardGrapheme(breaks, start, end);
+        }
 
-            // Character range does not cover even a single grapheme?
-            if (backwardBreak == end) {
-                backwardBreak = Math.max(end - 1, start);
+        return backwardBreak;
+    }
+
+    private static int takeBackwardGrapheme(@NonNull byte[] breaks, int start, int end) {
+        byte backwardType = typeMode(CHARACTER, false);
+
+        for (int i = end - 1; i >= start; i--) {
+            if ((breaks[i] & backwardType) != 0) {
+                return i;
             }
         }
 
-        return backwardBreak;
+        // Character range does not cover even a single grapheme.
+        return Math.max(end - 1, start);
     }
 
     public static int suggestForwardLineBreak(@NonNull CharSequence text,
@@ -262,4 +291,160 @@ public class BreakResolver {
 
         return -1;
     }
+
+    // The searching variants below find the same breaks as the walking ones above, but locate the
+    // farthest fitting character by binary searching the measurements of run collection, so only
+    // the characters around the fitting point are visited. They expect a range lying within a
+    // single paragraph.
+
+    private static int searchForwardBreak(@NonNull CharSequence text, @NonNull RunCollection runs,
+                                          @NonNull byte[] breaks, byte type,
+                                          int start, int end, float extent) {
+        byte mustType = typeMode(PARAGRAPH, true);
+        type = typeMode(type, true);
+
+        // Find the farthest index up to which the characters fit.
+        int low = start;
+        int high = end;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+
+            if (runs.measureChars(start, mid) <= extent) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int fitEnd = low;
+
+        // Take the last break opportunity within the fitting characters.
+        int forwardBreak = start;
+        for (int i = fitEnd; i > start; i--) {
+            byte charType = breaks[i - 1];
+
+            if ((charType & type) == type || (charType & mustType) == mustType) {
+                forwardBreak = i;
+                break;
+            }
+        }
+
+        // Take the next optional break if excluding its trailing whitespaces helps.
+        for (int i = fitEnd + 1; i <= end; i++) {
+            byte charType = breaks[i - 1];
+
+            if ((charType & mustType) == mustType) {
+                break;
+            }
+            if ((charType & type) == type) {
+                int whitespaceStart = StringUtils.getTrailingWhitespaceStart(text, forwardBreak, i);
+                if (runs.measureChars(start, whitespaceStart) <= extent) {
+                    forwardBreak = i;
+                }
+                break;
+            }
+        }
+
+        return forwardBreak;
+    }
+
+    private static int searchBackwardBreak(@NonNull CharSequence text, @NonNull RunCollection runs,
+                                           @NonNull byte[] breaks, byte type,
+                                           int start, int end, float extent) {
+        byte mustType = typeMode(PARAGRAPH, false);
+        type = typeMode(type, false);
+
+        // Find the farthest index from which the characters fit.
+        int low = start;
+        int high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (runs.measureChars(mid, end) <= extent) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        int fitStart = low;
+
+        // Take the first break opportunity within the fitting characters.
+        int backwardBreak = end;
+        for (int i = fitStart; i < end; i++) {
+            byte charType = breaks[i];
+
+            if ((charType & type) == type || (charType & mustType) == mustType) {
+                backwardBreak = i;
+                break;
+            }
+        }
+
+        // Take the previous optional break if excluding trailing whitespaces helps.
+        for (int i = fitStart - 1; i >= start; i--) {
+            byte charType = breaks[i];
+
+            if ((charType & mustType) == mustType) {
+                break;
+            }
+            if ((charType & type) == type) {
+                int whitespaceStart = StringUtils.getTrailingWhitespaceStart(text, i, backwardBreak);
+                float measurement = runs.measureChars(i, end) - runs.measureChars(whitespaceStart, backwardBreak);
+                if (measurement <= extent) {
+                    backwardBreak = i;
+                }
+                break;
+            }
+        }
+
+        return backwardBreak;
+    }
+
+    /**
+     * Suggests a forward break for truncating a range lying within a single paragraph. The cost is
+     * logarithmic in the length of range, plus the length of words around the break.
+     */
+    public static int suggestForwardTruncationBreak(@NonNull CharSequence text,
+                                                    @NonNull RunCollection runs, @NonNull byte[] breaks,
+                                                    int start, int end, float extent,
+                                                    @NonNull BreakMode mode) {
+        int forwardBreak = start;
+
+        if (mode == BreakMode.LINE) {
+            forwardBreak = searchForwardBreak(text, runs, breaks, LINE, start, end, extent);
+        }
+        // Fallback to character break if no line break occurs in desired extent.
+        if (forwardBreak == start) {
+            forwardBreak = searchForwardBreak(text, runs, breaks, CHARACTER, start, end, extent);
+
+            if (forwardBreak == start) {
+                forwardBreak = takeForwardGrapheme(breaks, start, end);
+            }
+        }
+
+        return forwardBreak;
+    }
+
+    /**
+     * Suggests a backward break for truncating a range lying within a single paragraph. The cost
+     * is logarithmic in the length of range, plus the length of words around the break.
+     */
+    public static int suggestBackwardTruncationBreak(@NonNull CharSequence text,
+                                                     @NonNull RunCollection runs, @NonNull byte[] breaks,
+                                                     int start, int end, float extent,
+                                                     @NonNull BreakMode mode) {
+        int backwardBreak = end;
+
+        if (mode == BreakMode.LINE) {
+            backwardBreak = searchBackwardBreak(text, runs, breaks, LINE, start, end, extent);
+        }
+        // Fallback to character break if no line break occurs in desired extent.
+        if (backwardBreak == end) {
+            backwardBreak = searchBackwardBreak(text, runs, breaks, CHARACTER, start, end, extent);
+
+            if (backwardBreak == end) {
+                backwardBreak = takeBackwardGrapheme(breaks, start, end);
+            }
+        }
+
+        return backwardBreak;
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.layout;
+
+import androidx.annotation.NonNull;
+
+import com.mta.tehreer.graphics.Typeface;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Caches the code point coverage of typefaces across typesetters. Coverage is fetched from the
+ * native character map a block of 256 code points at a time and kept as a bitmap, so that font
+ * fallback can be resolved per character without crossing into native code.
+ */
+final class CoverageCache {
+    private static final int BLOCK_SHIFT = 8;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_COUNT = (Character.MAX_CODE_POINT + 1) >>> BLOCK_SHIFT;
+
+    private static final Map<Typeface, CoverageCache> instances = new WeakHashMap<>();
+
+    // The typeface is weakly referenced, otherwise it would keep its own map entry alive.
+    private final @NonNull WeakReference<Typeface> typeface;
+    private final @NonNull AtomicReferenceArray<long[]> blocks = new AtomicReferenceArray<>(BLOCK_COUNT);
+
+    private CoverageCache(@NonNull Typeface typeface) {
+        this.typeface = new WeakReference<>(typeface);
+    }
+
+    static @NonNull CoverageCache of(@NonNull Typeface typeface) {
+        synchronized (instances) {
+            CoverageCache coverage = instances.get(typeface);
+            if (coverage == null) {
+                coverage = new CoverageCache(typeface);
+                instances.put(typeface, coverage);
+            }
+
+            return coverage;
+        }
+    }
+
+    private static @NonNull long[] loadBlock(@NonNull Typeface typeface, int blockIndex) {
+        int[] codePoints = new int[BLOCK_SIZE];
+        int[] glyphIds = new int[BLOCK_SIZE];
+        int firstCodePoint = blockIndex << BLOCK_SHIFT;
+
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            codePoints[i] = firstCodePoint + i;
+        }
+        typeface.getGlyphIds(codePoints, glyphIds);
+
+        long[] bits = new long[BLOCK_SIZE / Long.SIZE];
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            if (glyphIds[i] != 0) {
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+
+        return bits;
+    }
+
+    boolean covers(int codePoint) {
+        if (codePoint < 0 || codePoint > Character.MAX_CODE_POINT) {
+            return false;
+        }
+
+        int blockIndex = codePoint >>> BLOCK_SHIFT;
+        long[] bits = blocks.get(blockIndex);
+        if (bits == null) {
+            Typeface typeface = this.typeface.get();
+            if (typeface == null) {
+                return false;
+            }
+
+            // Racing threads load identical blocks, so whichever gets stored is fine.
+            bits = loadBlock(typeface, blockIndex);
+            blocks.set(blockIndex, bits);
+        }
+
+        int bitIndex = codePoint & (BLOCK_SIZE - 1);
+        return (bits[bitIndex >>> 6] & (1L << bitIndex)) != 0;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.layout;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mta.tehreer.internal.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Breaks a paragraph into lines with the total-fit algorithm of Knuth and Plass. Instead of
+ * filling each line as much as possible, it chooses the set of line breaks that minimizes the sum
+ * of demerits of all lines, so that the paragraph looks even as a whole.
+ * <p>
+ * Break opportunities are taken from the break record, and the line widths come from the indexed
+ * measurement of runs. A break is kept active only as long as the text following it fits in a
+ * line, so the cost is proportional to the number of opportunities times the opportunities per
+ * line.
+ */
+public class OptimalBreakResolver {
+    private static final float LINE_PENALTY = 10.0f;
+
+    private static final class Node {
+        final int position;
+        final int lineCount;
+        final double demerits;
+        final @Nullable Node previous;
+
+        Node(int position, int lineCount, double demerits, @Nullable Node previous) {
+            this.position = position;
+            this.lineCount = lineCount;
+            this.demerits = demerits;
+            this.previous = previous;
+        }
+    }
+
+    private static double computeDemerits(float width, float extent, boolean isLast) {
+        if (isLast) {
+            return LINE_PENALTY * LINE_PENALTY;
+        }
+
+        double ratio = (extent > 0.0f ? (extent - width) / extent : 0.0);
+        double badness = 100.0 * ratio * ratio * ratio;
+        double demerits = LINE_PENALTY + badness;
+
+        return demerits * demerits;
+    }
+
+    /**
+     * Finds optimal line breaks in the given range of a paragraph.
+     *
+     * @param leadingExtent The extent of leading lines.
+     * @param leadingCount The number of leading lines.
+     * @param trailingExtent The extent of the remaining lines.
+     * @return The end indexes of the lines, or <code>null</code> if some segment between two break
+     *         opportunities does not fit in a line, in which case the caller should fall back to
+     *         greedy breaking.
+     */
+    public static @Nullable int[] suggestBreaks(@NonNull CharSequence text,
+                                                @NonNull RunCollection runs, @NonNull byte[] breaks,
+                                                int start, int end,
+                                                float leadingExtent, int leadingCount,
+                                                float trailingExtent) {
+        byte lineType = BreakResolver.typeMode(BreakResolver.LINE, true);
+        int lineClasses = Math.max(leadingCount, 0) + 1;
+
+        // Active nodes, at most one per line class at each position.
+        List<Node> activeNodes = new ArrayList<>();
+        activeNodes.add(new Node(start, 0, 0.0, null));
+
+        Node[] candidates = new Node[lineClasses];
+        Node finalNode = null;
+
+        for (int charIndex = start; charIndex < end; charIndex++) {
+            boolean isLast = (charIndex == end - 1);
+            if (!isLast && (breaks[charIndex] & lineType) != lineType) {
+                continue;
+            }
+
+            int position = charIndex + 1;
+            int contentEnd = StringUtils.getTrailingWhitespaceStart(text, start, position);
+
+            for (int i = 0; i < lineClasses; i++) {
+                candidates[i] = null;
+            }
+
+            int activeCount = activeNodes.size();
+            int keptCount = 0;
+
+            for (int i = 0; i < activeCount; i++) {
+                Node node = activeNodes.get(i);
+                float extent = (node.lineCount < leadingCount ? leadingExtent : trailingExtent);
+                float width = runs.measureChars(node.position, Math.max(node.position, contentEnd));
+
+                if (width > extent) {
+                    // Lines from this node only get wider, so it can never be used again.
+                    continue;
+                }
+                activeNodes.set(keptCount++, node);
+
+                int lineClass = Math.min(node.lineCount + 1, lineClasses - 1);
+                double demerits = node.demerits + computeDemerits(width, extent, isLast);
+                Node best = candidates[lineClass];
+
+                if (best == null || demerits < best.demerits) {
+                    candidates[lineClass] = new Node(position, node.lineCount + 1, demerits, node);
+                }
+            }
+
+            for (int i = activeCount - 1; i >= keptCount; i--) {
+                activeNodes.remove(i);
+            }
+
+            if (isLast) {
+                for (Node node : candidates) {
+                    if (node != null && (finalNode == null || node.demerits < finalNode.demerits)) {
+                        finalNode = node;
+                    }
+                }
+            } else {
+                for (Node node : candidates) {
+                    if (node != null) {
+                        activeNodes.add(node);
+                    }
+                }
+            }
+
+            if (activeNodes.isEmpty() && !isLast) {
+                return null;
+            }
+        }
+
+        if (finalNode == null) {
+            return null;
+        }
+
+        int[] lineEnds = new int[finalNode.lineCount];
+        for (Node node = finalNode; node.previous != null; node = node.previous) {
+            lineEnds[node.lineCount - 1] = node.position;
+        }
+
+        return lineEnds;
+    }
+}
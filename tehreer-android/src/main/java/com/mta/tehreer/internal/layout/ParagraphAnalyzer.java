@@ -0,0 +1,373 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.layout;
+
+import android.text.Spanned;
+
+import androidx.annotation.NonNull;
+
+import com.mta.tehreer.internal.Cleaner;
+import com.mta.tehreer.sfnt.ShapingEngine;
+import com.mta.tehreer.sfnt.ShapingResult;
+import com.mta.tehreer.unicode.BaseDirection;
+import com.mta.tehreer.unicode.BidiAlgorithm;
+import com.mta.tehreer.unicode.BidiParagraph;
+import com.mta.tehreer.unicode.ScriptClassifier;
+import com.mta.tehreer.unicode.TextBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Analyzes the paragraphs of a text on demand. Paragraph boundaries are found up front with a
+ * cheap scan for paragraph separators, whereas breaks, bidi levels and shaped runs of a paragraph
+ * are resolved only when a range touching it is requested.
+ * <p>
+ * Each paragraph is analyzed over its own text, so the native text buffer and bidi algorithm only
+ * ever hold a single paragraph. The shaping objects are kept alive until all paragraphs have been
+ * analyzed, the analyzer is closed, or it becomes unreachable. They are not created at all if every
+ * requested paragraph can be taken from a source, i.e. the typesetter an edited text was created
+ * from.
+ */
+public class ParagraphAnalyzer {
+    private static final class State implements Runnable {
+        final @NonNull ShapingEngine shapingEngine;
+        final @NonNull ShapingResult shapingResult;
+
+        State() {
+            shapingEngine = new ShapingEngine();
+            shapingResult = new ShapingResult();
+        }
+
+        @Override
+        public void run() {
+            shapingResult.dispose();
+            shapingEngine.dispose();
+        }
+    }
+
+    private static final class Source {
+        final @NonNull ParagraphCollection paragraphs;
+        final @NonNull RunCollection runs;
+        final @NonNull byte[] breaks;
+        final int sourceStart;
+        final int indexStart;
+        final int indexEnd;
+        final int charShift;
+
+        Source(@NonNull ParagraphCollection paragraphs, @NonNull RunCollection runs,
+               @NonNull byte[] breaks, int sourceStart, int indexStart, int indexEnd, int charShift) {
+            this.paragraphs = paragraphs;
+            this.runs = runs;
+            this.breaks = breaks;
+            this.sourceStart = sourceStart;
+            this.indexStart = indexStart;
+            this.indexEnd = indexEnd;
+            this.charShift = charShift;
+        }
+    }
+
+    private final @NonNull String mText;
+    private final @NonNull Spanned mSpanned;
+    private final @NonNull byte[] mBreaks;
+    private final @NonNull ParagraphCollection mParagraphs;
+    private final @NonNull RunCollection mRuns;
+    private final @NonNull ShapingRunLocator mLocator;
+    private final @NonNull List<Source> mSources = new ArrayList<>(2);
+
+    private State mState;
+    private Cleaner.Cleanable mCleanable;
+    private int mPendingCount;
+
+    public ParagraphAnalyzer(@NonNull String text, @NonNull Spanned spanned,
+                             @NonNull List<Object> defaultSpans, @NonNull byte[] breaks,
+                             @NonNull ParagraphCollection paragraphs, @NonNull RunCollection runs) {
+        mText = text;
+        mSpanned = spanned;
+        mBreaks = breaks;
+        mParagraphs = paragraphs;
+        mRuns = runs;
+        mLocator = new ShapingRunLocator(spanned, defaultSpans);
+        mPendingCount = paragraphs.size();
+
+        byte forwardType = BreakResolver.typeMode(BreakResolver.PARAGRAPH, true);
+        byte backwardType = BreakResolver.typeMode(BreakResolver.PARAGRAPH, false);
+
+        for (int i = 0; i < mPendingCount; i++) {
+            breaks[paragraphs.getParagraphStart(i)] |= backwardType;
+            breaks[paragraphs.getParagraphEnd(i) - 1] |= forwardType;
+        }
+    }
+
+    private static boolean isParagraphSeparator(char ch) {
+        switch (ch) {
+        case '\n':
+        case '\r':
+        case '\u001C':
+        case '\u001D':
+        case '\u001E':
+        case '\u0085':
+        case '\u2029':
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks whether a paragraph starts at the given index of text, treating a CR-LF pair as a
+     * single paragraph separator.
+     */
+    private static boolean isParagraphStart(@NonNull CharSequence text, int charIndex) {
+        if (charIndex == 0) {
+            return true;
+        }
+
+        char previous = text.charAt(charIndex - 1);
+        if (previous == '\r' && charIndex < text.length() && text.charAt(charIndex) == '\n') {
+            return false;
+        }
+
+        return isParagraphSeparator(previous);
+    }
+
+    /**
+     * Finds the start of the paragraph containing the given index of text.
+     */
+    public static int findParagraphStart(@NonNull CharSequence text, int charIndex) {
+        int paragraphStart = charIndex;
+        while (!isParagraphStart(text, paragraphStart)) {
+            paragraphStart--;
+        }
+
+        return paragraphStart;
+    }
+
+    /**
+     * Finds the paragraph boundaries of a text in accordance with Rule P1 of Unicode Bidirectional
+     * Algorithm, i.e. after each paragraph separator, treating a CR-LF pair as one.
+     *
+     * @return The start index of each paragraph followed by the length of text.
+     */
+    public static @NonNull int[] findBoundaries(@NonNull String text) {
+        int length = text.length();
+        int[] boundaries = new int[16];
+        int count = 1;
+
+        for (int i = 1; i < length; i++) {
+            if (isParagraphStart(text, i)) {
+                if (count == boundaries.length - 1) {
+                    boundaries = Arrays.copyOf(boundaries, boundaries.length * 2);
+                }
+                boundaries[count++] = i;
+            }
+        }
+        boundaries[count++] = length;
+
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    /**
+     * Finds the paragraph boundaries of an edited text. The boundaries of source paragraphs before
+     * <code>firstIndex</code> and after <code>lastIndex</code> are taken as is, shifting the latter
+     * by <code>charShift</code>, so only the text of edited paragraphs is scanned.
+     *
+     * @return The start index of each paragraph followed by the length of edited text.
+     */
+    public static @NonNull int[] findBoundaries(@NonNull String text, @NonNull ParagraphCollection source,
+                                                int firstIndex, int lastIndex, int charShift) {
+        int sourceCount = source.size();
+        int trailingCount = sourceCount - lastIndex - 1;
+        int editStart = source.getParagraphStart(firstIndex);
+        int editEnd = source.getParagraphEnd(lastIndex) + charShift;
+
+        int[] boundaries = new int[firstIndex + trailingCount + 16];
+        int count = 0;
+
+        for (int i = 0; i < firstIndex; i++) {
+            boundaries[count++] = source.getParagraphStart(i);
+        }
+        for (int i = editStart; i < editEnd; i++) {
+            if (isParagraphStart(text, i)) {
+                if (count == boundaries.length - trailingCount - 1) {
+                    boundaries = Arrays.copyOf(boundaries, boundaries.length * 2);
+                }
+                boundaries[count++] = i;
+            }
+        }
+        for (int i = lastIndex + 1; i < sourceCount; i++) {
+            boundaries[count++] = source.getParagraphStart(i) + charShift;
+        }
+        boundaries[count++] = text.length();
+
+        return Arrays.copyOf(boundaries, count);
+    }
+
+    /**
+     * Lets the paragraphs in given index range be taken from a source having the same text for
+     * them, provided that the source has analyzed them by the time they are requested. Otherwise,
+     * they are analyzed as usual.
+     *
+     * @param paragraphs The paragraphs of the source.
+     * @param runs The runs of the source.
+     * @param breaks The breaks of the source.
+     * @param sourceStart The index of source paragraph corresponding to <code>indexStart</code>.
+     * @param indexStart The index of first paragraph that can be taken from the source.
+     * @param indexEnd The index after the last paragraph that can be taken from the source.
+     * @param charShift The difference between the char offsets of this text and the source text.
+     */
+    public void addSource(@NonNull ParagraphCollection paragraphs, @NonNull RunCollection runs,
+                          @NonNull byte[] breaks, int sourceStart, int indexStart, int indexEnd,
+                          int charShift) {
+        if (indexEnd > indexStart) {
+            synchronized (mParagraphs) {
+                mSources.add(new Source(paragraphs, runs, breaks, sourceStart, indexStart, indexEnd, charShift));
+            }
+        }
+    }
+
+    private @NonNull State state() {
+        if (mState == null) {
+            mState = new State();
+            mCleanable = Cleaner.register(this, mState);
+        }
+
+        return mState;
+    }
+
+    private boolean takeParagraph(int index) {
+        for (Source source : mSources) {
+            if (index >= source.indexStart && index < source.indexEnd) {
+                int sourceIndex = index - source.indexStart + source.sourceStart;
+                int charShift = source.charShift;
+                int sourceStart = mParagraphs.getParagraphStart(index) - charShift;
+                int sourceEnd = mParagraphs.getParagraphEnd(index) - charShift;
+                List<TextRun> runs = new ArrayList<>();
+
+                // Hold the source still, in case it is being analyzed on another thread.
+                synchronized (source.paragraphs) {
+                    if (!mParagraphs.adopt(index, source.paragraphs, sourceIndex, charShift)) {
+                        return false;
+                    }
+
+                    System.arraycopy(source.breaks, sourceStart, mBreaks, sourceStart + charShift,
+                                     sourceEnd - sourceStart);
+
+                    int runCount = source.runs.size();
+                    for (int i = source.runs.binarySearch(sourceStart); i < runCount; i++) {
+                        TextRun textRun = source.runs.get(i);
+                        if (textRun.getCharStart() >= sourceEnd) {
+                            break;
+                        }
+                        runs.add(charShift != 0 ? ShapeResolver.shiftRun(textRun, mSpanned, charShift) : textRun);
+                    }
+                }
+
+                int paragraphStart = sourceStart + charShift;
+                int runIndex = -(mRuns.binarySearch(paragraphStart) + 1);
+                mRuns.addAll(runIndex, runs);
+                mRuns.indexRange(paragraphStart, sourceEnd + charShift);
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void analyzeParagraph(int index) {
+        if (takeParagraph(index)) {
+            mPendingCount--;
+            return;
+        }
+
+        int paragraphStart = mParagraphs.getParagraphStart(index);
+        int paragraphEnd = mParagraphs.getParagraphEnd(index);
+        State state = state();
+
+        BreakResolver.fillBreaks(mText, mBreaks, paragraphStart, paragraphEnd);
+
+        // The paragraph and its runs are resolved relative to the paragraph text, and then
+        // shifted to their place in the whole text.
+        TextBuffer textBuffer = new TextBuffer(mText.substring(paragraphStart, paragraphEnd));
+        BidiAlgorithm bidiAlgorithm = null;
+        BidiParagraph paragraph;
+        List<TextRun> runs = new ArrayList<>();
+
+        try {
+            bidiAlgorithm = new BidiAlgorithm(textBuffer);
+            paragraph = bidiAlgorithm.createParagraph(0, paragraphEnd - paragraphStart,
+                                                      BaseDirection.DEFAULT_LEFT_TO_RIGHT);
+
+            ScriptClassifier scriptClassifier = new ScriptClassifier(textBuffer);
+            ShapeResolver.shapeParagraph(textBuffer, mSpanned, paragraph, scriptClassifier, mLocator,
+                                         state.shapingEngine, state.shapingResult, paragraphStart,
+                                         runs);
+        } finally {
+            if (bidiAlgorithm != null) {
+                bidiAlgorithm.dispose();
+            }
+            textBuffer.dispose();
+        }
+
+        int runIndex = -(mRuns.binarySearch(paragraphStart) + 1);
+        mRuns.addAll(runIndex, runs);
+        mRuns.indexRange(paragraphStart, paragraphEnd);
+        mParagraphs.resolve(index, paragraph, paragraphStart);
+
+        mPendingCount--;
+    }
+
+    /**
+     * Analyzes all paragraphs intersecting the given range, unless already analyzed.
+     */
+    public void analyze(int charStart, int charEnd) {
+        synchronized (mParagraphs) {
+            if (mPendingCount == 0) {
+                return;
+            }
+
+            int firstIndex = mParagraphs.binarySearch(charStart);
+            int lastIndex = mParagraphs.binarySearch(Math.max(charEnd - 1, charStart));
+
+            for (int i = firstIndex; i <= lastIndex; i++) {
+                if (mParagraphs.get(i) == null) {
+                    analyzeParagraph(i);
+                }
+            }
+
+            if (mPendingCount == 0) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Releases the native objects used for analysis and lets go of the sources.
+     */
+    public void close() {
+        synchronized (mParagraphs) {
+            if (mCleanable != null) {
+                mCleanable.clean();
+                mCleanable = null;
+                mState = null;
+            }
+            mSources.clear();
+        }
+    }
+}
@@ -18,25 +18,187 @@ package com.mta.tehreer.internal.layout;
 
 import androidx.annotation.NonNull;
 
+import com.mta.tehreer.internal.Cleaner;
 import com.mta.tehreer.unicode.BidiLine;
 import com.mta.tehreer.unicode.BidiParagraph;
 import com.mta.tehreer.unicode.BidiRun;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class ParagraphCollection extends ArrayList<BidiParagraph> {
+    /**
+     * A paragraph which may be shared by the collections of an edited typesetter and the one it
+     * was created from. It is disposed when the last of them releases it.
+     */
+    private static final class SharedParagraph {
+        final @NonNull BidiParagraph paragraph;
+        int useCount = 1;
+
+        SharedParagraph(@NonNull BidiParagraph paragraph) {
+            this.paragraph = paragraph;
+        }
+
+        synchronized void retain() {
+            useCount++;
+        }
+
+        void release() {
+            boolean unused;
+            synchronized (this) {
+                unused = (--useCount == 0);
+            }
+
+            if (unused) {
+                paragraph.dispose();
+            }
+        }
+    }
+
+    private static final class Disposer implements Runnable {
+        private final @NonNull SharedParagraph[] paragraphs;
+
+        Disposer(@NonNull SharedParagraph[] paragraphs) {
+            this.paragraphs = paragraphs;
+        }
+
+        @Override
+        public void run() {
+            synchronized (paragraphs) {
+                for (int i = 0; i < paragraphs.length; i++) {
+                    if (paragraphs[i] != null) {
+                        paragraphs[i].release();
+                        paragraphs[i] = null;
+                    }
+                }
+            }
+        }
+    }
+
+    private int[] mBoundaries;
+    private int[] mCharShifts;
+    private SharedParagraph[] mShared;
+
+    public ParagraphCollection() {
+    }
+
+    /**
+     * Creates a collection whose paragraph boundaries are known in advance but whose paragraphs are
+     * resolved later on demand. Unresolved paragraphs are <code>null</code>.
+     *
+     * @param boundaries The start index of each paragraph followed by the end of last paragraph.
+     */
+    public static @NonNull ParagraphCollection withBoundaries(@NonNull int[] boundaries) {
+        int paragraphCount = boundaries.length - 1;
+
+        ParagraphCollection collection = new ParagraphCollection();
+        collection.addAll(Collections.<BidiParagraph>nCopies(paragraphCount, null));
+        collection.mBoundaries = boundaries;
+        collection.mShared = new SharedParagraph[paragraphCount];
+
+        return collection;
+    }
+
+    public int getParagraphStart(int index) {
+        return (mBoundaries != null ? mBoundaries[index] : get(index).getCharStart());
+    }
+
+    public int getParagraphEnd(int index) {
+        return (mBoundaries != null ? mBoundaries[index + 1] : get(index).getCharEnd());
+    }
+
+    /**
+     * Returns the number of characters by which the paragraph at given index has moved since it
+     * was resolved, i.e. the difference between its position in this collection and its own char
+     * offsets.
+     */
+    public int getCharShift(int index) {
+        return (mCharShifts != null ? mCharShifts[index] : 0);
+    }
+
+    /**
+     * Resolves a paragraph of this collection.
+     *
+     * @param charShift The index of this collection at which the char offsets of given paragraph
+     *                  start, i.e. the start of the text it was created from.
+     */
+    public void resolve(int index, @NonNull BidiParagraph paragraph, int charShift) {
+        if (charShift != 0) {
+            if (mCharShifts == null) {
+                mCharShifts = new int[size()];
+            }
+            mCharShifts[index] = charShift;
+        }
+        set(index, paragraph);
+
+        synchronized (mShared) {
+            mShared[index] = new SharedParagraph(paragraph);
+        }
+    }
+
+    /**
+     * Resolves a paragraph of this collection with an already resolved paragraph of another
+     * collection, which must have the same text but may start at a different index. The paragraph
+     * remains alive until both collections have released it.
+     *
+     * @return <code>false</code> if the source paragraph is not resolved or has been disposed.
+     */
+    public boolean adopt(int index, @NonNull ParagraphCollection source, int sourceIndex, int charShift) {
+        SharedParagraph shared;
+
+        synchronized (source.mShared) {
+            shared = source.mShared[sourceIndex];
+            if (shared == null) {
+                return false;
+            }
+            shared.retain();
+        }
+
+        int totalShift = source.getCharShift(sourceIndex) + charShift;
+        if (totalShift != 0) {
+            if (mCharShifts == null) {
+                mCharShifts = new int[size()];
+            }
+            mCharShifts[index] = totalShift;
+        }
+        set(index, shared.paragraph);
+
+        synchronized (mShared) {
+            mShared[index] = shared;
+        }
+
+        return true;
+    }
+
+    /**
+     * Registers the paragraphs of this collection to be disposed once the collection becomes
+     * unreachable. It must be called exactly once, after the collection has been filled or, for a
+     * collection with known boundaries, right after it has been created.
+     *
+     * @return A cleanable which can be used to dispose the paragraphs earlier.
+     */
+    public @NonNull Cleaner.Cleanable registerCleaner() {
+        if (mShared == null) {
+            mShared = new SharedParagraph[size()];
+            for (int i = 0; i < mShared.length; i++) {
+                mShared[i] = new SharedParagraph(get(i));
+            }
+        }
+
+        return Cleaner.register(this, new Disposer(mShared));
+    }
+
     public int binarySearch(int charIndex) {
         int low = 0;
         int high = size() - 1;
 
         while (low <= high) {
             int mid = (low + high) >>> 1;
-            BidiParagraph value = get(mid);
 
-            if (charIndex >= value.getCharEnd()) {
+            if (charIndex >= getParagraphEnd(mid)) {
                 low = mid + 1;
-            } else if (charIndex < value.getCharStart()) {
+            } else if (charIndex < getParagraphStart(mid)) {
                 high = mid - 1;
             } else {
                 return mid;
@@ -63,7 +225,7 @@ public class ParagraphCollection extends ArrayList<BidiParagraph> {
         boolean isRTL = (directionalParagraph.getBaseLevel() & 1) == 1;
 
         if (isRTL) {
-            int paragraphEnd = directionalParagraph.getCharEnd();
+            int paragraphEnd = getParagraphEnd(paragraphIndex);
             if (paragraphEnd < lineEnd) {
                 paragraphIndex = binarySearch(lineEnd - 1);
             }
@@ -75,32 +237,24 @@ public class ParagraphCollection extends ArrayList<BidiParagraph> {
 
         do {
             BidiParagraph bidiParagraph = get(paragraphIndex);
-            feasibleStart = Math.max(bidiParagraph.getCharStart(), lineStart);
-            feasibleEnd = Math.min(bidiParagraph.getCharEnd(), lineEnd);
+            int charShift = getCharShift(paragraphIndex);
+            feasibleStart = Math.max(getParagraphStart(paragraphIndex), lineStart);
+            feasibleEnd = Math.min(getParagraphEnd(paragraphIndex), lineEnd);
 
-            BidiLine bidiLine = bidiParagraph.createLine(feasibleStart, feasibleEnd);
+            BidiLine bidiLine = bidiParagraph.createLine(feasibleStart - charShift, feasibleEnd - charShift);
             List<BidiRun> bidiRuns = bidiLine.getVisualRuns();
 
             int runCount = bidiRuns.size();
             for (int i = 0; i < runCount; i++) {
-                runConsumer.accept(bidiRuns.get(i));
+                BidiRun bidiRun = bidiRuns.get(i);
+                bidiRun.charStart += charShift;
+                bidiRun.charEnd += charShift;
+
+                runConsumer.accept(bidiRun);
             }
 
             bidiLine.dispose();
             paragraphIndex += next;
         } while (isRTL ? feasibleStart != lineStart : feasibleEnd != lineEnd);
     }
-
-    @Override
-    protected void finalize() throws Throwable {
-        try {
-            int size = size();
-            for (int i = 0; i < size; i++) {
-                BidiParagraph paragraph = get(i);
-                paragraph.dispose();
-            }
-        } finally {
-            super.finalize();
-        }
-    }
 }
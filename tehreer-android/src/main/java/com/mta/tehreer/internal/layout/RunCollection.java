@@ -16,9 +16,60 @@
 
 package com.mta.tehreer.internal.layout;
 
+import androidx.annotation.NonNull;
+
 import java.util.ArrayList;
 
+/**
+ * A list of text runs in logical order, addressed by absolute character indexes. The runs are
+ * either added all at once before the collection is measured, or a segment of text at a time, such
+ * as a paragraph, with the segment indexed right after its runs have been added.
+ */
 public class RunCollection extends ArrayList<TextRun> {
+    /**
+     * An immutable view of the indexed segments, sorted by their start indexes. A new view is
+     * published whenever a segment is indexed. Segments appended at the end share the arrays of
+     * previous view as it never looks past its own count.
+     */
+    private static final class Segments {
+        final @NonNull int[] starts;
+        final @NonNull float[][] extents;
+        final int count;
+
+        Segments(@NonNull int[] starts, @NonNull float[][] extents, int count) {
+            this.starts = starts;
+            this.extents = extents;
+            this.count = count;
+        }
+
+        /**
+         * Returns the index of last segment starting at or before the given character, or -1 if
+         * there is no such segment.
+         */
+        int find(int charIndex) {
+            int low = 0;
+            int high = count - 1;
+
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+
+                if (charIndex < starts[mid]) {
+                    high = mid - 1;
+                } else {
+                    low = mid + 1;
+                }
+            }
+
+            return low - 1;
+        }
+    }
+
+    /**
+     * Distances of characters from the start of their segment, stored per segment at the offset
+     * after each character.
+     */
+    private volatile Segments mSegments;
+
     public int binarySearch(int charIndex) {
         int low = 0;
         int high = size() - 1;
@@ -39,22 +90,102 @@ public class RunCollection extends ArrayList<TextRun> {
         return -(low + 1);
     }
 
-    public float measureChars(int charStart, int charEnd) {
-        float extent = 0.0f;
+    /**
+     * Indexes the measurements of the runs covering the given range, which must be exactly tiled
+     * by the runs of this collection.
+     */
+    public synchronized void indexRange(int charStart, int charEnd) {
+        float[] extents = new float[charEnd - charStart + 1];
+
+        int runIndex = binarySearch(charStart);
+        int runCount = size();
+        double runOffset = 0.0;
+
+        while (runIndex < runCount) {
+            TextRun textRun = get(runIndex);
+            int runStart = textRun.getCharStart();
+            int runEnd = textRun.getCharEnd();
+            if (runStart >= charEnd) {
+                break;
+            }
+
+            // Accumulate in double so that rounding errors do not add up over long segments.
+            for (int i = runStart + 1; i < runEnd; i++) {
+                extents[i - charStart] = (float) (runOffset + textRun.getRangeDistance(runStart, i));
+            }
+            runOffset += textRun.getRangeDistance(runStart, runEnd);
+            extents[runEnd - charStart] = (float) runOffset;
+            runIndex++;
+        }
+
+        Segments segments = mSegments;
+        int count = (segments != null ? segments.count : 0);
+        int index = (segments != null ? segments.find(charStart) + 1 : 0);
+        int[] starts;
+        float[][] segmentExtents;
+
+        if (segments != null && index == count && count < segments.starts.length) {
+            starts = segments.starts;
+            segmentExtents = segments.extents;
+        } else {
+            int capacity = (segments == null ? 1 : count < segments.starts.length ? segments.starts.length : count * 2);
+            starts = new int[capacity];
+            segmentExtents = new float[capacity][];
+
+            if (segments != null) {
+                System.arraycopy(segments.starts, 0, starts, 0, index);
+                System.arraycopy(segments.starts, index, starts, index + 1, count - index);
+                System.arraycopy(segments.extents, 0, segmentExtents, 0, index);
+                System.arraycopy(segments.extents, index, segmentExtents, index + 1, count - index);
+            }
+        }
+
+        starts[index] = charStart;
+        segmentExtents[index] = extents;
+        mSegments = new Segments(starts, segmentExtents, count + 1);
+    }
 
+    private @NonNull Segments segments() {
+        Segments segments = mSegments;
+        if (segments == null) {
+            // The collection was filled at once, so index all of it as a single segment.
+            synchronized (this) {
+                if (mSegments == null && size() > 0) {
+                    indexRange(get(0).getCharStart(), get(size() - 1).getCharEnd());
+                }
+                segments = mSegments;
+            }
+        }
+
+        return segments;
+    }
+
+    public float measureChars(int charStart, int charEnd) {
         if (charEnd > charStart) {
-            int runIndex = binarySearch(charStart);
+            Segments segments = segments();
+            int index = segments.find(charStart);
+            int start = charStart;
+            double extent = 0.0;
+
+            // Add up the parts in each segment if the range spans several of them.
+            while (true) {
+                int segmentStart = segments.starts[index];
+                float[] extents = segments.extents[index];
+                int segmentEnd = segmentStart + extents.length - 1;
 
-            do {
-                TextRun textRun = get(runIndex);
-                int segmentEnd = Math.min(charEnd, textRun.getCharEnd());
-                extent += textRun.getRangeDistance(charStart, segmentEnd);
+                if (charEnd <= segmentEnd) {
+                    extent += extents[charEnd - segmentStart] - extents[start - segmentStart];
+                    break;
+                }
+
+                extent += extents[extents.length - 1] - extents[start - segmentStart];
+                start = segmentEnd;
+                index++;
+            }
 
-                charStart = segmentEnd;
-                runIndex++;
-            } while (charStart < charEnd);
+            return (float) extent;
         }
 
-        return extent;
+        return 0.0f;
     }
 }
@@ -35,6 +35,7 @@ import com.mta.tehreer.unicode.BidiRun;
 import com.mta.tehreer.unicode.Script;
 import com.mta.tehreer.unicode.ScriptClassifier;
 import com.mta.tehreer.unicode.ScriptRun;
+import com.mta.tehreer.unicode.TextBuffer;
 
 import java.util.List;
 
@@ -44,14 +45,18 @@ public class ShapeResolver {
     public static void fillRuns(@NonNull String text, @NonNull Spanned spanned,
                                 @NonNull List<Object> defaultSpans, @NonNull byte[] breaks,
                                 @NonNull List<BidiParagraph> paragraphs, @NonNull List<TextRun> runs) {
+        TextBuffer textBuffer = null;
         BidiAlgorithm bidiAlgorithm = null;
         ShapingEngine shapingEngine = null;
+        ShapingResult shapingResult = null;
 
         try {
-            bidiAlgorithm = new BidiAlgorithm(text);
+            textBuffer = new TextBuffer(text);
+            bidiAlgorithm = new BidiAlgorithm(textBuffer);
             shapingEngine = new ShapingEngine();
+            shapingResult = new ShapingResult();
 
-            ScriptClassifier scriptClassifier = new ScriptClassifier(text);
+            ScriptClassifier scriptClassifier = new ScriptClassifier(textBuffer);
             ShapingRunLocator locator = new ShapingRunLocator(spanned, defaultSpans);
 
             BaseDirection baseDirection = BaseDirection.DEFAULT_LEFT_TO_RIGHT;
@@ -63,25 +68,8 @@ public class ShapeResolver {
 
             while (paragraphStart != suggestedEnd) {
                 BidiParagraph paragraph = bidiAlgorithm.createParagraph(paragraphStart, suggestedEnd, baseDirection);
-                for (BidiRun bidiRun : paragraph.getLogicalRuns()) {
-                    for (ScriptRun scriptRun : scriptClassifier.getScriptRuns(bidiRun.charStart, bidiRun.charEnd)) {
-                        int scriptTag = Script.getOpenTypeTag(scriptRun.script);
-                        WritingDirection writingDirection = ShapingEngine.getScriptDirection(scriptTag);
-
-                        boolean isOddLevel = ((bidiRun.embeddingLevel & 1) == 1);
-                        boolean isBackward = (isOddLevel && writingDirection == WritingDirection.LEFT_TO_RIGHT)
-                                           | (!isOddLevel && writingDirection == WritingDirection.RIGHT_TO_LEFT);
-                        ShapingOrder shapingOrder = (isBackward ? ShapingOrder.BACKWARD : ShapingOrder.FORWARD);
-
-                        locator.reset(scriptRun.charStart, scriptRun.charEnd);
-
-                        shapingEngine.setScriptTag(scriptTag);
-                        shapingEngine.setWritingDirection(writingDirection);
-                        shapingEngine.setShapingOrder(shapingOrder);
-
-                        resolveTypefaces(text, spanned, runs, locator, shapingEngine, bidiRun.embeddingLevel);
-                    }
-                }
+                shapeParagraph(textBuffer, spanned, paragraph, scriptClassifier, locator,
+                               shapingEngine, shapingResult, 0, runs);
                 paragraphs.add(paragraph);
 
                 breaks[paragraph.getCharStart()] |= backwardType;
@@ -90,19 +78,92 @@ public class ShapeResolver {
                 paragraphStart = paragraph.getCharEnd();
             }
         } finally {
+            if (shapingResult != null) {
+                shapingResult.dispose();
+            }
             if (shapingEngine != null) {
                 shapingEngine.dispose();
             }
             if (bidiAlgorithm != null) {
                 bidiAlgorithm.dispose();
             }
+            if (textBuffer != null) {
+                textBuffer.dispose();
+            }
+        }
+    }
+
+    /**
+     * Shapes a single paragraph, adding its runs in logical order.
+     *
+     * @param charOffset The index of spanned text at which the text buffer starts. The runs are
+     *                   placed at indexes of spanned text.
+     */
+    public static void shapeParagraph(@NonNull TextBuffer textBuffer, @NonNull Spanned spanned,
+                                      @NonNull BidiParagraph paragraph,
+                                      @NonNull ScriptClassifier scriptClassifier,
+                                      @NonNull ShapingRunLocator locator,
+                                      @NonNull ShapingEngine shapingEngine,
+                                      @NonNull ShapingResult shapingResult, int charOffset,
+                                      @NonNull List<TextRun> runs) {
+        for (BidiRun bidiRun : paragraph.getLogicalRuns()) {
+            for (ScriptRun scriptRun : scriptClassifier.getScriptRuns(bidiRun.charStart, bidiRun.charEnd)) {
+                int scriptTag = Script.getOpenTypeTag(scriptRun.script);
+                WritingDirection writingDirection = ShapingEngine.getScriptDirection(scriptTag);
+
+                boolean isOddLevel = ((bidiRun.embeddingLevel & 1) == 1);
+                boolean isBackward = (isOddLevel && writingDirection == WritingDirection.LEFT_TO_RIGHT)
+                                   | (!isOddLevel && writingDirection == WritingDirection.RIGHT_TO_LEFT);
+                ShapingOrder shapingOrder = (isBackward ? ShapingOrder.BACKWARD : ShapingOrder.FORWARD);
+
+                locator.reset(scriptRun.charStart + charOffset, scriptRun.charEnd + charOffset);
+
+                shapingEngine.setScriptTag(scriptTag);
+                shapingEngine.setWritingDirection(writingDirection);
+                shapingEngine.setShapingOrder(shapingOrder);
+
+                resolveTypefaces(textBuffer, spanned, runs, locator,
+                                 shapingEngine, shapingResult, charOffset, bidiRun.embeddingLevel);
+            }
         }
     }
 
-    private static void resolveTypefaces(@NonNull String text, @NonNull Spanned spanned,
+    /**
+     * Returns a copy of an already resolved run moved by the given number of characters. The
+     * shaped data is shared with the original run.
+     */
+    public static @NonNull TextRun shiftRun(@NonNull TextRun textRun, @NonNull Spanned spanned,
+                                            int charShift) {
+        if (textRun instanceof IntrinsicRun) {
+            IntrinsicRun run = (IntrinsicRun) textRun;
+
+            return new IntrinsicRun(run.charStart + charShift, run.charEnd + charShift,
+                                    run.isBackward, run.bidiLevel, run.writingDirection,
+                                    run.typeface, run.typeSize,
+                                    run.ascent, run.descent, run.leading,
+                                    run.glyphIds, run.glyphOffsets, run.glyphAdvances,
+                                    run.clusterMap, run.caretEdges);
+        }
+
+        if (textRun instanceof ReplacementRun) {
+            ReplacementRun run = (ReplacementRun) textRun;
+
+            return new ReplacementRun(spanned, run.charStart + charShift, run.charEnd + charShift,
+                                      run.bidiLevel, run.replacement, run.paint,
+                                      run.typeface, run.typeSize,
+                                      run.ascent, run.descent, run.leading,
+                                      run.extent, run.caretEdges);
+        }
+
+        throw new IllegalArgumentException("Unsupported run: " + textRun.getClass().getName());
+    }
+
+    private static void resolveTypefaces(@NonNull TextBuffer textBuffer, @NonNull Spanned spanned,
                                          @NonNull List<TextRun> runs,
                                          @NonNull ShapingRunLocator locator,
-                                         @NonNull ShapingEngine engine, byte bidiLevel) {
+                                         @NonNull ShapingEngine engine,
+                                         @NonNull ShapingResult shapingResult, int charOffset,
+                                         byte bidiLevel) {
         Paint paint = null;
         Paint.FontMetricsInt metrics = null;
 
@@ -126,44 +187,43 @@ public class ShapeResolver {
                 engine.setTypeface(typeface);
                 engine.setTypeSize(typeSize);
 
-                ShapingResult shapingResult = null;
-
-                try {
-                    shapingResult = engine.shapeText(text, runStart, runEnd);
-
-                    WritingDirection writingDirection = engine.getWritingDirection();
-                    boolean isBackward = shapingResult.isBackward();
-                    int[] glyphIds = shapingResult.getGlyphIds().toArray();
-                    float[] offsets = shapingResult.getGlyphOffsets().toArray();
-                    float[] advances = shapingResult.getGlyphAdvances().toArray();
-                    int[] clusterMap = shapingResult.getClusterMap().toArray();
-                    FloatList caretEdges = shapingResult.getCaretEdges(null);
-
-                    float scaleX = locator.getScaleX();
-                    if (Float.compare(scaleX, 1.0f) != 0) {
-                        for (int i = 0; i < glyphIds.length; i++) {
-                            offsets[i * 2] *= scaleX;
-                            advances[i] *= scaleX;
-                        }
-                    }
+                engine.shapeText(shapingResult, textBuffer, runStart - charOffset, runEnd - charOffset);
+
+                WritingDirection writingDirection = engine.getWritingDirection();
+                boolean isBackward = shapingResult.isBackward();
+                int glyphCount = shapingResult.getGlyphCount();
+
+                int[] glyphIds = new int[glyphCount];
+                float[] offsets = new float[glyphCount * 2];
+                float[] advances = new float[glyphCount];
+                int[] clusterMap = new int[runEnd - runStart];
 
-                    float baselineShift = locator.getBaselineShift();
-                    if (Float.compare(baselineShift, 0.0f) != 0) {
-                        for (int i = 0; i < glyphIds.length; i++) {
-                            offsets[(i * 2) + 1] += baselineShift;
-                        }
+                shapingResult.copyGlyphIds(glyphIds, 0);
+                shapingResult.copyGlyphOffsets(offsets, 0);
+                shapingResult.copyGlyphAdvances(advances, 0);
+                shapingResult.copyClusterMap(clusterMap, 0);
+                FloatList caretEdges = shapingResult.getCaretEdges(null);
+
+                float scaleX = locator.getScaleX();
+                if (Float.compare(scaleX, 1.0f) != 0) {
+                    for (int i = 0; i < glyphIds.length; i++) {
+                        offsets[i * 2] *= scaleX;
+                        advances[i] *= scaleX;
                     }
+                }
 
-                    textRun = new IntrinsicRun(runStart, runEnd, isBackward, bidiLevel,
-                                               writingDirection, typeface, typeSize,
-                                               ascent, descent, leading,
-                                               glyphIds, offsets, advances,
-                                               clusterMap, caretEdges);
-                } finally {
-                    if (shapingResult != null) {
-                        shapingResult.dispose();
+                float baselineShift = locator.getBaselineShift();
+                if (Float.compare(baselineShift, 0.0f) != 0) {
+                    for (int i = 0; i < glyphIds.length; i++) {
+                        offsets[(i * 2) + 1] += baselineShift;
                     }
                 }
+
+                textRun = new IntrinsicRun(runStart, runEnd, isBackward, bidiLevel,
+                                           writingDirection, typeface, typeSize,
+                                           ascent, descent, leading,
+                                           glyphIds, offsets, advances,
+                                           clusterMap, caretEdges);
             } else {
                 if (paint == null) {
                     paint = new Paint();
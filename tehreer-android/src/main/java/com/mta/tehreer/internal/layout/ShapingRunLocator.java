@@ -37,8 +37,10 @@ import com.mta.tehreer.graphics.TypeWeight;
 import com.mta.tehreer.graphics.TypeWidth;
 import com.mta.tehreer.graphics.Typeface;
 import com.mta.tehreer.graphics.TypefaceManager;
+import com.mta.tehreer.layout.style.FallbackSpan;
 import com.mta.tehreer.layout.style.TypeSizeSpan;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class ShapingRunLocator {
@@ -48,6 +50,7 @@ public class ShapingRunLocator {
     private int mLimit;
     private ShapingRun mCurrent;
     private ShapingRun mNext;
+    private Candidates mCandidates;
 
     private static class ShapingRun {
         int start;
@@ -61,6 +64,63 @@ public class ShapingRunLocator {
         float typeSize;
         float scaleX;
         float baselineShift;
+
+        List<TypeFamily> fallbacks;
+
+        @NonNull ShapingRun copy() {
+            ShapingRun shapingRun = new ShapingRun();
+            shapingRun.start = start;
+            shapingRun.end = end;
+            shapingRun.replacement = replacement;
+            shapingRun.typeface = typeface;
+            shapingRun.typeWeight = typeWeight;
+            shapingRun.typeSlope = typeSlope;
+            shapingRun.typeSize = typeSize;
+            shapingRun.scaleX = scaleX;
+            shapingRun.baselineShift = baselineShift;
+            shapingRun.fallbacks = fallbacks;
+
+            return shapingRun;
+        }
+    }
+
+    /**
+     * The typefaces of a fallback chain in order of preference, along with their coverage caches,
+     * resolved for a particular style.
+     */
+    private static class Candidates {
+        final Typeface primary;
+        final List<TypeFamily> fallbacks;
+        final TypeWeight typeWeight;
+        final TypeSlope typeSlope;
+
+        final @NonNull List<Typeface> typefaces;
+        final @NonNull List<CoverageCache> coverages;
+
+        Candidates(@NonNull ShapingRun shapingRun) {
+            primary = shapingRun.typeface;
+            fallbacks = shapingRun.fallbacks;
+            typeWeight = shapingRun.typeWeight;
+            typeSlope = shapingRun.typeSlope;
+
+            int capacity = fallbacks.size() + 1;
+            typefaces = new ArrayList<>(capacity);
+            coverages = new ArrayList<>(capacity);
+        }
+
+        boolean matches(@NonNull ShapingRun shapingRun) {
+            return primary == shapingRun.typeface
+                && fallbacks == shapingRun.fallbacks
+                && typeWeight == shapingRun.typeWeight
+                && typeSlope == shapingRun.typeSlope;
+        }
+
+        void add(@NonNull Typeface typeface) {
+            if (!typefaces.contains(typeface)) {
+                typefaces.add(typeface);
+                coverages.add(CoverageCache.of(typeface));
+            }
+        }
     }
 
     public ShapingRunLocator(@NonNull Spanned spanned, @NonNull List<Object> defaultSpans) {
@@ -93,6 +153,7 @@ public class ShapingRunLocator {
             shapingRun.typeSlope = initial.typeSlope;
             shapingRun.typeSize = initial.typeSize;
             shapingRun.scaleX = initial.scaleX;
+            shapingRun.fallbacks = initial.fallbacks;
 
             resolveSpans(shapingRun, spans);
 
@@ -145,6 +206,9 @@ public class ShapingRunLocator {
                 resolveBaselineShift(shapingRun, -0.5f);
             } else if (span instanceof ReplacementSpan) {
                 shapingRun.replacement = (ReplacementSpan) span;
+            } else if (span instanceof FallbackSpan) {
+                FallbackSpan fallbackSpan = (FallbackSpan) span;
+                shapingRun.fallbacks = fallbackSpan.getFamilies();
             }
         }
 
@@ -200,6 +264,105 @@ public class ShapingRunLocator {
         }
     }
 
+    private static @NonNull Candidates resolveCandidates(@NonNull ShapingRun shapingRun) {
+        Candidates candidates = new Candidates(shapingRun);
+        Typeface primary = shapingRun.typeface;
+        TypeWidth typeWidth = TypeWidth.NORMAL;
+
+        if (primary != null) {
+            candidates.add(primary);
+            typeWidth = primary.getWidth();
+        }
+
+        for (TypeFamily family : shapingRun.fallbacks) {
+            candidates.add(family.getTypefaceByStyle(typeWidth, shapingRun.typeWeight, shapingRun.typeSlope));
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Checks whether a code point continues the cluster of preceding character, in which case it
+     * should be shaped with the same typeface regardless of coverage.
+     */
+    private static boolean isClusterExtender(int codePoint) {
+        switch (Character.getType(codePoint)) {
+        case Character.NON_SPACING_MARK:
+        case Character.ENCLOSING_MARK:
+        case Character.COMBINING_SPACING_MARK:
+            return true;
+        }
+
+        return codePoint == 0x200C || codePoint == 0x200D                   // ZWNJ, ZWJ
+            || (codePoint >= 0xFE00 && codePoint <= 0xFE0F)                 // Variation Selectors
+            || (codePoint >= 0x1F3FB && codePoint <= 0x1F3FF)               // Emoji Modifiers
+            || (codePoint >= 0xE0020 && codePoint <= 0xE007F)               // Tags
+            || (codePoint >= 0xE0100 && codePoint <= 0xE01EF);              // Variation Selectors Supplement
+    }
+
+    private static int selectTypeface(@NonNull List<CoverageCache> coverages, int codePoint) {
+        int count = coverages.size();
+        for (int i = 0; i < count; i++) {
+            if (coverages.get(i).covers(codePoint)) {
+                return i;
+            }
+        }
+
+        // No typeface supports the code point, so let the preferred one render its missing glyph.
+        return 0;
+    }
+
+    /**
+     * Shortens the given run to its longest prefix that can be shaped with a single typeface of
+     * the fallback chain, and returns the rest of it, if any.
+     */
+    private @Nullable ShapingRun splitByCoverage(@NonNull ShapingRun shapingRun) {
+        // Consecutive runs of the same style, such as the remainders of a split, share candidates.
+        Candidates candidates = mCandidates;
+        if (candidates == null || !candidates.matches(shapingRun)) {
+            candidates = resolveCandidates(shapingRun);
+            mCandidates = candidates;
+        }
+
+        List<CoverageCache> coverages = candidates.coverages;
+        if (coverages.isEmpty()) {
+            return null;
+        }
+
+        int chosen = -1;
+        int index = shapingRun.start;
+
+        while (index < shapingRun.end) {
+            int codePoint = Character.codePointAt(spanned, index);
+            int selected;
+
+            if (chosen != -1 && (isClusterExtender(codePoint)
+                    || (Character.isWhitespace(codePoint) && coverages.get(chosen).covers(codePoint)))) {
+                selected = chosen;
+            } else {
+                selected = selectTypeface(coverages, codePoint);
+            }
+
+            if (chosen == -1) {
+                chosen = selected;
+            } else if (selected != chosen) {
+                break;
+            }
+
+            index = Math.min(index + Character.charCount(codePoint), shapingRun.end);
+        }
+
+        ShapingRun remainder = null;
+        if (index < shapingRun.end) {
+            remainder = shapingRun.copy();
+            remainder.start = index;
+            shapingRun.end = index;
+        }
+        shapingRun.typeface = candidates.typefaces.get(chosen);
+
+        return remainder;
+    }
+
     public void reset(int charStart, int charEnd) {
         mLimit = charEnd;
         mCurrent = null;
@@ -217,13 +380,22 @@ public class ShapingRunLocator {
                         && Float.compare(current.typeSize, next.typeSize) == 0
                         && Float.compare(current.scaleX, next.scaleX) == 0
                         && Float.compare(current.baselineShift, next.baselineShift) == 0
-                        && current.replacement == next.replacement) {
+                        && current.replacement == next.replacement
+                        && current.fallbacks == next.fallbacks) {
                     current.end = next.end;
                 } else {
                     break;
                 }
             }
 
+            if (current.fallbacks != null && current.replacement == null) {
+                ShapingRun remainder = splitByCoverage(current);
+                if (remainder != null) {
+                    // The remainder keeps its original typeface so that it is split on its own.
+                    next = remainder;
+                }
+            }
+
             mCurrent = current;
             mNext = next;
             return true;
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.layout;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mta.tehreer.layout.ComposedLine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the shaped truncation tokens of a single typeface. Each typeface owns its cache, so the
+ * tokens, which reference the typeface through their glyph runs, are released along with it.
+ */
+public final class TokenCache {
+    private static final int MAX_CACHED_TOKENS = 8;
+
+    private static final class Key {
+        final float typeSize;
+        final @Nullable String tokenStr;
+
+        Key(float typeSize, @Nullable String tokenStr) {
+            this.typeSize = typeSize;
+            this.tokenStr = tokenStr;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+            return Float.compare(typeSize, other.typeSize) == 0
+                && (tokenStr == null ? other.tokenStr == null : tokenStr.equals(other.tokenStr));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Float.floatToIntBits(typeSize);
+            result = 31 * result + (tokenStr != null ? tokenStr.hashCode() : 0);
+
+            return result;
+        }
+    }
+
+    private final Map<Key, ComposedLine> mTokens = new LinkedHashMap<Key, ComposedLine>(MAX_CACHED_TOKENS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ComposedLine> eldest) {
+            return size() > MAX_CACHED_TOKENS;
+        }
+    };
+
+    synchronized @Nullable ComposedLine get(float typeSize, @Nullable String tokenStr) {
+        return mTokens.get(new Key(typeSize, tokenStr));
+    }
+
+    synchronized void put(float typeSize, @Nullable String tokenStr, @NonNull ComposedLine token) {
+        mTokens.put(new Key(typeSize, tokenStr), token);
+    }
+}
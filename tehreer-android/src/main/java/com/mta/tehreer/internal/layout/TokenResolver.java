@@ -25,7 +25,8 @@ import com.mta.tehreer.layout.TruncationPlace;
 import com.mta.tehreer.layout.Typesetter;
 
 public class TokenResolver {
-    public static @NonNull ComposedLine createToken(@NonNull RunCollection runs,
+    public static @NonNull ComposedLine createToken(@NonNull ParagraphCollection paragraphs,
+                                                    @NonNull RunCollection runs,
                                                     int charStart, int charEnd,
                                                     @NonNull TruncationPlace truncationPlace,
                                                     @Nullable String tokenStr) {
@@ -37,7 +38,9 @@ public class TokenResolver {
             break;
 
         case MIDDLE:
-            truncationIndex = (charStart + charEnd) / 2;
+            // Stay in the first paragraph as the ones after it may be hidden and not analyzed.
+            int paragraphEnd = paragraphs.getParagraphEnd(paragraphs.binarySearch(charStart));
+            truncationIndex = Math.min((charStart + charEnd) / 2, paragraphEnd - 1);
             break;
 
         case END:
@@ -50,6 +53,25 @@ public class TokenResolver {
         Typeface tokenTypeface = suitableRun.getTypeface();
         float tokenTypeSize = suitableRun.getTypeSize();
 
+        if (tokenStr != null && tokenStr.length() == 0) {
+            tokenStr = null;
+        }
+
+        // Tokens are only read when they are placed in a truncated line, as their glyph runs are
+        // copied, so a shaped token can be shared among all lines using the same typeface and size.
+        TokenCache tokenCache = tokenTypeface.getTokenCache();
+        ComposedLine token = tokenCache.get(tokenTypeSize, tokenStr);
+
+        if (token == null) {
+            token = shapeToken(tokenTypeface, tokenTypeSize, tokenStr);
+            tokenCache.put(tokenTypeSize, tokenStr, token);
+        }
+
+        return token;
+    }
+
+    private static @NonNull ComposedLine shapeToken(@NonNull Typeface tokenTypeface, float tokenTypeSize,
+                                                    @Nullable String tokenStr) {
         if (tokenStr == null || tokenStr.length() == 0) {
             // Token string is not given. Use ellipsis character if available; fallback to three
             // dot characters.
@@ -63,6 +85,9 @@ public class TokenResolver {
         }
 
         Typesetter typesetter = new Typesetter(tokenStr, tokenTypeface, tokenTypeSize);
-        return typesetter.createSimpleLine(0, tokenStr.length());
+        ComposedLine token = typesetter.createSimpleLine(0, tokenStr.length());
+        typesetter.close();
+
+        return token;
     }
 }
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+/**
+ * Specifies the strategy for breaking paragraphs into lines.
+ */
+public enum BreakStrategy {
+    /**
+     * Fills each line with as much text as possible before moving on to the next one.
+     */
+    SIMPLE,
+    /**
+     * Considers the paragraph as a whole and chooses the line breaks that make the lines as even
+     * as possible, using the total-fit algorithm of Knuth and Plass.
+     */
+    OPTIMAL
+}
@@ -30,12 +30,13 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.mta.tehreer.internal.layout.BreakResolver;
+import com.mta.tehreer.internal.layout.OptimalBreakResolver;
 import com.mta.tehreer.internal.layout.ParagraphCollection;
 import com.mta.tehreer.internal.layout.RunCollection;
-import com.mta.tehreer.unicode.BidiParagraph;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
 import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
@@ -56,6 +57,7 @@ public class FrameResolver {
     private boolean mFitsVertically = false;
     private @NonNull TextAlignment mTextAlignment = TextAlignment.INTRINSIC;
     private @NonNull VerticalAlignment mVerticalAlignment = VerticalAlignment.TOP;
+    private @NonNull BreakStrategy mBreakStrategy = BreakStrategy.SIMPLE;
     private @NonNull BreakMode mTruncationMode = BreakMode.LINE;
     private @Nullable TruncationPlace mTruncationPlace = null;
     private int mMaxLines = 0;
@@ -198,6 +200,26 @@ public class FrameResolver {
         mVerticalAlignment = verticalAlignment;
     }
 
+    /**
+     * Returns the strategy used for breaking paragraphs into lines. The default value is
+     * {@link BreakStrategy#SIMPLE}.
+     *
+     * @return The current break strategy.
+     */
+    public @NonNull BreakStrategy getBreakStrategy() {
+        return mBreakStrategy;
+    }
+
+    /**
+     * Sets the strategy used for breaking paragraphs into lines.
+     *
+     * @param breakStrategy A value of {@link BreakStrategy}.
+     */
+    public void setBreakStrategy(@NonNull BreakStrategy breakStrategy) {
+        checkNotNull(breakStrategy, "breakStrategy");
+        mBreakStrategy = breakStrategy;
+    }
+
     /**
      * Returns the truncation mode to apply on the last line of a frame in case of overflow. The
      * default value is {@link BreakMode#LINE}.
@@ -384,72 +406,150 @@ public class FrameResolver {
     public @NonNull ComposedFrame createFrame(int charStart, int charEnd) {
         checkSubRange(charStart, charEnd);
 
-        FrameFiller frameFiller = new FrameFiller();
-        int paragraphIndex = mParagraphs.binarySearch(charStart);
-
-        int segmentStart = charStart;
-        int segmentEnd;
-
-        // Iterate over all paragraphs in provided range.
-        do {
-            BidiParagraph paragraph = mParagraphs.get(paragraphIndex);
-            segmentEnd = Math.min(charEnd, paragraph.getCharEnd());
-
-            // Setup the frame filler and add the lines.
-            frameFiller.charStart = segmentStart;
-            frameFiller.charEnd = segmentEnd;
-            frameFiller.baseLevel = paragraph.getBaseLevel();
-            frameFiller.addParagraphLines();
-
-            if (frameFiller.filled) {
-                break;
-            }
-
-            segmentStart = segmentEnd;
-            paragraphIndex++;
-        } while (segmentStart < charEnd);
-
+        FrameFiller frameFiller = new FrameFiller(charStart, charEnd);
+        frameFiller.startFrame(mFrameBounds);
+        frameFiller.fillLines();
         frameFiller.handleTruncation(charEnd);
-        frameFiller.resolveAlignments();
 
-        ComposedFrame frame = new ComposedFrame(mSpanned, charStart, frameFiller.frameEnd(), frameFiller.frameLines);
-        frame.setContainerRect(mFrameBounds.left, mFrameBounds.top, frameFiller.layoutWidth, frameFiller.layoutHeight);
+        return frameFiller.finishFrame(mFrameBounds);
+    }
+
+    /**
+     * Creates a paginator which lays out the specified string range of source text into
+     * consecutive frames.
+     * <p>
+     * The paginator works on a snapshot of the current properties of this resolver, so this
+     * resolver can be modified or reused right away without affecting the paginator.
+     *
+     * @param charStart The index to first character of the first frame in source text.
+     * @param charEnd The index after the last character of the last frame in source text.
+     * @return A new paginator object.
+     *
+     * @throws IllegalArgumentException if <code>charStart</code> is negative, or
+     *         <code>charEnd</code> is greater than the length of source text, or
+     *         <code>charStart</code> is greater than or equal to <code>charEnd</code>.
+     */
+    public @NonNull Paginator createPaginator(int charStart, int charEnd) {
+        checkSubRange(charStart, charEnd);
 
-        return frame;
+        FrameResolver resolver = new FrameResolver();
+        resolver.setTypesetter(mTypesetter);
+        resolver.mFrameBounds.set(mFrameBounds);
+        resolver.mFitsHorizontally = mFitsHorizontally;
+        resolver.mFitsVertically = mFitsVertically;
+        resolver.mTextAlignment = mTextAlignment;
+        resolver.mVerticalAlignment = mVerticalAlignment;
+        resolver.mBreakStrategy = mBreakStrategy;
+        resolver.mTruncationMode = mTruncationMode;
+        resolver.mTruncationPlace = mTruncationPlace;
+        resolver.mMaxLines = mMaxLines;
+        resolver.mExtraLineSpacing = mExtraLineSpacing;
+        resolver.mLineHeightMultiplier = mLineHeightMultiplier;
+
+        return new Paginator(resolver, resolver.new FrameFiller(charStart, charEnd));
     }
 
-    private class FrameFiller {
-        final List<ComposedLine> frameLines = new ArrayList<>();
+    class FrameFiller {
+        List<ComposedLine> frameLines;
         float layoutWidth;
         float layoutHeight;
-        int maxLines;
+        final int maxLines;
+
+        final int rangeEnd;
+        int frameStart;
+        int lineStart;
 
         int charStart;
         int charEnd;
         byte baseLevel;
 
         ParagraphStyle[] paragraphSpans;
-        LineHeightSpan[] pickHeightSpans;
-        int[] pickHeightTops;
+        LineHeightSpan[] pickHeightSpans = new LineHeightSpan[0];
+        int[] pickHeightTops = new int[0];
 
         int leadingLineCount = 1;
+        boolean leadingLinePending = false;
         Paint.FontMetricsInt fontMetrics;
 
+        float leadingMargin;
+        float trailingMargin;
+        float lineMargin;
+        float flushFactor;
+        int[] lineEnds;
+        int lineIndex;
+
         float lineExtent = 0.0f;
         float leadingOffset = 0.0f;
 
         float lineTop = 0.0f;
+        int stopIndex = Integer.MAX_VALUE;
         boolean filled = false;
+        volatile boolean cancelled = false;
 
         float lastFlushFactor = 0.0f;
 
-        FrameFiller() {
-            layoutWidth = mFrameBounds.width();
-            layoutHeight = mFrameBounds.height();
+        FrameFiller(int charStart, int charEnd) {
+            rangeEnd = charEnd;
+            lineStart = charStart;
+            this.charEnd = charStart;
 
             maxLines = (mMaxLines > 0 ? mMaxLines : Integer.MAX_VALUE);
         }
 
+        boolean hasRemainingText() {
+            return lineStart < rangeEnd;
+        }
+
+        void startFrame(@NonNull RectF frameBounds) {
+            float oldWidth = layoutWidth;
+
+            frameLines = new ArrayList<>();
+            layoutWidth = frameBounds.width();
+            layoutHeight = frameBounds.height();
+            frameStart = lineStart;
+            filled = false;
+
+            // Make the tops of line height spans relative to the new frame.
+            int frameTop = (int) (lineTop + 0.5f);
+            for (int i = 0; i < pickHeightTops.length; i++) {
+                pickHeightTops[i] -= frameTop;
+            }
+            lineTop = 0.0f;
+
+            if (leadingLinePending) {
+                leadingLinePending = false;
+                advanceLeadingLine();
+            }
+
+            // Adapt the remaining lines of a broken paragraph to the width of new frame.
+            if (lineStart != charEnd && layoutWidth != oldWidth) {
+                updateLineExtent();
+
+                if (lineEnds != null) {
+                    lineEnds = suggestLineEnds();
+                    lineIndex = 0;
+                }
+            }
+        }
+
+        void fillLines() {
+            while (!filled && lineStart < rangeEnd) {
+                if (lineStart == charEnd) {
+                    startParagraph();
+                }
+                addParagraphLines();
+            }
+        }
+
+        @NonNull ComposedFrame finishFrame(@NonNull RectF frameBounds) {
+            resolveAlignments();
+
+            ComposedFrame frame = new ComposedFrame(mSpanned, frameStart, frameEnd(), frameLines);
+            frame.setContainerRect(frameBounds.left, frameBounds.top, layoutWidth, layoutHeight);
+
+            return frame;
+        }
+
         int frameEnd() {
             return frameLines.get(frameLines.size() - 1).getCharEnd();
         }
@@ -489,14 +589,42 @@ public class FrameResolver {
         }
 
         void resolveLeadingOffset() {
-            if ((baseLevel & 1) == 0) {
-                leadingOffset = layoutWidth - lineExtent;
+            // The margin of a right-to-left paragraph lies on the right side.
+            leadingOffset = ((baseLevel & 1) == 0 ? layoutWidth - lineExtent : 0.0f);
+        }
+
+        void updateLineExtent() {
+            lineExtent = layoutWidth - lineMargin;
+            resolveLeadingOffset();
+        }
+
+        void advanceLeadingLine() {
+            // Find out extent of next line.
+            if (--leadingLineCount <= 0) {
+                lineMargin = trailingMargin;
+                updateLineExtent();
             }
         }
 
-        void addParagraphLines() {
-            float leadingLineExtent = layoutWidth;
-            float trailingLineExtent = layoutWidth;
+        @Nullable int[] suggestLineEnds() {
+            // The first line always takes the current extent, even if the leading lines are
+            // exhausted.
+            return OptimalBreakResolver.suggestBreaks(mSpanned, mRuns, mBreaks, lineStart, charEnd,
+                                                      lineExtent, Math.max(leadingLineCount, 1),
+                                                      layoutWidth - trailingMargin);
+        }
+
+        void startParagraph() {
+            mTypesetter.ensureAnalyzed(lineStart, lineStart + 1);
+
+            int paragraphIndex = mParagraphs.binarySearch(lineStart);
+            charStart = lineStart;
+            charEnd = Math.min(rangeEnd, mParagraphs.getParagraphEnd(paragraphIndex));
+            baseLevel = mParagraphs.get(paragraphIndex).getBaseLevel();
+
+            leadingMargin = 0.0f;
+            trailingMargin = 0.0f;
+            leadingLineCount = 1;
 
             // Extract all spans of this paragraph.
             paragraphSpans = mSpanned.getSpans(charStart, charEnd, ParagraphStyle.class);
@@ -505,8 +633,8 @@ public class FrameResolver {
             for (ParagraphStyle style : paragraphSpans) {
                 if (style instanceof LeadingMarginSpan) {
                     LeadingMarginSpan span = (LeadingMarginSpan) style;
-                    leadingLineExtent -= span.getLeadingMargin(true);
-                    trailingLineExtent -= span.getLeadingMargin(false);
+                    leadingMargin += span.getLeadingMargin(true);
+                    trailingMargin += span.getLeadingMargin(false);
 
                     if (span instanceof LeadingMarginSpan2) {
                         LeadingMarginSpan2 span2 = (LeadingMarginSpan2) span;
@@ -519,40 +647,74 @@ public class FrameResolver {
             }
 
             // Extract line height spans and create font metrics if necessary.
+            LineHeightSpan[] previousSpans = pickHeightSpans;
+            int[] previousTops = pickHeightTops;
             pickHeightSpans = mSpanned.getSpans(charStart, charEnd, LineHeightSpan.class);
             int chooseHeightCount = pickHeightSpans.length;
             if (chooseHeightCount > 0 && fontMetrics == null) {
                 fontMetrics = new Paint.FontMetricsInt();
             }
 
-            // Setup array for caching top of first line related to each line height span.
-            if (pickHeightTops == null || pickHeightTops.length < chooseHeightCount) {
-                pickHeightTops = new int[chooseHeightCount];
-            }
+            // Setup array for caching top of first line related to each line height span. A new
+            // array is needed as the previous tops are looked up for spans continuing from a
+            // previous frame.
+            pickHeightTops = new int[chooseHeightCount];
 
             // Compute top of first line related to each line height span.
             for (int i = 0; i < chooseHeightCount; i++) {
-                int spanStart = mSpanned.getSpanStart(pickHeightSpans[i]);
+                LineHeightSpan span = pickHeightSpans[i];
+                int spanStart = mSpanned.getSpanStart(span);
                 int spanTop = (int) (lineTop + 0.5f);
 
                 // Fix span top in case it starts in a previous paragraph.
                 if (spanStart < charStart) {
-                    int lineIndex = binarySearch(spanStart);
-                    ComposedLine spanLine = frameLines.get(lineIndex);
-                    spanTop = (int) (spanLine.getTop() + 0.5f);
+                    int spanLineIndex = binarySearch(spanStart);
+                    if (spanLineIndex >= 0) {
+                        ComposedLine spanLine = frameLines.get(spanLineIndex);
+                        spanTop = (int) (spanLine.getTop() + 0.5f);
+                    } else {
+                        // The span started in a previous frame, so carry over its top.
+                        for (int j = 0; j < previousSpans.length; j++) {
+                            if (previousSpans[j] == span) {
+                                spanTop = previousTops[j];
+                                break;
+                            }
+                        }
+                    }
                 }
 
                 pickHeightTops[i] = spanTop;
             }
 
-            float flushFactor = computeFlushFactor();
-            lineExtent = leadingLineExtent;
-            resolveLeadingOffset();
+            flushFactor = computeFlushFactor();
+            lineMargin = leadingMargin;
+            updateLineExtent();
+
+            // Find all line breaks of the paragraph up front if it is to be broken as a whole.
+            lineEnds = null;
+            lineIndex = 0;
+            if (mBreakStrategy == BreakStrategy.OPTIMAL) {
+                lineEnds = suggestLineEnds();
+            }
+        }
 
+        void addParagraphLines() {
             // Iterate over each line of this paragraph.
-            int lineStart = charStart;
             while (lineStart != charEnd) {
-                int lineEnd = BreakResolver.suggestForwardBreak(mSpanned, mRuns, mBreaks, lineStart, charEnd, lineExtent, BreakMode.LINE);
+                if (cancelled) {
+                    throw new CancellationException();
+                }
+                if (lineStart >= stopIndex) {
+                    filled = true;
+                    return;
+                }
+
+                int lineEnd;
+                if (lineEnds != null) {
+                    lineEnd = lineEnds[lineIndex];
+                } else {
+                    lineEnd = BreakResolver.suggestForwardBreak(mSpanned, mRuns, mBreaks, lineStart, charEnd, lineExtent, BreakMode.LINE);
+                }
                 ComposedLine composedLine = mLineResolver.createSimpleLine(lineStart, lineEnd);
                 prepareLine(composedLine, flushFactor);
 
@@ -567,20 +729,19 @@ public class FrameResolver {
                 frameLines.add(composedLine);
                 lastFlushFactor = flushFactor;
 
-                // Stop the filling process if maximum lines have been added.
+                lineIndex++;
+                lineStart = lineEnd;
+                lineTop += lineHeight;
+
+                // Stop the filling process if maximum lines have been added. The extent of last
+                // line is kept for truncation, so the next one is resolved in the next frame.
                 if (frameLines.size() == maxLines) {
+                    leadingLinePending = true;
                     filled = true;
                     return;
                 }
 
-                // Find out extent of next line.
-                if (--leadingLineCount <= 0) {
-                    lineExtent = trailingLineExtent;
-                    resolveLeadingOffset();
-                }
-
-                lineStart = lineEnd;
-                lineTop += lineHeight;
+                advanceLeadingLine();
             }
         }
 
@@ -198,15 +198,64 @@ class LineResolver {
         }
 
         void addAllRuns() {
-            mBidiParagraphs.forEachLineRun(charStart, charEnd, this);
+            int firstIndex = mBidiParagraphs.binarySearch(charStart);
+            int lastIndex = mBidiParagraphs.binarySearch(charEnd - 1);
+            if (firstIndex == lastIndex) {
+                mBidiParagraphs.forEachLineRun(charStart, charEnd, this);
+                return;
+            }
+
+            // Visit the paragraphs in the same order as a line spanning all of them would, but
+            // without touching the ones hidden by truncation, so that they need no analysis.
+            boolean isRTL = (mBidiParagraphs.get(firstIndex).getBaseLevel() & 1) == 1;
+            int next = (isRTL ? -1 : 1);
+            int paragraphIndex = (isRTL ? lastIndex : firstIndex);
+            int stopIndex = (isRTL ? firstIndex : lastIndex) + next;
+
+            for (; paragraphIndex != stopIndex; paragraphIndex += next) {
+                int feasibleStart = Math.max(mBidiParagraphs.getParagraphStart(paragraphIndex), charStart);
+                int feasibleEnd = Math.min(mBidiParagraphs.getParagraphEnd(paragraphIndex), charEnd);
+
+                if (feasibleStart >= skipStart && feasibleEnd <= skipEnd) {
+                    // A hidden paragraph adds no runs; only mark the token positions it borders.
+                    if (feasibleStart == skipStart) {
+                        leadingTokenIndex = runList.size();
+                    }
+                    if (feasibleEnd == skipEnd) {
+                        trailingTokenIndex = runList.size();
+                    }
+                } else {
+                    mBidiParagraphs.forEachLineRun(feasibleStart, feasibleEnd, this);
+                }
+            }
         }
     }
 
+    private int suggestForwardBreak(int start, int end, float extent,
+                                    @NonNull byte[] breaks, @NonNull BreakMode mode) {
+        // A forward break never goes past the end of first paragraph.
+        int paragraphEnd = mBidiParagraphs.getParagraphEnd(mBidiParagraphs.binarySearch(start));
+        int searchEnd = Math.min(end, paragraphEnd);
+
+        return BreakResolver.suggestForwardTruncationBreak(mSpanned, mIntrinsicRuns, breaks,
+                                                           start, searchEnd, extent, mode);
+    }
+
+    private int suggestBackwardBreak(int start, int end, float extent,
+                                     @NonNull byte[] breaks, @NonNull BreakMode mode) {
+        // A backward break never goes before the start of last paragraph.
+        int paragraphStart = mBidiParagraphs.getParagraphStart(mBidiParagraphs.binarySearch(end - 1));
+        int searchStart = Math.max(start, paragraphStart);
+
+        return BreakResolver.suggestBackwardTruncationBreak(mSpanned, mIntrinsicRuns, breaks,
+                                                            searchStart, end, extent, mode);
+    }
+
     private @NonNull ComposedLine createStartTruncatedLine(int start, int end, float tokenlessWidth,
                                                            @NonNull byte[] breaks,
                                                            @NonNull BreakMode mode,
                                                            @NonNull ComposedLine token) {
-        int truncatedStart = BreakResolver.suggestBackwardBreak(mSpanned, mIntrinsicRuns, breaks, start, end, tokenlessWidth, mode);
+        int truncatedStart = suggestBackwardBreak(start, end, tokenlessWidth, breaks, mode);
         if (truncatedStart > start) {
             ArrayList<GlyphRun> runList = new ArrayList<>();
             int tokenInsertIndex = 0;
@@ -231,8 +280,8 @@ class LineResolver {
                                                             @NonNull BreakMode mode,
                                                             @NonNull ComposedLine token) {
         float halfWidth = tokenlessWidth / 2.0f;
-        int firstMidEnd = BreakResolver.suggestForwardBreak(mSpanned, mIntrinsicRuns, breaks, start, end, halfWidth, mode);
-        int secondMidStart = BreakResolver.suggestBackwardBreak(mSpanned, mIntrinsicRuns, breaks, start, end, halfWidth, mode);
+        int firstMidEnd = suggestForwardBreak(start, end, halfWidth, breaks, mode);
+        int secondMidStart = suggestBackwardBreak(start, end, halfWidth, breaks, mode);
 
         if (firstMidEnd < secondMidStart) {
             // Exclude inner whitespaces as truncation token replaces them.
@@ -261,7 +310,7 @@ class LineResolver {
                                                          @NonNull byte[] breaks,
                                                          @NonNull BreakMode mode,
                                                          @NonNull ComposedLine token) {
-        int truncatedEnd = BreakResolver.suggestForwardBreak(mSpanned, mIntrinsicRuns, breaks, start, end, tokenlessWidth, mode);
+        int truncatedEnd = suggestForwardBreak(start, end, tokenlessWidth, breaks, mode);
         if (truncatedEnd < end) {
             // Exclude trailing whitespaces as truncation token replaces them.
             truncatedEnd = StringUtils.getTrailingWhitespaceStart(mSpanned, start, truncatedEnd);
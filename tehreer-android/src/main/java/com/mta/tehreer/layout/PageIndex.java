@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import android.graphics.RectF;
+
+import androidx.annotation.NonNull;
+
+import com.mta.tehreer.internal.layout.ParagraphAnalyzer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static com.mta.tehreer.internal.util.Preconditions.checkElementIndex;
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
+
+/**
+ * A page index keeps the start of each page of a paginated text so that any page can be laid out
+ * directly, without laying out the pages before it.
+ * <p>
+ * An index is valid only for the text, frame bounds and typesetting parameters it was created
+ * with. These are summarized by a layout key, which is stored along with the page starts so that
+ * a persisted index can be checked with {@link #matches(FrameResolver, long)} before being reused.
+ * The page starts are written as variable length deltas, taking about two bytes per page.
+ */
+public class PageIndex {
+    private static final int MAGIC = 0x54504749; // 'TPGI'
+    private static final int VERSION = 1;
+
+    private final long mLayoutKey;
+    private final int mCharEnd;
+    private final @NonNull int[] mPageStarts;
+
+    PageIndex(long layoutKey, int charEnd, @NonNull int[] pageStarts) {
+        mLayoutKey = layoutKey;
+        mCharEnd = charEnd;
+        mPageStarts = pageStarts;
+    }
+
+    /**
+     * Computes the layout key of a frame resolver for the given parameters hash. The key covers
+     * the length of source text, the width and height of frame bounds and all the properties of
+     * the resolver affecting the pagination.
+     *
+     * @param resolver The frame resolver to compute the key for.
+     * @param paramsHash A hash of the typesetting parameters that the resolver does not know about,
+     *                   such as the typeface and type size of the text.
+     * @return The layout key of the frame resolver.
+     *
+     * @throws NullPointerException if <code>resolver</code> is <code>null</code>.
+     */
+    public static long computeLayoutKey(@NonNull FrameResolver resolver, long paramsHash) {
+        checkNotNull(resolver, "resolver");
+
+        RectF frameBounds = resolver.getFrameBounds();
+        long hash = paramsHash;
+        hash = hash * 31 + resolver.getTypesetter().getSpanned().length();
+        hash = hash * 31 + Float.floatToIntBits(frameBounds.width());
+        hash = hash * 31 + Float.floatToIntBits(frameBounds.height());
+        hash = hash * 31 + (resolver.getFitsHorizontally() ? 1 : 0);
+        hash = hash * 31 + (resolver.getFitsVertically() ? 1 : 0);
+        hash = hash * 31 + resolver.getTextAlignment().ordinal();
+        hash = hash * 31 + resolver.getVerticalAlignment().ordinal();
+        hash = hash * 31 + resolver.getBreakStrategy().ordinal();
+        hash = hash * 31 + resolver.getMaxLines();
+        hash = hash * 31 + Float.floatToIntBits(resolver.getExtraLineSpacing());
+        hash = hash * 31 + Float.floatToIntBits(resolver.getLineHeightMultiplier());
+
+        return hash;
+    }
+
+    /**
+     * Paginates the specified range of source text and creates an index of its pages.
+     *
+     * @param resolver The frame resolver to paginate the text with.
+     * @param charStart The index to first character of the first page in source text.
+     * @param charEnd The index after the last character of the last page in source text.
+     * @param paramsHash A hash of the typesetting parameters that the resolver does not know about.
+     * @return A new page index.
+     *
+     * @throws NullPointerException if <code>resolver</code> is <code>null</code>.
+     * @throws IllegalArgumentException if <code>charStart</code> is negative, or
+     *         <code>charEnd</code> is greater than the length of source text, or
+     *         <code>charStart</code> is greater than or equal to <code>charEnd</code>.
+     */
+    public static @NonNull PageIndex create(@NonNull FrameResolver resolver,
+                                            int charStart, int charEnd, long paramsHash) {
+        checkNotNull(resolver, "resolver");
+
+        Paginator paginator = resolver.createPaginator(charStart, charEnd);
+        int[] pageStarts = new int[16];
+        int pageCount = 0;
+
+        while (paginator.hasNext()) {
+            if (pageCount == pageStarts.length) {
+                pageStarts = Arrays.copyOf(pageStarts, pageCount * 2);
+            }
+            pageStarts[pageCount++] = paginator.getCharIndex();
+            paginator.next();
+        }
+
+        return new PageIndex(computeLayoutKey(resolver, paramsHash), charEnd,
+                             Arrays.copyOf(pageStarts, pageCount));
+    }
+
+    /**
+     * Reads a page index previously written with {@link #writeTo(OutputStream)}.
+     *
+     * @param in The stream to read the index from.
+     * @return The page index read from the stream.
+     *
+     * @throws NullPointerException if <code>in</code> is <code>null</code>.
+     * @throws IOException if an I/O error occurs or the stream does not contain a valid index.
+     */
+    public static @NonNull PageIndex readFrom(@NonNull InputStream in) throws IOException {
+        checkNotNull(in, "in");
+
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readUnsignedByte() != VERSION) {
+            throw new IOException("Not a page index");
+        }
+
+        long layoutKey = data.readLong();
+        int charEnd = readVarInt(data);
+        int pageCount = readVarInt(data);
+        if (charEnd < 0 || pageCount < 0 || pageCount > charEnd) {
+            throw new IOException("Corrupt page index");
+        }
+
+        int[] pageStarts = new int[pageCount];
+        int charIndex = 0;
+
+        for (int i = 0; i < pageCount; i++) {
+            int delta = readVarInt(data);
+
+            // Page starts must be strictly increasing and lie within the text.
+            if (delta < 0 || (i > 0 && delta == 0) || delta >= charEnd - charIndex) {
+                throw new IOException("Corrupt page index");
+            }
+            charIndex += delta;
+            pageStarts[i] = charIndex;
+        }
+
+        return new PageIndex(layoutKey, charEnd, pageStarts);
+    }
+
+    private static int readVarInt(@NonNull DataInputStream data) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = data.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("Malformed variable length integer");
+    }
+
+    private static void writeVarInt(@NonNull DataOutputStream data, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            data.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data.writeByte(value);
+    }
+
+    /**
+     * Writes this page index to the given stream in a compact binary form.
+     *
+     * @param out The stream to write the index to.
+     *
+     * @throws NullPointerException if <code>out</code> is <code>null</code>.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeTo(@NonNull OutputStream out) throws IOException {
+        checkNotNull(out, "out");
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeLong(mLayoutKey);
+        writeVarInt(data, mCharEnd);
+        writeVarInt(data, mPageStarts.length);
+
+        int charIndex = 0;
+        for (int pageStart : mPageStarts) {
+            writeVarInt(data, pageStart - charIndex);
+            charIndex = pageStart;
+        }
+        data.flush();
+    }
+
+    /**
+     * Returns the layout key this index was created with.
+     *
+     * @return The layout key of this index.
+     */
+    public long getLayoutKey() {
+        return mLayoutKey;
+    }
+
+    /**
+     * Checks whether this index can be used with a frame resolver for the given parameters hash.
+     *
+     * @param resolver The frame resolver to check.
+     * @param paramsHash A hash of the typesetting parameters that the resolver does not know about.
+     * @return <code>true</code> if the layout keys match, <code>false</code> otherwise.
+     *
+     * @throws NullPointerException if <code>resolver</code> is <code>null</code>.
+     */
+    public boolean matches(@NonNull FrameResolver resolver, long paramsHash) {
+        return computeLayoutKey(resolver, paramsHash) == mLayoutKey;
+    }
+
+    /**
+     * Returns the number of pages in this index.
+     *
+     * @return The number of pages.
+     */
+    public int getPageCount() {
+        return mPageStarts.length;
+    }
+
+    /**
+     * Returns the index to the first character of the specified page in source text.
+     *
+     * @param pageIndex The index of the page.
+     * @return The index to the first character of the page.
+     *
+     * @throws IndexOutOfBoundsException if <code>pageIndex</code> is negative, or is greater than
+     *         or equal to the number of pages.
+     */
+    public int getPageStart(int pageIndex) {
+        checkElementIndex(pageIndex, mPageStarts.length);
+        return mPageStarts[pageIndex];
+    }
+
+    /**
+     * Returns the index after the last character of the specified page in source text.
+     *
+     * @param pageIndex The index of the page.
+     * @return The index after the last character of the page.
+     *
+     * @throws IndexOutOfBoundsException if <code>pageIndex</code> is negative, or is greater than
+     *         or equal to the number of pages.
+     */
+    public int getPageEnd(int pageIndex) {
+        checkElementIndex(pageIndex, mPageStarts.length);
+        return (pageIndex + 1 < mPageStarts.length ? mPageStarts[pageIndex + 1] : mCharEnd);
+    }
+
+    /**
+     * Finds the page containing the specified character, which is useful for restoring the reading
+     * position after the text has been paginated again.
+     *
+     * @param charIndex The index of a character in source text.
+     * @return The index of the page containing the character, or <code>-1</code> if the character
+     *         is outside the indexed range.
+     */
+    public int findPage(int charIndex) {
+        if (mPageStarts.length == 0 || charIndex < mPageStarts[0] || charIndex >= mCharEnd) {
+            return -1;
+        }
+
+        int index = Arrays.binarySearch(mPageStarts, charIndex);
+        return (index >= 0 ? index : -(index + 1) - 1);
+    }
+
+    /**
+     * Lays out the specified page directly from its start. If the page continues a paragraph, the
+     * lines of that paragraph before the page are broken again, without creating any frame, so
+     * that the page gets the same lines as in the pagination this index was created from. The cost
+     * is therefore proportional to the length of that paragraph rather than the preceding pages.
+     *
+     * @param resolver The frame resolver to lay out the page with. It should match the layout key
+     *                 of this index.
+     * @param pageIndex The index of the page.
+     * @return The frame of the page.
+     *
+     * @throws NullPointerException if <code>resolver</code> is <code>null</code>.
+     * @throws IndexOutOfBoundsException if <code>pageIndex</code> is negative, or is greater than
+     *         or equal to the number of pages.
+     */
+    public @NonNull ComposedFrame createPage(@NonNull FrameResolver resolver, int pageIndex) {
+        checkNotNull(resolver, "resolver");
+
+        int pageStart = getPageStart(pageIndex);
+        int paragraphStart = ParagraphAnalyzer.findParagraphStart(resolver.getTypesetter().getSpanned(), pageStart);
+        int layoutStart = Math.max(paragraphStart, mPageStarts[0]);
+
+        Paginator paginator = resolver.createPaginator(layoutStart, mCharEnd);
+        paginator.skipTo(pageStart);
+
+        return paginator.next();
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import android.graphics.RectF;
+
+import androidx.annotation.NonNull;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+
+import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
+
+/**
+ * A paginator lays out a range of text into consecutive frames, continuing each frame exactly
+ * where the previous one ended. The state of the paragraph being broken, such as its remaining
+ * leading lines and the tops of its line height spans, is carried over from one frame to the next,
+ * so the paragraph spans are queried only once and paginating a whole document takes linear time.
+ * <p>
+ * A paginator is obtained from {@link FrameResolver#createPaginator(int, int)}. It can be driven
+ * from a background thread, provided that it is used by a single thread at a time and that the
+ * typesetter is not accessed concurrently if it was created lazily. It can be cancelled from any
+ * thread.
+ * <p>
+ * The truncation place of the resolver is ignored as the text of a frame continues in the next
+ * one, whereas the max lines are applied to each frame.
+ */
+public class Paginator implements Iterator<ComposedFrame> {
+    private final @NonNull FrameResolver mResolver;
+    private final @NonNull FrameResolver.FrameFiller mFrameFiller;
+    private int mFrameCount = 0;
+
+    Paginator(@NonNull FrameResolver resolver, @NonNull FrameResolver.FrameFiller frameFiller) {
+        mResolver = resolver;
+        mFrameFiller = frameFiller;
+    }
+
+    /**
+     * Returns the index to the first character of the next frame in source text.
+     *
+     * @return The index to the first character of the next frame.
+     */
+    public int getCharIndex() {
+        return mFrameFiller.lineStart;
+    }
+
+    /**
+     * Returns the index after the last character of the paginated range in source text.
+     *
+     * @return The index after the last character of the paginated range.
+     */
+    public int getCharEnd() {
+        return mFrameFiller.rangeEnd;
+    }
+
+    /**
+     * Returns the number of frames created so far.
+     *
+     * @return The number of frames created so far.
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * Returns <code>true</code> if there is some text left to lay out and the paginator has not
+     * been cancelled.
+     *
+     * @return <code>true</code> if another frame can be created, <code>false</code> otherwise.
+     */
+    @Override
+    public boolean hasNext() {
+        return !mFrameFiller.cancelled && mFrameFiller.hasRemainingText();
+    }
+
+    /**
+     * Creates the next frame using the frame bounds of the resolver this paginator was created
+     * from.
+     *
+     * @return The next frame.
+     *
+     * @throws NoSuchElementException if there is no text left to lay out.
+     * @throws CancellationException if the paginator has been cancelled.
+     */
+    @Override
+    public @NonNull ComposedFrame next() {
+        return next(mResolver.getFrameBounds());
+    }
+
+    /**
+     * Creates the next frame using the specified frame bounds. A paragraph broken by the previous
+     * frame continues in this frame, with its remaining lines adapted to the new width if needed.
+     *
+     * @param frameBounds The rectangle specifying the frame bounds.
+     * @return The next frame.
+     *
+     * @throws NullPointerException if <code>frameBounds</code> is <code>null</code>.
+     * @throws IllegalArgumentException if <code>frameBounds</code> is empty.
+     * @throws NoSuchElementException if there is no text left to lay out.
+     * @throws CancellationException if the paginator has been cancelled.
+     */
+    public @NonNull ComposedFrame next(@NonNull RectF frameBounds) {
+        checkNotNull(frameBounds, "frameBounds");
+        checkArgument(!frameBounds.isEmpty(), "Frame bounds are empty");
+
+        if (mFrameFiller.cancelled) {
+            throw new CancellationException();
+        }
+        if (!mFrameFiller.hasRemainingText()) {
+            throw new NoSuchElementException();
+        }
+
+        mFrameFiller.startFrame(frameBounds);
+        mFrameFiller.fillLines();
+
+        ComposedFrame frame = mFrameFiller.finishFrame(frameBounds);
+        mFrameCount++;
+
+        return frame;
+    }
+
+    /**
+     * Lays out the lines before the given index without producing any frame, so that the next
+     * frame starts from there with the same paragraph state as if all the preceding frames had
+     * been created. The index should be the end of a line, such as the start of a page of an
+     * earlier pagination with the same frame bounds.
+     */
+    void skipTo(int charIndex) {
+        RectF skipBounds = mResolver.getFrameBounds();
+        skipBounds.bottom = Float.POSITIVE_INFINITY;
+
+        mFrameFiller.stopIndex = charIndex;
+        try {
+            while (mFrameFiller.lineStart < charIndex && mFrameFiller.hasRemainingText()) {
+                mFrameFiller.startFrame(skipBounds);
+                mFrameFiller.fillLines();
+            }
+        } finally {
+            mFrameFiller.stopIndex = Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Cancels the pagination. A frame being created on another thread is abandoned with a
+     * {@link CancellationException}, and no more frames can be created afterwards.
+     */
+    public void cancel() {
+        mFrameFiller.cancelled = true;
+    }
+
+    /**
+     * Returns whether or not the pagination has been cancelled.
+     *
+     * @return <code>true</code> if the pagination has been cancelled, <code>false</code> otherwise.
+     */
+    public boolean isCancelled() {
+        return mFrameFiller.cancelled;
+    }
+
+    /**
+     * This operation is not supported.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
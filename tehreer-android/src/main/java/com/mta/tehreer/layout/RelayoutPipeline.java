@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import android.text.Spanned;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.mta.tehreer.internal.layout.ParagraphAnalyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+
+import static com.mta.tehreer.internal.util.Preconditions.checkArgument;
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
+
+/**
+ * A relayout pipeline rebuilds the layout of a long text, such as after the type size has been
+ * changed, without blocking the calling thread for the whole text.
+ * <p>
+ * Each relayout creates a lazy typesetter and synchronously lays out the pages around the reading
+ * position, so that they can be shown right away. The whole text is then paginated from its start
+ * on a background executor in chunks of a few pages, reporting progress after each chunk, and a
+ * {@link PageIndex} is delivered once done. Starting a new relayout cancels the previous one, as
+ * does {@link #cancel()}.
+ * <p>
+ * The visible pages begin at the paragraph containing the reading position, so their breaks may
+ * differ from the final pagination. The final index can be used to find the page of the reading
+ * position with {@link PageIndex#findPage(int)}.
+ * <p>
+ * A pipeline should be started and cancelled on the thread of its callback executor.
+ */
+public class RelayoutPipeline {
+    /**
+     * Receives the results of a relayout. The methods are called on the callback executor of the
+     * pipeline, and never after the relayout has been cancelled.
+     */
+    public interface Listener {
+        /**
+         * Called with the progress of background pagination after each chunk of pages.
+         *
+         * @param pageCount The number of pages created so far.
+         * @param charIndex The index up to which the text has been paginated.
+         * @param charEnd The length of the text.
+         */
+        void onProgress(int pageCount, int charIndex, int charEnd);
+
+        /**
+         * Called once the whole text has been paginated. The typesetter and frame resolver can be
+         * used freely from this point onwards, such as to lay out the pages of the index.
+         *
+         * @param typesetter The typesetter of the text.
+         * @param pageIndex The index of all pages.
+         */
+        void onCompleted(@NonNull Typesetter typesetter, @NonNull PageIndex pageIndex);
+
+        /**
+         * Called if the background pagination fails. The typesetter of the relayout has already
+         * been closed.
+         *
+         * @param exception The exception thrown by the pagination.
+         */
+        void onFailed(@NonNull RuntimeException exception);
+    }
+
+    private static final int DEFAULT_CHUNK_PAGES = 8;
+
+    private final @NonNull Executor mBackgroundExecutor;
+    private final @NonNull Executor mCallbackExecutor;
+    private int mChunkPages = DEFAULT_CHUNK_PAGES;
+    private @Nullable Job mCurrentJob;
+
+    /**
+     * Constructs a relayout pipeline.
+     *
+     * @param backgroundExecutor The executor on which the text is paginated in chunks.
+     * @param callbackExecutor The executor on which the listener is notified, typically the main
+     *                         thread.
+     *
+     * @throws NullPointerException if <code>backgroundExecutor</code> or
+     *         <code>callbackExecutor</code> is <code>null</code>.
+     */
+    public RelayoutPipeline(@NonNull Executor backgroundExecutor, @NonNull Executor callbackExecutor) {
+        checkNotNull(backgroundExecutor, "backgroundExecutor");
+        checkNotNull(callbackExecutor, "callbackExecutor");
+
+        mBackgroundExecutor = backgroundExecutor;
+        mCallbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * Returns the number of pages created by each background chunk. The default value is 8.
+     *
+     * @return The number of pages per chunk.
+     */
+    public int getChunkPages() {
+        return mChunkPages;
+    }
+
+    /**
+     * Sets the number of pages created by each background chunk. Smaller chunks report progress
+     * and react to cancellation sooner, while larger chunks have less scheduling overhead.
+     *
+     * @param chunkPages The number of pages per chunk.
+     *
+     * @throws IllegalArgumentException if <code>chunkPages</code> is not positive.
+     */
+    public void setChunkPages(int chunkPages) {
+        checkArgument(chunkPages > 0, "Chunk Pages: " + chunkPages);
+        mChunkPages = chunkPages;
+    }
+
+    /**
+     * Starts the relayout of a text, cancelling the previous relayout if it is still running.
+     * <p>
+     * The frame resolver is set up with the new typesetter and its properties are snapshotted for
+     * background pagination. It must not be used on the calling thread until the relayout has
+     * completed, since the lazy typesetter is being analyzed in the background.
+     *
+     * @param spanned The spanned text to lay out.
+     * @param defaultSpans The default spans to apply, or <code>null</code>.
+     * @param resolver The frame resolver specifying the frame bounds and other layout properties.
+     * @param paramsHash A hash of the typesetting parameters, such as the type size, which becomes
+     *                   part of the layout key of resulting page index.
+     * @param charIndex The reading position in the text.
+     * @param visiblePages The number of pages to lay out synchronously from the reading position.
+     * @param listener The listener to notify about progress and completion.
+     * @return The frames laid out synchronously around the reading position.
+     *
+     * @throws NullPointerException if <code>spanned</code>, <code>resolver</code> or
+     *         <code>listener</code> is <code>null</code>.
+     * @throws IllegalArgumentException if <code>spanned</code> is empty, or
+     *         <code>charIndex</code> is negative or not less than the length of text, or
+     *         <code>visiblePages</code> is negative.
+     */
+    public @NonNull List<ComposedFrame> start(@NonNull Spanned spanned,
+                                              @Nullable List<Object> defaultSpans,
+                                              @NonNull FrameResolver resolver, long paramsHash,
+                                              int charIndex, int visiblePages,
+                                              @NonNull Listener listener) {
+        checkNotNull(spanned, "spanned");
+        checkNotNull(resolver, "resolver");
+        checkNotNull(listener, "listener");
+        checkArgument(charIndex >= 0 && charIndex < spanned.length(),
+                      "Char Index: " + charIndex + ", Text Length: " + spanned.length());
+        checkArgument(visiblePages >= 0, "Visible Pages: " + visiblePages);
+
+        cancel();
+
+        Typesetter typesetter = Typesetter.createLazily(spanned, defaultSpans);
+        resolver.setTypesetter(typesetter);
+
+        int charEnd = spanned.length();
+        List<ComposedFrame> frames = Collections.emptyList();
+
+        if (visiblePages > 0) {
+            frames = new ArrayList<>(visiblePages);
+
+            Paginator paginator = resolver.createPaginator(ParagraphAnalyzer.findParagraphStart(spanned, charIndex), charEnd);
+            while (frames.size() < visiblePages && paginator.hasNext()) {
+                frames.add(paginator.next());
+            }
+        }
+
+        Job job = new Job(typesetter, resolver.createPaginator(0, charEnd),
+                          PageIndex.computeLayoutKey(resolver, paramsHash), listener);
+        mCurrentJob = job;
+        mBackgroundExecutor.execute(job);
+
+        return frames;
+    }
+
+    /**
+     * Cancels the running relayout, if any. The listener is not notified anymore, and the
+     * typesetter of the relayout is closed in the background.
+     */
+    public void cancel() {
+        if (mCurrentJob != null) {
+            mCurrentJob.paginator.cancel();
+            mCurrentJob = null;
+        }
+    }
+
+    private class Job implements Runnable {
+        final @NonNull Typesetter typesetter;
+        final @NonNull Paginator paginator;
+        final long layoutKey;
+        final @NonNull Listener listener;
+
+        int[] pageStarts = new int[64];
+        int pageCount = 0;
+
+        Job(@NonNull Typesetter typesetter, @NonNull Paginator paginator, long layoutKey,
+            @NonNull Listener listener) {
+            this.typesetter = typesetter;
+            this.paginator = paginator;
+            this.layoutKey = layoutKey;
+            this.listener = listener;
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < mChunkPages && paginator.hasNext(); i++) {
+                    if (pageCount == pageStarts.length) {
+                        pageStarts = Arrays.copyOf(pageStarts, pageCount * 2);
+                    }
+                    pageStarts[pageCount++] = paginator.getCharIndex();
+                    paginator.next();
+                }
+            } catch (CancellationException e) {
+                // Fall through to release the typesetter.
+            } catch (RuntimeException e) {
+                typesetter.close();
+                notifyFailure(e);
+                return;
+            }
+
+            if (paginator.isCancelled()) {
+                typesetter.close();
+                return;
+            }
+
+            if (paginator.hasNext()) {
+                notifyProgress(pageCount, paginator.getCharIndex());
+                mBackgroundExecutor.execute(this);
+            } else {
+                notifyCompletion(new PageIndex(layoutKey, paginator.getCharEnd(),
+                                               Arrays.copyOf(pageStarts, pageCount)));
+            }
+        }
+
+        void notifyProgress(final int pageCount, final int charIndex) {
+            final int charEnd = paginator.getCharEnd();
+
+            mCallbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!paginator.isCancelled()) {
+                        listener.onProgress(pageCount, charIndex, charEnd);
+                    }
+                }
+            });
+        }
+
+        void notifyFailure(@NonNull final RuntimeException exception) {
+            mCallbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!paginator.isCancelled()) {
+                        if (mCurrentJob == Job.this) {
+                            mCurrentJob = null;
+                        }
+                        listener.onFailed(exception);
+                    }
+                }
+            });
+        }
+
+        void notifyCompletion(@NonNull final PageIndex pageIndex) {
+            mCallbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!paginator.isCancelled()) {
+                        if (mCurrentJob == Job.this) {
+                            mCurrentJob = null;
+                        }
+                        listener.onCompleted(typesetter, pageIndex);
+                    } else {
+                        typesetter.close();
+                    }
+                }
+            });
+        }
+    }
+}
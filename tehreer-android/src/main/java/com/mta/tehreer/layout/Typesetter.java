@@ -18,13 +18,16 @@ package com.mta.tehreer.layout;
 
 import android.graphics.RectF;
 import android.text.SpannableString;
+import android.text.SpannableStringBuilder;
 import android.text.Spanned;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.internal.Cleaner;
 import com.mta.tehreer.internal.layout.BreakResolver;
+import com.mta.tehreer.internal.layout.ParagraphAnalyzer;
 import com.mta.tehreer.internal.layout.ParagraphCollection;
 import com.mta.tehreer.internal.layout.RunCollection;
 import com.mta.tehreer.internal.layout.ShapeResolver;
@@ -33,6 +36,7 @@ import com.mta.tehreer.internal.util.StringUtils;
 import com.mta.tehreer.layout.style.TypeSizeSpan;
 import com.mta.tehreer.layout.style.TypefaceSpan;
 
+import java.io.Closeable;
 import java.util.Collections;
 import java.util.List;
 
@@ -42,13 +46,20 @@ import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
 /**
  * Represents a typesetter which performs text layout. It can be used to create lines, perform line
  * breaking, and do other contextual analysis based on the characters in the string.
+ * <p>
+ * The native memory of a typesetter is released once it becomes unreachable. It can also be
+ * released right away by closing the typesetter, after which it must not be used anymore. The
+ * lines and frames already created by it remain valid.
  */
-public class Typesetter {
+public class Typesetter implements Closeable {
     private String mText;
     private Spanned mSpanned;
     private byte[] mBreakRecord;
     private ParagraphCollection mBidiParagraphs;
     private RunCollection mIntrinsicRuns;
+    private List<Object> mDefaultSpans;
+    private Cleaner.Cleanable mCleanable;
+    private ParagraphAnalyzer mAnalyzer;
 
     /**
      * Constructs the typesetter object using given text, typeface and type size.
@@ -89,6 +100,53 @@ public class Typesetter {
         init(StringUtils.copyString(spanned), spanned, defaultSpans);
     }
 
+    private Typesetter() {
+    }
+
+    /**
+     * Creates a typesetter that analyzes its text lazily. Only the paragraph boundaries are found
+     * up front; breaks, bidi levels and shaped runs of a paragraph are produced the first time a
+     * line, frame or break request touches it. This makes the first frame of a long document
+     * available without typesetting the whole text.
+     * <p>
+     * <strong>Note:</strong> A lazy typesetter mutates its internal state while being used, so it
+     * must not be accessed from multiple threads at the same time.
+     *
+     * @param spanned The spanned text to typeset.
+     * @param defaultSpans The default spans to apply, or <code>null</code>.
+     * @return A new typesetter object for the given text.
+     *
+     * @throws IllegalArgumentException if <code>spanned</code> is empty.
+     */
+    public static @NonNull Typesetter createLazily(@NonNull Spanned spanned,
+                                                   @Nullable List<Object> defaultSpans) {
+        checkNotNull(spanned, "spanned");
+        checkArgument(spanned.length() > 0, "Text is empty");
+
+        if (defaultSpans == null) {
+            defaultSpans = Collections.EMPTY_LIST;
+        }
+
+        String text = StringUtils.copyString(spanned);
+        byte[] breaks = new byte[text.length()];
+        ParagraphCollection paragraphs = ParagraphCollection.withBoundaries(
+                ParagraphAnalyzer.findBoundaries(text));
+        RunCollection runs = new RunCollection();
+
+        Typesetter typesetter = new Typesetter();
+        typesetter.mText = text;
+        typesetter.mSpanned = spanned;
+        typesetter.mBreakRecord = breaks;
+        typesetter.mBidiParagraphs = paragraphs;
+        typesetter.mIntrinsicRuns = runs;
+        typesetter.mDefaultSpans = defaultSpans;
+        typesetter.mCleanable = paragraphs.registerCleaner();
+        typesetter.mAnalyzer = new ParagraphAnalyzer(text, spanned, defaultSpans, breaks,
+                                                     paragraphs, runs);
+
+        return typesetter;
+    }
+
     private void init(@NonNull String text, @NonNull Spanned spanned, @Nullable List<Object> defaultSpans) {
         mText = text;
         mSpanned = spanned;
@@ -99,10 +157,103 @@ public class Typesetter {
         if (defaultSpans == null) {
             defaultSpans = Collections.EMPTY_LIST;
         }
+        mDefaultSpans = defaultSpans;
 
         BreakResolver.fillBreaks(mText, mBreakRecord);
         ShapeResolver.fillRuns(mText, mSpanned, defaultSpans, mBreakRecord,
                                mBidiParagraphs, mIntrinsicRuns);
+
+        int paragraphCount = mBidiParagraphs.size();
+        for (int i = 0; i < paragraphCount; i++) {
+            mIntrinsicRuns.indexRange(mBidiParagraphs.getParagraphStart(i),
+                                      mBidiParagraphs.getParagraphEnd(i));
+        }
+        mCleanable = mBidiParagraphs.registerCleaner();
+    }
+
+    /**
+     * Creates a new typesetter for the text obtained by replacing a range of source text of this
+     * typesetter. This typesetter is left unchanged.
+     * <p>
+     * The new typesetter analyzes its text lazily, like the ones created with
+     * {@link #createLazily(Spanned, List)}. Only the paragraphs touched by the edit are analyzed
+     * for breaks, bidi levels and shaped runs when requested. All other paragraphs are taken from
+     * this typesetter, along with their runs, the first time they are needed, provided that this
+     * typesetter has analyzed them by then. So the cost of an edit is proportional to the size of
+     * the edited paragraphs rather than the whole text.
+     * <p>
+     * <strong>Note:</strong> The new typesetter mutates its internal state while being used, so it
+     * must not be accessed from multiple threads at the same time.
+     *
+     * @param charStart The index to the first character of the range being replaced.
+     * @param removedLength The number of characters being removed at <code>charStart</code>.
+     * @param insertedText The text being inserted at <code>charStart</code>. Its spans, if any,
+     *                     are carried over to the new typesetter.
+     * @return A new typesetter object for the edited text.
+     *
+     * @throws NullPointerException if <code>insertedText</code> is <code>null</code>.
+     * @throws IllegalArgumentException if <code>charStart</code> is negative or greater than the
+     *         length of source text, or <code>removedLength</code> is negative or extends past the
+     *         end of source text, or the edited text is empty.
+     */
+    public @NonNull Typesetter createEdited(int charStart, int removedLength,
+                                            @NonNull CharSequence insertedText) {
+        checkNotNull(insertedText, "insertedText");
+
+        int oldLength = mText.length();
+        checkArgument(charStart >= 0 && charStart <= oldLength,
+                      "Char Start: " + charStart + ", Text Length: " + oldLength);
+        checkArgument(removedLength >= 0 && removedLength <= oldLength - charStart,
+                      "Removed Length: " + removedLength + ", Text Length: " + oldLength);
+
+        int removedEnd = charStart + removedLength;
+        int charShift = insertedText.length() - removedLength;
+        int newLength = oldLength + charShift;
+        checkArgument(newLength > 0, "Text is empty");
+
+        SpannableStringBuilder spanned = new SpannableStringBuilder(mSpanned);
+        spanned.replace(charStart, removedEnd, insertedText);
+        String text = StringUtils.copyString(spanned);
+
+        // A carriage return right before the edit may pair up with an inserted line feed, so the
+        // preceding paragraph is affected in that case. The paragraph of the first surviving
+        // character after the edit is always affected as its separator might have been removed.
+        int firstAnchor = charStart;
+        if (firstAnchor > 0 && mText.charAt(firstAnchor - 1) == '\r') {
+            firstAnchor -= 1;
+        }
+        int lastAnchor = Math.min(removedEnd, oldLength - 1);
+        firstAnchor = Math.min(firstAnchor, oldLength - 1);
+
+        int oldCount = mBidiParagraphs.size();
+        int firstIndex = mBidiParagraphs.binarySearch(firstAnchor);
+        int lastIndex = mBidiParagraphs.binarySearch(lastAnchor);
+
+        byte[] breaks = new byte[newLength];
+        ParagraphCollection paragraphs = ParagraphCollection.withBoundaries(
+                ParagraphAnalyzer.findBoundaries(text, mBidiParagraphs, firstIndex, lastIndex, charShift));
+        RunCollection runs = new RunCollection();
+        ParagraphAnalyzer analyzer = new ParagraphAnalyzer(text, spanned, mDefaultSpans, breaks,
+                                                           paragraphs, runs);
+
+        int newCount = paragraphs.size();
+        int trailingCount = oldCount - lastIndex - 1;
+        analyzer.addSource(mBidiParagraphs, mIntrinsicRuns, mBreakRecord,
+                           0, 0, firstIndex, 0);
+        analyzer.addSource(mBidiParagraphs, mIntrinsicRuns, mBreakRecord,
+                           lastIndex + 1, newCount - trailingCount, newCount, charShift);
+
+        Typesetter typesetter = new Typesetter();
+        typesetter.mText = text;
+        typesetter.mSpanned = spanned;
+        typesetter.mBreakRecord = breaks;
+        typesetter.mBidiParagraphs = paragraphs;
+        typesetter.mIntrinsicRuns = runs;
+        typesetter.mDefaultSpans = mDefaultSpans;
+        typesetter.mCleanable = paragraphs.registerCleaner();
+        typesetter.mAnalyzer = analyzer;
+
+        return typesetter;
     }
 
     /**
@@ -114,6 +265,33 @@ public class Typesetter {
         return mSpanned;
     }
 
+    /**
+     * Releases the native memory held by this typesetter. The typesetter must not be used after
+     * calling this method.
+     */
+    @Override
+    public void close() {
+        if (mAnalyzer != null) {
+            mAnalyzer.close();
+        }
+        mCleanable.clean();
+    }
+
+    void ensureAnalyzed(int charStart, int charEnd) {
+        if (mAnalyzer != null) {
+            mAnalyzer.analyze(charStart, charEnd);
+        }
+    }
+
+    /**
+     * Analyzes the paragraphs a truncated line can show, i.e. the first and the last one of the
+     * range, leaving the ones in between to be hidden by the truncation token.
+     */
+    private void ensureTruncationAnalyzed(int charStart, int charEnd) {
+        ensureAnalyzed(charStart, charStart + 1);
+        ensureAnalyzed(charEnd - 1, charEnd);
+    }
+
     ParagraphCollection getParagraphs() {
         return mBidiParagraphs;
     }
@@ -151,6 +329,7 @@ public class Typesetter {
                                    float breakWidth, @NonNull BreakMode breakMode) {
         checkNotNull(breakMode, "breakMode");
         checkSubRange(charStart, charEnd);
+        ensureAnalyzed(charStart, charEnd);
 
         switch (breakMode) {
         case CHARACTER:
@@ -184,6 +363,7 @@ public class Typesetter {
                                     float breakWidth, @NonNull BreakMode breakMode) {
         checkNotNull(breakMode, "breakMode");
         checkSubRange(charStart, charEnd);
+        ensureAnalyzed(charStart, charEnd);
 
         switch (breakMode) {
         case CHARACTER:
@@ -211,6 +391,7 @@ public class Typesetter {
      */
 	public @NonNull ComposedLine createSimpleLine(int charStart, int charEnd) {
         checkSubRange(charStart, charEnd);
+        ensureAnalyzed(charStart, charEnd);
 
         LineResolver resolver = new LineResolver();
         resolver.reset(mSpanned, mBidiParagraphs, mIntrinsicRuns);
@@ -242,12 +423,13 @@ public class Typesetter {
         checkNotNull(breakMode, "breakMode");
         checkNotNull(truncationPlace, "truncationPlace");
         checkSubRange(charStart, charEnd);
+        ensureTruncationAnalyzed(charStart, charEnd);
 
         LineResolver resolver = new LineResolver();
         resolver.reset(mSpanned, mBidiParagraphs, mIntrinsicRuns);
 
         return resolver.createCompactLine(charStart, charEnd, maxWidth, mBreakRecord, breakMode, truncationPlace,
-                TokenResolver.createToken(mIntrinsicRuns, charStart, charEnd, truncationPlace, null));
+                TokenResolver.createToken(mBidiParagraphs, mIntrinsicRuns, charStart, charEnd, truncationPlace, null));
     }
 
     /**
@@ -277,12 +459,13 @@ public class Typesetter {
         checkNotNull(truncationToken, "truncationToken");
         checkSubRange(charStart, charEnd);
         checkArgument(truncationToken.length() > 0, "Truncation token is empty");
+        ensureTruncationAnalyzed(charStart, charEnd);
 
         LineResolver resolver = new LineResolver();
         resolver.reset(mSpanned, mBidiParagraphs, mIntrinsicRuns);
 
         return resolver.createCompactLine(charStart, charEnd, maxWidth, mBreakRecord, breakMode, truncationPlace,
-                TokenResolver.createToken(mIntrinsicRuns, charStart, charEnd, truncationPlace, truncationToken));
+                TokenResolver.createToken(mBidiParagraphs, mIntrinsicRuns, charStart, charEnd, truncationPlace, truncationToken));
     }
 
     /**
@@ -311,6 +494,7 @@ public class Typesetter {
         checkNotNull(truncationPlace, "truncationPlace");
         checkNotNull(truncationToken, "truncationToken");
         checkSubRange(charStart, charEnd);
+        ensureTruncationAnalyzed(charStart, charEnd);
 
         LineResolver resolver = new LineResolver();
         resolver.reset(mSpanned, mBidiParagraphs, mIntrinsicRuns);
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout.style;
+
+import android.text.TextPaint;
+import android.text.style.MetricAffectingSpan;
+
+import androidx.annotation.NonNull;
+
+import com.mta.tehreer.graphics.TypeFamily;
+import com.mta.tehreer.graphics.Typeface;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
+
+/**
+ * The <code>FallbackSpan</code> class represents a span for specifying an ordered chain of fallback
+ * type families. Characters not supported by the typeface of a run are shaped with the first
+ * family in the chain whose typeface of matching style supports them.
+ * <p>
+ * The span can be applied to a range of text, or passed among the default spans of a
+ * {@link com.mta.tehreer.layout.Typesetter} so that it applies to the whole text.
+ */
+public class FallbackSpan extends MetricAffectingSpan {
+    private final @NonNull List<TypeFamily> families;
+
+    /**
+     * Constructs a fallback span object from type families.
+     *
+     * @param families The type families to fall back to, in order of preference.
+     *
+     * @throws NullPointerException if <code>families</code> is <code>null</code>.
+     */
+    public FallbackSpan(@NonNull List<TypeFamily> families) {
+        checkNotNull(families, "families");
+        this.families = Collections.unmodifiableList(new ArrayList<>(families));
+    }
+
+    /**
+     * Creates a fallback span object from individual typefaces which are used regardless of the
+     * style of text.
+     *
+     * @param typefaces The typefaces to fall back to, in order of preference.
+     * @return A new fallback span object.
+     *
+     * @throws NullPointerException if <code>typefaces</code> is <code>null</code>.
+     */
+    public static @NonNull FallbackSpan ofTypefaces(@NonNull List<Typeface> typefaces) {
+        checkNotNull(typefaces, "typefaces");
+
+        List<TypeFamily> families = new ArrayList<>(typefaces.size());
+        for (Typeface typeface : typefaces) {
+            String familyName = typeface.getFamilyName();
+            if (familyName == null) {
+                familyName = "";
+            }
+
+            families.add(new TypeFamily(familyName, Collections.singletonList(typeface)));
+        }
+
+        return new FallbackSpan(families);
+    }
+
+    /**
+     * Returns the fallback type families of this span.
+     *
+     * @return The fallback type families of this span.
+     */
+    public @NonNull List<TypeFamily> getFamilies() {
+        return families;
+    }
+
+    @Override
+    public void updateMeasureState(TextPaint textPaint) {
+    }
+
+    @Override
+    public void updateDrawState(TextPaint textPaint) {
+    }
+}
@@ -20,8 +20,10 @@ import androidx.annotation.NonNull;
 
 import com.mta.tehreer.Disposable;
 import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.internal.Cleaner;
 import com.mta.tehreer.internal.Constants;
 import com.mta.tehreer.internal.JniBridge;
+import com.mta.tehreer.unicode.TextBuffer;
 
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -41,21 +43,13 @@ public class ShapingEngine implements Disposable {
     private static final class Finalizable extends ShapingEngine {
         Finalizable(@NonNull ShapingEngine parent) {
             super(parent);
+            Cleaner.register(this, Cleaner.disposer(parent));
         }
 
         @Override
         public void dispose() {
             throw new UnsupportedOperationException(Constants.EXCEPTION_FINALIZABLE_OBJECT);
         }
-
-        @Override
-        protected void finalize() throws Throwable {
-            try {
-                super.dispose();
-            } finally {
-                super.finalize();
-            }
-        }
     }
 
     /**
@@ -140,8 +134,8 @@ public class ShapingEngine implements Disposable {
      * @param typeface The new typeface.
      */
 	public void setTypeface(Typeface typeface) {
-        base.typeface = typeface;
 		nSetTypeface(nativeEngine, typeface);
+        base.typeface = typeface;
 	}
 
     /**
@@ -330,6 +324,101 @@ public class ShapingEngine implements Disposable {
         return result;
     }
 
+    /**
+     * Shapes the specified range of text held by a native text buffer into glyphs. Unlike
+     * {@link #shapeText(String, int, int)}, this method reads the characters directly from the
+     * buffer without copying them.
+     *
+     * @param buffer The buffer containing the text to shape into glyphs.
+     * @param fromIndex The index of the first character (inclusive) to be shaped.
+     * @param toIndex The index of the last character (exclusive) to be shaped.
+     * @return A non-finalizable instance of a <code>ShapingResult</code> object.
+     *
+     * @throws IllegalStateException if current typeface is <code>null</code>.
+     * @throws NullPointerException if <code>buffer</code> is <code>null</code>.
+     * @throws IllegalArgumentException if <code>fromIndex</code> is negative, or
+     *         <code>toIndex</code> is greater than <code>buffer.getLength()</code>, or
+     *         <code>fromIndex</code> is greater than <code>toIndex</code>
+     */
+    public @NonNull ShapingResult shapeText(@NonNull TextBuffer buffer, int fromIndex, int toIndex) {
+        if (base.typeface == null) {
+            throw new IllegalStateException("Typeface has not been set");
+        }
+        checkNotNull(buffer, "buffer");
+        checkArgument(fromIndex >= 0, "From Index: " + fromIndex);
+        checkArgument(toIndex <= buffer.getLength(), "To Index: " + toIndex + ", Text Length: " + buffer.getLength());
+        checkArgument(toIndex >= fromIndex, "Bad Range: [" + fromIndex + ", " + toIndex + ')');
+
+        ShapingResult result = new ShapingResult();
+        nShapeBuffer(nativeEngine, result.nativeResult, TextBuffer.getNativeBuffer(buffer), fromIndex, toIndex);
+
+        return result;
+    }
+
+    /**
+     * Shapes the specified range of text into glyphs, refilling an existing
+     * <code>ShapingResult</code> object rather than allocating a new one.
+     * <p>
+     * The native buffers of the result grow as needed and are retained across calls, so shaping
+     * many runs with the same result object stops allocating once the largest run has been
+     * shaped. Any list previously obtained from the result becomes invalid after this call.
+     *
+     * @param result The shaping result object to refill.
+     * @param text The text to shape into glyphs.
+     * @param fromIndex The index of the first character (inclusive) to be shaped.
+     * @param toIndex The index of the last character (exclusive) to be shaped.
+     *
+     * @throws IllegalStateException if current typeface is <code>null</code>.
+     * @throws NullPointerException if <code>result</code> is <code>null</code>, or
+     *         <code>text</code> is <code>null</code>.
+     * @throws IllegalArgumentException if <code>fromIndex</code> is negative, or
+     *         <code>toIndex</code> is greater than <code>text.length()</code>, or
+     *         <code>fromIndex</code> is greater than <code>toIndex</code>
+     */
+    public void shapeText(@NonNull ShapingResult result, @NonNull String text, int fromIndex, int toIndex) {
+        if (base.typeface == null) {
+            throw new IllegalStateException("Typeface has not been set");
+        }
+        checkNotNull(result, "result");
+        checkNotNull(text, "text");
+        checkArgument(fromIndex >= 0, "From Index: " + fromIndex);
+        checkArgument(toIndex <= text.length(), "To Index: " + toIndex + ", Text Length: " + text.length());
+        checkArgument(toIndex >= fromIndex, "Bad Range: [" + fromIndex + ", " + toIndex + ')');
+
+        nShapeText(nativeEngine, result.nativeResult, text, fromIndex, toIndex);
+    }
+
+    /**
+     * Shapes the specified range of text held by a native text buffer into glyphs, refilling an
+     * existing <code>ShapingResult</code> object rather than allocating a new one.
+     *
+     * @param result The shaping result object to refill.
+     * @param buffer The buffer containing the text to shape into glyphs.
+     * @param fromIndex The index of the first character (inclusive) to be shaped.
+     * @param toIndex The index of the last character (exclusive) to be shaped.
+     *
+     * @throws IllegalStateException if current typeface is <code>null</code>.
+     * @throws NullPointerException if <code>result</code> is <code>null</code>, or
+     *         <code>buffer</code> is <code>null</code>.
+     * @throws IllegalArgumentException if <code>fromIndex</code> is negative, or
+     *         <code>toIndex</code> is greater than <code>buffer.getLength()</code>, or
+     *         <code>fromIndex</code> is greater than <code>toIndex</code>
+     *
+     * @see #shapeText(ShapingResult, String, int, int)
+     */
+    public void shapeText(@NonNull ShapingResult result, @NonNull TextBuffer buffer, int fromIndex, int toIndex) {
+        if (base.typeface == null) {
+            throw new IllegalStateException("Typeface has not been set");
+        }
+        checkNotNull(result, "result");
+        checkNotNull(buffer, "buffer");
+        checkArgument(fromIndex >= 0, "From Index: " + fromIndex);
+        checkArgument(toIndex <= buffer.getLength(), "To Index: " + toIndex + ", Text Length: " + buffer.getLength());
+        checkArgument(toIndex >= fromIndex, "Bad Range: [" + fromIndex + ", " + toIndex + ')');
+
+        nShapeBuffer(nativeEngine, result.nativeResult, TextBuffer.getNativeBuffer(buffer), fromIndex, toIndex);
+    }
+
 	@Override
 	public void dispose() {
         nDispose(nativeEngine);
@@ -372,4 +461,5 @@ public class ShapingEngine implements Disposable {
     private static native void nSetShapingOrder(long nativeEngine, int shapingOrder);
 
 	private static native void nShapeText(long nativeEngine, long nativeResult, String text, int fromIndex, int toIndex);
+    private static native void nShapeBuffer(long nativeEngine, long nativeResult, long nativeBuffer, int fromIndex, int toIndex);
 }
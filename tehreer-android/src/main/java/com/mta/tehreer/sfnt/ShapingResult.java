@@ -23,6 +23,7 @@ import com.mta.tehreer.Disposable;
 import com.mta.tehreer.collections.FloatList;
 import com.mta.tehreer.collections.IntList;
 import com.mta.tehreer.collections.PointList;
+import com.mta.tehreer.internal.Cleaner;
 import com.mta.tehreer.internal.Constants;
 import com.mta.tehreer.internal.JniBridge;
 import com.mta.tehreer.internal.collections.Int32BufferFloatList;
@@ -30,6 +31,9 @@ import com.mta.tehreer.internal.collections.Int32BufferPointList;
 import com.mta.tehreer.internal.collections.UInt16BufferIntList;
 import com.mta.tehreer.internal.collections.UIntPtrBufferIntList;
 
+import static com.mta.tehreer.internal.util.Preconditions.checkArrayBounds;
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
+
 /**
  * A <code>ShapingResult</code> object is a container for the results of text shaping. It is
  * generated by a <code>ShapingEngine</code> object to provide the information related to
@@ -43,21 +47,13 @@ public class ShapingResult implements Disposable {
     private static final class Finalizable extends ShapingResult {
         Finalizable(@NonNull ShapingResult parent) {
             super(parent);
+            Cleaner.register(this, Cleaner.disposer(parent));
         }
 
         @Override
         public void dispose() {
             throw new UnsupportedOperationException(Constants.EXCEPTION_FINALIZABLE_OBJECT);
         }
-
-        @Override
-        protected void finalize() throws Throwable {
-            try {
-                super.dispose();
-            } finally {
-                super.finalize();
-            }
-        }
     }
 
     /**
@@ -99,9 +95,10 @@ public class ShapingResult implements Disposable {
 	long nativeResult;
 
     /**
-     * Constructs a shaping result object.
+     * Constructs an empty shaping result object. It can be filled by passing it to
+     * {@link ShapingEngine#shapeText(ShapingResult, String, int, int)}.
      */
-	ShapingResult() {
+	public ShapingResult() {
 	    nativeResult = nCreate();
 	}
 
@@ -224,6 +221,84 @@ public class ShapingResult implements Disposable {
         return new UIntPtrBufferIntList(this, pointer, size);
     }
 
+    /**
+     * Copies the glyph IDs of this <code>ShapingResult</code> object into the given array in a
+     * single pass. The array must have room for {@link #getGlyphCount()} values after
+     * <code>atIndex</code>.
+     *
+     * @param array The array into which the glyph IDs are to be copied.
+     * @param atIndex The index in the array at which copying begins.
+     *
+     * @throws NullPointerException if <code>array</code> is <code>null</code>.
+     * @throws ArrayIndexOutOfBoundsException if <code>atIndex</code> is negative, or the array
+     *         does not have enough room after <code>atIndex</code>.
+     */
+    public void copyGlyphIds(@NonNull int[] array, int atIndex) {
+        checkNotNull(array, "array");
+        checkArrayBounds(array, atIndex, nGetGlyphCount(nativeResult));
+
+        nCopyGlyphIds(nativeResult, array, atIndex);
+    }
+
+    /**
+     * Copies the glyph offsets of this <code>ShapingResult</code> object into the given array in a
+     * single pass. The offsets are copied as consecutive x and y pairs, so the array must have
+     * room for twice the {@link #getGlyphCount()} values after <code>atIndex</code>.
+     *
+     * @param array The array into which the glyph offsets are to be copied.
+     * @param atIndex The index in the array at which copying begins.
+     *
+     * @throws NullPointerException if <code>array</code> is <code>null</code>.
+     * @throws ArrayIndexOutOfBoundsException if <code>atIndex</code> is negative, or the array
+     *         does not have enough room after <code>atIndex</code>.
+     */
+    public void copyGlyphOffsets(@NonNull float[] array, int atIndex) {
+        checkNotNull(array, "array");
+        checkArrayBounds(array, atIndex, nGetGlyphCount(nativeResult) * 2);
+
+        nCopyGlyphOffsets(nativeResult, array, atIndex);
+    }
+
+    /**
+     * Copies the glyph advances of this <code>ShapingResult</code> object into the given array in
+     * a single pass. The array must have room for {@link #getGlyphCount()} values after
+     * <code>atIndex</code>.
+     *
+     * @param array The array into which the glyph advances are to be copied.
+     * @param atIndex The index in the array at which copying begins.
+     *
+     * @throws NullPointerException if <code>array</code> is <code>null</code>.
+     * @throws ArrayIndexOutOfBoundsException if <code>atIndex</code> is negative, or the array
+     *         does not have enough room after <code>atIndex</code>.
+     */
+    public void copyGlyphAdvances(@NonNull float[] array, int atIndex) {
+        checkNotNull(array, "array");
+        checkArrayBounds(array, atIndex, nGetGlyphCount(nativeResult));
+
+        nCopyGlyphAdvances(nativeResult, array, atIndex);
+    }
+
+    /**
+     * Copies the cluster map of this <code>ShapingResult</code> object into the given array in a
+     * single pass. The array must have room for one value per shaped character after
+     * <code>atIndex</code>. Nothing is copied if no glyph was produced.
+     *
+     * @param array The array into which the cluster map is to be copied.
+     * @param atIndex The index in the array at which copying begins.
+     *
+     * @throws NullPointerException if <code>array</code> is <code>null</code>.
+     * @throws ArrayIndexOutOfBoundsException if <code>atIndex</code> is negative, or the array
+     *         does not have enough room after <code>atIndex</code>.
+     *
+     * @see #getClusterMap()
+     */
+    public void copyClusterMap(@NonNull int[] array, int atIndex) {
+        checkNotNull(array, "array");
+        checkArrayBounds(array, atIndex, nGetCharCount(nativeResult));
+
+        nCopyClusterMap(nativeResult, array, atIndex);
+    }
+
     /**
      * Returns a list of caret edges having caret stop on every code unit.
      *
@@ -286,5 +361,10 @@ public class ShapingResult implements Disposable {
     private static native long nGetGlyphAdvancesPtr(long nativeResult);
     private static native long nGetClusterMapPtr(long nativeResult);
 
+    private static native void nCopyGlyphIds(long nativeResult, int[] array, int atIndex);
+    private static native void nCopyGlyphOffsets(long nativeResult, float[] array, int atIndex);
+    private static native void nCopyGlyphAdvances(long nativeResult, float[] array, int atIndex);
+    private static native void nCopyClusterMap(long nativeResult, int[] array, int atIndex);
+
     private static native void nGetCaretEdges(long nativeResult, boolean[] caretStops, float[] caretEdges);
 }
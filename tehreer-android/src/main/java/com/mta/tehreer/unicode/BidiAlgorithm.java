@@ -20,6 +20,7 @@ import androidx.annotation.NonNull;
 
 import com.mta.tehreer.Disposable;
 import com.mta.tehreer.collections.IntList;
+import com.mta.tehreer.internal.Cleaner;
 import com.mta.tehreer.internal.Constants;
 import com.mta.tehreer.internal.JniBridge;
 import com.mta.tehreer.internal.collections.UInt8BufferIntList;
@@ -49,21 +50,13 @@ public class BidiAlgorithm implements Disposable {
     private static final class Finalizable extends BidiAlgorithm {
         Finalizable(@NonNull BidiAlgorithm parent) {
             super(parent);
+            Cleaner.register(this, Cleaner.disposer(parent));
         }
 
         @Override
         public void dispose() {
             throw new UnsupportedOperationException(Constants.EXCEPTION_FINALIZABLE_OBJECT);
         }
-
-        @Override
-        protected void finalize() throws Throwable {
-            try {
-                super.dispose();
-            } finally {
-                super.finalize();
-            }
-        }
     }
 
     /**
@@ -124,6 +117,23 @@ public class BidiAlgorithm implements Disposable {
         this.text = text;
     }
 
+    /**
+     * Constructs a bidi algorithm object for the text of the given buffer. The native text of the
+     * buffer is shared rather than copied.
+     *
+     * @param buffer The buffer containing the text to apply unicode bidirectional algorithm on.
+     *
+     * @throws IllegalArgumentException if the text of <code>buffer</code> is empty.
+     */
+    public BidiAlgorithm(@NonNull TextBuffer buffer) {
+        checkNotNull(buffer, "buffer");
+        checkArgument(buffer.getLength() > 0, "Text is empty");
+
+        this.nativeBuffer = BidiBuffer.retain(buffer.nativeBuffer);
+        this.nativeAlgorithm = nCreate(nativeBuffer);
+        this.text = buffer.getText();
+    }
+
     BidiAlgorithm(@NonNull BidiAlgorithm other) {
         this.nativeBuffer = other.nativeBuffer;
         this.nativeAlgorithm = other.nativeAlgorithm;
@@ -19,6 +19,7 @@ package com.mta.tehreer.unicode;
 import androidx.annotation.NonNull;
 
 import com.mta.tehreer.Disposable;
+import com.mta.tehreer.internal.Cleaner;
 import com.mta.tehreer.internal.Constants;
 import com.mta.tehreer.internal.Description;
 import com.mta.tehreer.internal.JniBridge;
@@ -44,21 +45,13 @@ public class BidiLine implements Disposable {
     private static final class Finalizable extends BidiLine {
         Finalizable(@NonNull BidiLine parent) {
             super(parent);
+            Cleaner.register(this, Cleaner.disposer(parent));
         }
 
         @Override
         public void dispose() {
             throw new UnsupportedOperationException(Constants.EXCEPTION_FINALIZABLE_OBJECT);
         }
-
-        @Override
-        protected void finalize() throws Throwable {
-            try {
-                super.dispose();
-            } finally {
-                super.finalize();
-            }
-        }
     }
 
     /**
@@ -200,6 +193,7 @@ public class BidiLine implements Disposable {
 
         MirrorIterator() {
             locator = new BidiMirrorLocator();
+            Cleaner.register(this, Cleaner.disposer(locator));
             locator.loadLine(BidiLine.this);
 
             pair = locator.nextPair();
@@ -225,15 +219,6 @@ public class BidiLine implements Disposable {
         public void remove() {
             throw new UnsupportedOperationException();
         }
-
-        @Override
-        protected void finalize() throws Throwable {
-            try {
-                locator.dispose();
-            } finally {
-                super.finalize();
-            }
-        }
     }
 
     private class MirrorIterable implements Iterable<BidiPair> {
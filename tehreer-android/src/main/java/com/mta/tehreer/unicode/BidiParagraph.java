@@ -20,6 +20,7 @@ import androidx.annotation.NonNull;
 
 import com.mta.tehreer.Disposable;
 import com.mta.tehreer.collections.ByteList;
+import com.mta.tehreer.internal.Cleaner;
 import com.mta.tehreer.internal.Constants;
 import com.mta.tehreer.internal.Description;
 import com.mta.tehreer.internal.JniBridge;
@@ -43,21 +44,13 @@ public class BidiParagraph implements Disposable {
     private static final class Finalizable extends BidiParagraph {
         Finalizable(@NonNull BidiParagraph parent) {
             super(parent);
+            Cleaner.register(this, Cleaner.disposer(parent));
         }
 
         @Override
         public void dispose() {
             throw new UnsupportedOperationException(Constants.EXCEPTION_FINALIZABLE_OBJECT);
         }
-
-        @Override
-        protected void finalize() throws Throwable {
-            try {
-                super.dispose();
-            } finally {
-                super.finalize();
-            }
-        }
     }
 
     /**
@@ -54,6 +54,21 @@ public class ScriptClassifier {
         nClassify(text, scripts);
     }
 
+    /**
+     * Constructs a script classifier object for the text of the specified buffer. The native text
+     * of the buffer is read directly rather than copied.
+     *
+     * @param buffer The buffer containing the text whose script classification is desired.
+     */
+    public ScriptClassifier(@NonNull TextBuffer buffer) {
+        checkNotNull(buffer, "buffer");
+
+        this.text = buffer.getText();
+        this.scripts = new byte[text.length()];
+
+        nClassifyBuffer(buffer.nativeBuffer, scripts);
+    }
+
     /**
      * Returns the text that the script classifier object was created for.
      *
@@ -102,6 +117,7 @@ public class ScriptClassifier {
     }
 
     private static native void nClassify(String text, byte[] scripts);
+    private static native void nClassifyBuffer(long nativeBuffer, byte[] scripts);
 
     private static class RunIterator implements Iterator<ScriptRun> {
         final byte[] scripts;
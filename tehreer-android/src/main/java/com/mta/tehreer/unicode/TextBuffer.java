@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.unicode;
+
+import androidx.annotation.NonNull;
+
+import com.mta.tehreer.Disposable;
+import com.mta.tehreer.internal.Cleaner;
+import com.mta.tehreer.internal.Constants;
+import com.mta.tehreer.internal.JniBridge;
+
+import static com.mta.tehreer.internal.util.Preconditions.checkNotNull;
+
+/**
+ * A <code>TextBuffer</code> object holds a native UTF-16 copy of some text so that it can be
+ * shared among multiple text processing objects without copying it again.
+ * <p>
+ * The text is uploaded to native memory exactly once when the buffer is constructed. Objects such
+ * as {@link BidiAlgorithm}, {@link ScriptClassifier} and
+ * {@link com.mta.tehreer.sfnt.ShapingEngine} can then operate on any range of it by offset. The
+ * native memory is reference counted, so the buffer can be disposed as soon as dependent objects
+ * have been created.
+ */
+public class TextBuffer implements Disposable {
+    static {
+        JniBridge.loadLibrary();
+    }
+
+    private static final class Finalizable extends TextBuffer {
+        Finalizable(@NonNull TextBuffer parent) {
+            super(parent);
+            Cleaner.register(this, Cleaner.disposer(parent));
+        }
+
+        @Override
+        public void dispose() {
+            throw new UnsupportedOperationException(Constants.EXCEPTION_FINALIZABLE_OBJECT);
+        }
+    }
+
+    /**
+     * Wraps a text buffer object into a finalizable instance which is guaranteed to be disposed
+     * automatically by the GC when no longer in use. After calling this method,
+     * <code>dispose()</code> should not be called on either original object or returned object.
+     * Calling <code>dispose()</code> on returned object will throw an
+     * <code>UnsupportedOperationException</code>.
+     * <p>
+     * <strong>Note:</strong> The behavior is undefined if the passed-in object is already disposed
+     * or wrapped into another finalizable instance.
+     *
+     * @param textBuffer The text buffer object to wrap into a finalizable instance.
+     * @return The finalizable instance of the passed-in text buffer object.
+     */
+    public static @NonNull TextBuffer finalizable(@NonNull TextBuffer textBuffer) {
+        if (textBuffer.getClass() == TextBuffer.class) {
+            return new Finalizable(textBuffer);
+        }
+
+        if (textBuffer.getClass() != Finalizable.class) {
+            throw new IllegalArgumentException(Constants.EXCEPTION_SUBCLASS_NOT_SUPPORTED);
+        }
+
+        return textBuffer;
+    }
+
+    /**
+     * Checks whether a text buffer object is finalizable or not.
+     *
+     * @param textBuffer The text buffer object to check.
+     * @return <code>true</code> if the passed-in text buffer object is finalizable,
+     *         <code>false</code> otherwise.
+     */
+    public static boolean isFinalizable(@NonNull TextBuffer textBuffer) {
+        return (textBuffer.getClass() == Finalizable.class);
+    }
+
+    long nativeBuffer;
+    private final @NonNull String text;
+
+    /**
+     * Constructs a text buffer object by uploading the given text into native memory.
+     *
+     * @param text The text to upload.
+     *
+     * @throws NullPointerException if <code>text</code> is <code>null</code>.
+     */
+    public TextBuffer(@NonNull String text) {
+        checkNotNull(text, "text");
+
+        this.nativeBuffer = BidiBuffer.create(text);
+        this.text = text;
+    }
+
+    TextBuffer(@NonNull TextBuffer other) {
+        this.nativeBuffer = other.nativeBuffer;
+        this.text = other.text;
+    }
+
+    /**
+     * Returns the text that this buffer was created for.
+     *
+     * @return The text that this buffer was created for.
+     */
+    public @NonNull String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the number of UTF-16 code units in this buffer.
+     *
+     * @return The number of UTF-16 code units in this buffer.
+     */
+    public int getLength() {
+        return text.length();
+    }
+
+    /**
+     * Returns the native handle of given text buffer.
+     *
+     * @hide
+     */
+    public static long getNativeBuffer(@NonNull TextBuffer textBuffer) {
+        return textBuffer.nativeBuffer;
+    }
+
+    @Override
+    public void dispose() {
+        BidiBuffer.release(nativeBuffer);
+    }
+
+    @Override
+    public String toString() {
+        return "TextBuffer{text=" + text + "}";
+    }
+}
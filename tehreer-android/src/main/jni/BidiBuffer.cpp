@@ -25,7 +25,7 @@
 
 using namespace Tehreer;
 
-BidiBuffer *BidiBuffer::create(const jchar *charArray, jsize charCount)
+BidiBuffer *BidiBuffer::create(jsize charCount)
 {
     const size_t sizeBuffer = sizeof(BidiBuffer);
     const size_t sizeData = sizeof(jchar) * charCount;
@@ -40,7 +40,13 @@ BidiBuffer *BidiBuffer::create(const jchar *charArray, jsize charCount)
     buffer->m_length = charCount;
     buffer->m_retainCount = 1;
 
-    memcpy(buffer->m_data, charArray, sizeData);
+    return buffer;
+}
+
+BidiBuffer *BidiBuffer::create(const jchar *charArray, jsize charCount)
+{
+    BidiBuffer *buffer = create(charCount);
+    memcpy(buffer->m_data, charArray, sizeof(jchar) * charCount);
 
     return buffer;
 }
@@ -59,12 +65,11 @@ void BidiBuffer::release()
 
 static jlong create(JNIEnv *env, jobject obj, jstring string)
 {
-    const jchar *charArray = env->GetStringChars(string, nullptr);
     jsize charCount = env->GetStringLength(string);
+    BidiBuffer *bidiBuffer = BidiBuffer::create(charCount);
 
-    BidiBuffer *bidiBuffer = BidiBuffer::create(charArray, charCount);
-
-    env->ReleaseStringChars(string, charArray);
+    /* Copy the characters straight into the buffer to avoid an intermediate copy. */
+    env->GetStringRegion(string, 0, charCount, bidiBuffer->data());
 
     return reinterpret_cast<jlong>(bidiBuffer);
 }
@@ -25,6 +25,7 @@ namespace Tehreer {
 
 class alignas(sizeof(size_t)) BidiBuffer {
 public:
+    static BidiBuffer *create(jsize charCount);
     static BidiBuffer *create(const jchar *charArray, jsize charCount);
 
     jchar *data() const { return m_data; }
@@ -23,8 +23,13 @@ extern "C" {
 #include <android/asset_manager.h>
 #include <android/asset_manager_jni.h>
 #include <cstdlib>
+#include <cstring>
+#include <fcntl.h>
 #include <jni.h>
 #include <mutex>
+#include <sys/mman.h>
+#include <sys/stat.h>
+#include <unistd.h>
 
 #include "FreeType.h"
 #include "JavaBridge.h"
@@ -102,6 +107,17 @@ FontFile *FontFile::createFromAsset(AAssetManager *assetManager, const char *pat
 
 FontFile *FontFile::createFromPath(const char *path)
 {
+    int fd = open(path, O_RDONLY | O_CLOEXEC);
+    if (fd >= 0) {
+        FontFile *fontFile = createFromDescriptor(fd);
+        close(fd);
+
+        if (fontFile) {
+            return fontFile;
+        }
+    }
+
+    // Let FreeType read the file by itself if it could not be mapped.
     FT_Open_Args args;
     args.flags = FT_OPEN_PATHNAME;
     args.memory_base = nullptr;
@@ -112,26 +128,84 @@ FontFile *FontFile::createFromPath(const char *path)
     return createWithArgs(&args);
 }
 
-FontFile *FontFile::createFromStream(const JavaBridge &bridge, jobject stream)
+FontFile *FontFile::createFromDescriptor(int fd)
+{
+    struct stat fileStat;
+    if (fstat(fd, &fileStat) != 0 || !S_ISREG(fileStat.st_mode) || fileStat.st_size <= 0) {
+        return nullptr;
+    }
+
+    size_t length = static_cast<size_t>(fileStat.st_size);
+    void *buffer = mmap(nullptr, length, PROT_READ, MAP_PRIVATE, fd, 0);
+    if (buffer == MAP_FAILED) {
+        return nullptr;
+    }
+
+    // The mapping stays valid after the descriptor is closed, so all faces and instances of the
+    // file share the same pages which the kernel can reclaim under memory pressure.
+    FT_Open_Args args;
+    args.flags = FT_OPEN_MEMORY;
+    args.memory_base = static_cast<const FT_Byte *>(buffer);
+    args.memory_size = static_cast<FT_Long>(length);
+    args.pathname = nullptr;
+    args.stream = nullptr;
+
+    return createWithArgs(&args, length);
+}
+
+FontFile *FontFile::createFromStream(const JavaBridge &bridge, jobject stream, size_t sizeHint)
 {
     size_t length;
-    void *buffer = StreamUtils::toRawBuffer(bridge, stream, &length);
+    void *buffer = StreamUtils::toRawBuffer(bridge, stream, sizeHint, &length);
 
     if (buffer) {
-        FT_Open_Args args;
-        args.flags = FT_OPEN_MEMORY;
-        args.memory_base = static_cast<const FT_Byte *>(buffer);
-        args.memory_size = length;
-        args.pathname = nullptr;
-        args.stream = nullptr;
+        return createWithBuffer(buffer, length);
+    }
 
-        return createWithArgs(&args);
+    return nullptr;
+}
+
+FontFile *FontFile::createFromChannel(const JavaBridge &bridge, jobject channel, size_t sizeHint)
+{
+    size_t length;
+    void *buffer = StreamUtils::channelToRawBuffer(bridge, channel, sizeHint, &length);
+
+    if (buffer) {
+        return createWithBuffer(buffer, length);
+    }
+
+    return nullptr;
+}
+
+FontFile *FontFile::createFromData(const void *data, size_t length)
+{
+    if (length > 0) {
+        void *buffer = malloc(length);
+        if (!buffer) {
+            return nullptr;
+        }
+
+        memcpy(buffer, data, length);
+
+        return createWithBuffer(buffer, length);
     }
 
     return nullptr;
 }
 
-FontFile *FontFile::createWithArgs(const FT_Open_Args *args)
+FontFile *FontFile::createWithBuffer(void *buffer, size_t length)
+{
+    FT_Open_Args args;
+    args.flags = FT_OPEN_MEMORY;
+    args.memory_base = static_cast<const FT_Byte *>(buffer);
+    args.memory_size = static_cast<FT_Long>(length);
+    args.pathname = nullptr;
+    args.stream = nullptr;
+
+    return createWithArgs(&args);
+}
+
+FontFile *FontFile::createWithArgs(const FT_Open_Args *args, size_t mappedSize)
 {
     std::mutex &mutex = FreeType::mutex();
     mutex.lock();
@@ -146,13 +220,14 @@ FontFile *FontFile::createWithArgs(const FT_Open_Args *args)
 
     mutex.unlock();
 
-    return new FontFile(args, (void *)args->memory_base, args->stream, numFaces);
+    return new FontFile(args, (void *)args->memory_base, mappedSize, args->stream, numFaces);
 }
 
-FontFile::FontFile(const FT_Open_Args *args, void *buffer, FT_Stream stream, FT_Long numFaces)
+FontFile::FontFile(const FT_Open_Args *args, void *buffer, size_t mappedSize, FT_Stream stream, FT_Long numFaces)
 {
     m_args = *args;
     m_buffer = buffer;
+    m_mappedSize = mappedSize;
     m_stream = stream;
     m_numFaces = numFaces;
     m_retainCount = 1;
@@ -164,7 +239,11 @@ FontFile::~FontFile()
         disposeStream(m_stream);
     }
     if (m_buffer) {
-        free(m_buffer);
+        if (m_mappedSize) {
+            munmap(m_buffer, m_mappedSize);
+        } else {
+            free(m_buffer);
+        }
     }
 }
 
@@ -230,6 +309,12 @@ static jlong createFromPath(JNIEnv *env, jobject obj, jstring path)
     return 0;
 }
 
+static jlong createFromDescriptor(JNIEnv *env, jobject obj, jint fd)
+{
+    FontFile *fontFile = FontFile::createFromDescriptor(fd);
+    return reinterpret_cast<jlong>(fontFile);
+}
+
 static jlong createFromStream(JNIEnv *env, jobject obj, jobject stream)
 {
     if (stream) {
@@ -257,6 +342,10 @@ static jint getFaceCount(JNIEnv *env, jobject obj, jlong fontFileHandle)
 static jint getInstanceCount(JNIEnv *env, jobject obj, jobject jtypeface)
 {
     jlong typefaceHandle = JavaBridge(env).Typeface_getNativeTypeface(jtypeface);
+    if (!typefaceHandle) {
+        return 0;
+    }
+
     Typeface *typeface = reinterpret_cast<Typeface *>(typefaceHandle);
     FT_Face baseFace = typeface->ftFace();
     FT_Long numInstances = baseFace->style_flags >> 16;
@@ -283,6 +372,7 @@ static jobject createTypeface(JNIEnv *env, jobject obj,
 static JNINativeMethod JNI_METHODS[] = {
     { "nCreateFromAsset", "(Landroid/content/res/AssetManager;Ljava/lang/String;)J", (void *)createFromAsset },
     { "nCreateFromPath", "(Ljava/lang/String;)J", (void *)createFromPath },
+    { "nCreateFromDescriptor", "(I)J", (void *)createFromDescriptor },
     { "nCreateFromStream", "(Ljava/io/InputStream;)J", (void *)createFromStream },
     { "nRelease", "(J)V", (void *)release },
     { "nGetFaceCount", "(J)I", (void *)getFaceCount },
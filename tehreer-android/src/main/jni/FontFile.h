@@ -25,6 +25,7 @@ extern "C" {
 
 #include <android/asset_manager.h>
 #include <atomic>
+#include <cstddef>
 #include <jni.h>
 
 #include "JavaBridge.h"
@@ -35,7 +36,11 @@ class FontFile {
 public:
     static FontFile *createFromAsset(AAssetManager *assetManager, const char *path);
     static FontFile *createFromPath(const char *path);
-    static FontFile *createFromStream(const JavaBridge &bridge, jobject stream);
+    static FontFile *createFromDescriptor(int fd);
+    static FontFile *createFromStream(const JavaBridge &bridge, jobject stream, size_t sizeHint = 0);
+    static FontFile *createFromChannel(const JavaBridge &bridge, jobject channel, size_t sizeHint = 0);
+    static FontFile *createFromData(const void *data, size_t length);
+    static FontFile *createWithBuffer(void *buffer, size_t length);
 
     ~FontFile();
 
@@ -49,13 +54,14 @@ private:
     FT_Open_Args m_args;
 
     void *m_buffer;
+    size_t m_mappedSize;
     FT_Stream m_stream;
     FT_Long m_numFaces;
     std::atomic_int m_retainCount;
 
-    static FontFile *createWithArgs(const FT_Open_Args *args);
+    static FontFile *createWithArgs(const FT_Open_Args *args, size_t mappedSize = 0);
 
-    FontFile(const FT_Open_Args *args, void *buffer, FT_Stream stream, FT_Long numFaces);
+    FontFile(const FT_Open_Args *args, void *buffer, size_t mappedSize, FT_Stream stream, FT_Long numFaces);
 };
 
 }
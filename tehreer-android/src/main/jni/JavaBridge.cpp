@@ -50,12 +50,15 @@ static jmethodID PATH__LINE_TO;
 static jmethodID PATH__MOVE_TO;
 static jmethodID PATH__QUAD_TO;
 
+static jmethodID READABLE_BYTE_CHANNEL__READ;
+
 static jmethodID RECT__SET;
 
 static jclass    STRING;
 
 static jclass    TYPEFACE;
 static jmethodID TYPEFACE__CONSTRUCTOR;
+static jmethodID TYPEFACE__HANDLE;
 static jfieldID  TYPEFACE__NATIVE_TYPEFACE;
 
 void JavaBridge::load(JNIEnv* env)
@@ -105,6 +108,9 @@ void JavaBridge::load(JNIEnv* env)
     PATH__MOVE_TO = env->GetMethodID(clazz, "moveTo", "(FF)V");
     PATH__QUAD_TO = env->GetMethodID(clazz, "quadTo", "(FFFF)V");
 
+    clazz = env->FindClass("java/nio/channels/ReadableByteChannel");
+    READABLE_BYTE_CHANNEL__READ = env->GetMethodID(clazz, "read", "(Ljava/nio/ByteBuffer;)I");
+
     clazz = env->FindClass("android/graphics/Rect");
     RECT__SET = env->GetMethodID(clazz, "set", "(IIII)V");
 
@@ -114,6 +120,7 @@ void JavaBridge::load(JNIEnv* env)
     clazz = env->FindClass("com/mta/tehreer/graphics/Typeface");
     TYPEFACE = (jclass)env->NewGlobalRef(clazz);
     TYPEFACE__CONSTRUCTOR = env->GetMethodID(clazz, "<init>", "(J)V");
+    TYPEFACE__HANDLE = env->GetMethodID(clazz, "handle", "()J");
     TYPEFACE__NATIVE_TYPEFACE = env->GetFieldID(clazz, "nativeTypeface", "J");
 }
 
@@ -217,6 +224,11 @@ void JavaBridge::Path_quadTo(jobject path, jfloat x1, jfloat y1, jfloat x2, jflo
     m_env->CallVoidMethod(path, PATH__QUAD_TO, x1, y1, x2, y2);
 }
 
+jint JavaBridge::ReadableByteChannel_read(jobject channel, jobject buffer) const
+{
+    return m_env->CallIntMethod(channel, READABLE_BYTE_CHANNEL__READ, buffer);
+}
+
 void JavaBridge::Rect_set(jobject rect, jint left, jint top, jint right, jint bottom) const
 {
     m_env->CallVoidMethod(rect, RECT__SET, left, top, right, bottom);
@@ -234,5 +246,15 @@ jobject JavaBridge::Typeface_construct(jlong typefaceHandle) const
 
 jlong JavaBridge::Typeface_getNativeTypeface(jobject typeface) const
 {
-    return m_env->GetLongField(typeface, TYPEFACE__NATIVE_TYPEFACE);
+    jlong typefaceHandle = m_env->GetLongField(typeface, TYPEFACE__NATIVE_TYPEFACE);
+    if (!typefaceHandle) {
+        // The typeface is opened lazily, so let it load the native face first.
+        typefaceHandle = m_env->CallLongMethod(typeface, TYPEFACE__HANDLE);
+        if (m_env->ExceptionCheck()) {
+            // Callers must return right away on 0, letting the pending exception propagate.
+            return 0;
+        }
+    }
+
+    return typefaceHandle;
 }
@@ -56,10 +56,13 @@ public:
     void Path_moveTo(jobject path, jfloat dx, jfloat dy) const;
     void Path_quadTo(jobject path, jfloat x1, jfloat y1, jfloat x2, jfloat y2) const;
 
+    jint ReadableByteChannel_read(jobject channel, jobject buffer) const;
+
     void Rect_set(jobject rect, jint left, jint top, jint right, jint bottom) const;
 
     jclass String_class() const;
 
+
     jobject Typeface_construct(jlong typefaceHandle) const;
     jlong Typeface_getNativeTypeface(jobject typeface) const;
 
@@ -22,19 +22,14 @@ extern "C" {
 
 #include <jni.h>
 
+#include "BidiBuffer.h"
 #include "JavaBridge.h"
 #include "ScriptClassifier.h"
 
 using namespace Tehreer;
 
-static void classify(JNIEnv *env, jobject obj, jstring text, jbyteArray scripts)
+static void classifyChars(const jchar *charArray, jsize charCount, jbyte *scriptArray)
 {
-    const jchar *charArray = env->GetStringChars(text, nullptr);
-    jsize charCount = env->GetStringLength(text);
-
-    void *scriptsPtr = env->GetPrimitiveArrayCritical(scripts, nullptr);
-    jbyte *scriptArray = static_cast<jbyte *>(scriptsPtr);
-
     SBCodepointSequence codepointSequence;
     codepointSequence.stringEncoding = SBStringEncodingUTF16;
     codepointSequence.stringBuffer = (void *)charArray;
@@ -55,13 +50,37 @@ static void classify(JNIEnv *env, jobject obj, jstring text, jbyteArray scripts)
     }
 
     SBScriptLocatorRelease(scriptLocator);
+}
+
+static void classify(JNIEnv *env, jobject obj, jstring text, jbyteArray scripts)
+{
+    const jchar *charArray = env->GetStringChars(text, nullptr);
+    jsize charCount = env->GetStringLength(text);
+
+    void *scriptsPtr = env->GetPrimitiveArrayCritical(scripts, nullptr);
+    jbyte *scriptArray = static_cast<jbyte *>(scriptsPtr);
+
+    classifyChars(charArray, charCount, scriptArray);
 
     env->ReleasePrimitiveArrayCritical(scripts, scriptsPtr, 0);
     env->ReleaseStringChars(text, charArray);
 }
 
+static void classifyBuffer(JNIEnv *env, jobject obj, jlong bufferHandle, jbyteArray scripts)
+{
+    BidiBuffer *bidiBuffer = reinterpret_cast<BidiBuffer *>(bufferHandle);
+
+    void *scriptsPtr = env->GetPrimitiveArrayCritical(scripts, nullptr);
+    jbyte *scriptArray = static_cast<jbyte *>(scriptsPtr);
+
+    classifyChars(bidiBuffer->data(), bidiBuffer->length(), scriptArray);
+
+    env->ReleasePrimitiveArrayCritical(scripts, scriptsPtr, 0);
+}
+
 static JNINativeMethod JNI_METHODS[] = {
     { "nClassify", "(Ljava/lang/String;[B)V", (void *)classify },
+    { "nClassifyBuffer", "(J[B)V", (void *)classifyBuffer },
 };
 
 jint register_com_mta_tehreer_unicode_ScriptClassifier(JNIEnv *env)
@@ -573,6 +573,10 @@ jstring getNameCharset(JNIEnv *env, jobject obj, jint platformId, jint encodingI
 jint getNameCount(JNIEnv *env, jobject obj, jobject jtypeface)
 {
     jlong typefaceHandle = JavaBridge(env).Typeface_getNativeTypeface(jtypeface);
+    if (!typefaceHandle) {
+        return 0;
+    }
+
     Typeface *typeface = reinterpret_cast<Typeface *>(typefaceHandle);
     FT_Face baseFace = typeface->ftFace();
     FT_UInt nameCount = FT_Get_Sfnt_Name_Count(baseFace);
@@ -583,6 +587,10 @@ jint getNameCount(JNIEnv *env, jobject obj, jobject jtypeface)
 jobject getNameRecord(JNIEnv *env, jobject obj, jobject jtypeface, jint index)
 {
     jlong typefaceHandle = JavaBridge(env).Typeface_getNativeTypeface(jtypeface);
+    if (!typefaceHandle) {
+        return nullptr;
+    }
+
     Typeface *typeface = reinterpret_cast<Typeface *>(typefaceHandle);
     FT_Face baseFace = typeface->ftFace();
 
@@ -604,6 +612,10 @@ jobject getNameRecord(JNIEnv *env, jobject obj, jobject jtypeface, jint index)
 jstring getGlyphName(JNIEnv *env, jobject obj, jobject jtypeface, jint index)
 {
     jlong typefaceHandle = JavaBridge(env).Typeface_getNativeTypeface(jtypeface);
+    if (!typefaceHandle) {
+        return nullptr;
+    }
+
     Typeface *typeface = reinterpret_cast<Typeface *>(typefaceHandle);
     FT_Face baseFace = typeface->ftFace();
 
@@ -616,6 +628,10 @@ jstring getGlyphName(JNIEnv *env, jobject obj, jobject jtypeface, jint index)
 jlong getTablePointer(JNIEnv *env, jobject obj, jobject jtypeface, jint table)
 {
     jlong typefaceHandle = JavaBridge(env).Typeface_getNativeTypeface(jtypeface);
+    if (!typefaceHandle) {
+        return 0;
+    }
+
     Typeface *typeface = reinterpret_cast<Typeface *>(typefaceHandle);
     FT_Face baseFace = typeface->ftFace();
     FT_Sfnt_Tag tableTag = static_cast<FT_Sfnt_Tag>(table);
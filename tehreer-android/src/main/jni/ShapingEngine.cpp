@@ -25,6 +25,7 @@ extern "C" {
 #include <jni.h>
 #include <vector>
 
+#include "BidiBuffer.h"
 #include "JavaBridge.h"
 #include "PatternCache.h"
 #include "ShapingEngine.h"
@@ -76,7 +77,7 @@ void ShapingEngine::setWritingDirection(WritingDirection writingDirection)
     SFArtistSetTextDirection(m_sfArtist, writingDirection);
 }
 
-void ShapingEngine::shapeText(ShapingResult &shapingResult, const jchar *charArray, jint charStart, jint charEnd)
+void ShapingEngine::shapeText(ShapingResult &shapingResult, const jchar *rangeBuffer, jint charStart, jint charEnd)
 {
     PatternCache &cache = m_typeface->patternCache();
     PatternKey key(m_scriptTag, m_languageTag, m_featureTags, m_featureValues);
@@ -94,13 +95,15 @@ void ShapingEngine::shapeText(ShapingResult &shapingResult, const jchar *charArr
     }
 
     if (pattern) {
-        jchar *stringOffset = const_cast<jchar *>(charArray + charStart);
-        void *stringBuffer = reinterpret_cast<void *>(stringOffset);
+        void *stringBuffer = reinterpret_cast<void *>(const_cast<jchar *>(rangeBuffer));
         SFUInteger stringLength = static_cast<SFUInteger>(charEnd - charStart);
 
         SFArtistSetPattern(m_sfArtist, pattern);
         SFArtistSetString(m_sfArtist, SFStringEncodingUTF16, stringBuffer, stringLength);
         SFArtistFillAlbum(m_sfArtist, shapingResult.sfAlbum());
+    } else {
+        /* Drop anything left over from a previous use of the result. */
+        shapingResult.clear();
     }
 
     jfloat sizeByEm = m_typeSize / m_typeface->ftFace()->units_per_EM;
@@ -136,6 +139,10 @@ static void setTypeface(JNIEnv *env, jobject obj, jlong engineHandle, jobject jt
 
     if (jtypeface) {
         jlong typefaceHandle = JavaBridge(env).Typeface_getNativeTypeface(jtypeface);
+        if (!typefaceHandle) {
+            return;
+        }
+
         typeface = reinterpret_cast<Typeface *>(typefaceHandle);
     }
 
@@ -243,11 +250,20 @@ static void shapeText(JNIEnv *env, jobject obj, jlong engineHandle, jlong result
     ShapingEngine *shapingEngine = reinterpret_cast<ShapingEngine *>(engineHandle);
     ShapingResult *shapingResult = reinterpret_cast<ShapingResult *>(resultHandle);
 
-    const jchar *charArray = env->GetStringChars(text, nullptr);
+    /* Copy only the range being shaped rather than the whole string. */
+    vector<jchar> rangeBuffer(static_cast<size_t>(toIndex - fromIndex));
+    env->GetStringRegion(text, fromIndex, toIndex - fromIndex, rangeBuffer.data());
+
+    shapingEngine->shapeText(*shapingResult, rangeBuffer.data(), fromIndex, toIndex);
+}
 
-    shapingEngine->shapeText(*shapingResult, charArray, fromIndex, toIndex);
+static void shapeBuffer(JNIEnv *env, jobject obj, jlong engineHandle, jlong resultHandle, jlong bufferHandle, jint fromIndex, jint toIndex)
+{
+    ShapingEngine *shapingEngine = reinterpret_cast<ShapingEngine *>(engineHandle);
+    ShapingResult *shapingResult = reinterpret_cast<ShapingResult *>(resultHandle);
+    BidiBuffer *bidiBuffer = reinterpret_cast<BidiBuffer *>(bufferHandle);
 
-    env->ReleaseStringChars(text, charArray);
+    shapingEngine->shapeText(*shapingResult, bidiBuffer->data() + fromIndex, fromIndex, toIndex);
 }
 
 static JNINativeMethod JNI_METHODS[] = {
@@ -267,6 +283,7 @@ static JNINativeMethod JNI_METHODS[] = {
     { "nGetShapingOrder", "(J)I", (void *)getShapingOrder },
     { "nSetShapingOrder", "(JI)V", (void *)setShapingOrder },
     { "nShapeText", "(JJLjava/lang/String;II)V", (void *)shapeText },
+    { "nShapeBuffer", "(JJJII)V", (void *)shapeBuffer },
 };
 
 jint register_com_mta_tehreer_sfnt_ShapingEngine(JNIEnv *env)
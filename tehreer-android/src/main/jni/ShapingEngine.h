@@ -72,7 +72,7 @@ public:
     WritingDirection writingDirection() const { return m_writingDirection; }
     void setWritingDirection(WritingDirection writingDirection);
 
-    void shapeText(ShapingResult &shapingResult, const jchar *charArray, jint charStart, jint charEnd);
+    void shapeText(ShapingResult &shapingResult, const jchar *rangeBuffer, jint charStart, jint charEnd);
 
 private:
     SFArtistRef m_sfArtist;
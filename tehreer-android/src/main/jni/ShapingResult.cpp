@@ -28,6 +28,7 @@ using namespace Tehreer;
 
 ShapingResult::ShapingResult()
     : m_sfAlbum(SFAlbumCreate())
+    , m_sizeByEm(0.0f)
     , m_isBackward(false)
     , m_charStart(0)
     , m_charEnd(0)
@@ -39,6 +40,12 @@ ShapingResult::~ShapingResult()
     SFAlbumRelease(m_sfAlbum);
 }
 
+void ShapingResult::clear()
+{
+    SFAlbumRelease(m_sfAlbum);
+    m_sfAlbum = SFAlbumCreate();
+}
+
 void ShapingResult::setAdditionalInfo(jfloat sizeByEm, bool isBackward, jint charStart, jint charEnd)
 {
     m_sizeByEm = sizeByEm;
@@ -142,6 +149,81 @@ static jlong getClusterMapPtr(JNIEnv *env, jobject obj, jlong resultHandle)
     return reinterpret_cast<jlong>(charToGlyphMapPtr);
 }
 
+static void copyGlyphIds(JNIEnv *env, jobject obj, jlong resultHandle, jintArray destination, jint start)
+{
+    ShapingResult *shapingResult = reinterpret_cast<ShapingResult *>(resultHandle);
+    SFAlbumRef baseAlbum = shapingResult->sfAlbum();
+    SFUInteger glyphCount = SFAlbumGetGlyphCount(baseAlbum);
+    const SFGlyphID *glyphIDsPtr = SFAlbumGetGlyphIDsPtr(baseAlbum);
+
+    void *raw = env->GetPrimitiveArrayCritical(destination, nullptr);
+    jint *values = static_cast<jint *>(raw) + start;
+
+    for (SFUInteger i = 0; i < glyphCount; i++) {
+        values[i] = static_cast<jint>(glyphIDsPtr[i]);
+    }
+
+    env->ReleasePrimitiveArrayCritical(destination, raw, 0);
+}
+
+static void copyGlyphOffsets(JNIEnv *env, jobject obj, jlong resultHandle, jfloatArray destination, jint start)
+{
+    ShapingResult *shapingResult = reinterpret_cast<ShapingResult *>(resultHandle);
+    SFAlbumRef baseAlbum = shapingResult->sfAlbum();
+    SFUInteger glyphCount = SFAlbumGetGlyphCount(baseAlbum);
+    const SFPoint *glyphOffsetsPtr = SFAlbumGetGlyphOffsetsPtr(baseAlbum);
+    jfloat scale = shapingResult->sizeByEm();
+
+    void *raw = env->GetPrimitiveArrayCritical(destination, nullptr);
+    jfloat *values = static_cast<jfloat *>(raw) + start;
+
+    for (SFUInteger i = 0; i < glyphCount; i++) {
+        values[(i * 2) + 0] = glyphOffsetsPtr[i].x * scale;
+        values[(i * 2) + 1] = glyphOffsetsPtr[i].y * scale;
+    }
+
+    env->ReleasePrimitiveArrayCritical(destination, raw, 0);
+}
+
+static void copyGlyphAdvances(JNIEnv *env, jobject obj, jlong resultHandle, jfloatArray destination, jint start)
+{
+    ShapingResult *shapingResult = reinterpret_cast<ShapingResult *>(resultHandle);
+    SFAlbumRef baseAlbum = shapingResult->sfAlbum();
+    SFUInteger glyphCount = SFAlbumGetGlyphCount(baseAlbum);
+    const SFInt32 *glyphAdvancesPtr = SFAlbumGetGlyphAdvancesPtr(baseAlbum);
+    jfloat scale = shapingResult->sizeByEm();
+
+    void *raw = env->GetPrimitiveArrayCritical(destination, nullptr);
+    jfloat *values = static_cast<jfloat *>(raw) + start;
+
+    for (SFUInteger i = 0; i < glyphCount; i++) {
+        values[i] = glyphAdvancesPtr[i] * scale;
+    }
+
+    env->ReleasePrimitiveArrayCritical(destination, raw, 0);
+}
+
+static void copyClusterMap(JNIEnv *env, jobject obj, jlong resultHandle, jintArray destination, jint start)
+{
+    ShapingResult *shapingResult = reinterpret_cast<ShapingResult *>(resultHandle);
+    SFAlbumRef baseAlbum = shapingResult->sfAlbum();
+    const SFUInteger *charToGlyphMapPtr = SFAlbumGetCodeunitToGlyphMapPtr(baseAlbum);
+    jint charCount = shapingResult->charEnd() - shapingResult->charStart();
+
+    if (!charToGlyphMapPtr) {
+        return;
+    }
+
+    void *raw = env->GetPrimitiveArrayCritical(destination, nullptr);
+    jint *values = static_cast<jint *>(raw) + start;
+
+    for (jint i = 0; i < charCount; i++) {
+        values[i] = static_cast<jint>(charToGlyphMapPtr[i]);
+    }
+
+    env->ReleasePrimitiveArrayCritical(destination, raw, 0);
+}
+
 static void getCaretEdges(JNIEnv *env, jobject obj, jlong resultHandle,
     jbooleanArray caretStops, jfloatArray caretEdges)
 {
@@ -180,6 +262,10 @@ static JNINativeMethod JNI_METHODS[] = {
     { "nGetGlyphOffsetsPtr", "(J)J", (void *)getGlyphOffsetsPtr },
     { "nGetGlyphAdvancesPtr", "(J)J", (void *)getGlyphAdvancesPtr },
     { "nGetClusterMapPtr", "(J)J", (void *)getClusterMapPtr },
+    { "nCopyGlyphIds", "(J[II)V", (void *)copyGlyphIds },
+    { "nCopyGlyphOffsets", "(J[FI)V", (void *)copyGlyphOffsets },
+    { "nCopyGlyphAdvances", "(J[FI)V", (void *)copyGlyphAdvances },
+    { "nCopyClusterMap", "(J[II)V", (void *)copyClusterMap },
     { "nGetCaretEdges", "(J[Z[F)V", (void *)getCaretEdges },
 };
 
@@ -32,6 +32,7 @@ public:
 
     SFAlbumRef sfAlbum() const { return m_sfAlbum; }
 
+    void clear();
     void setAdditionalInfo(jfloat sizeByEm, bool isBackward, jint charStart, jint charEnd);
 
     jfloat sizeByEm() const { return m_sizeByEm; }
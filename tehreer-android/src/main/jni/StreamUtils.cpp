@@ -23,17 +23,22 @@
 
 using namespace Tehreer;
 
-void *StreamUtils::toRawBuffer(const JavaBridge &bridge, jobject stream, size_t *length)
+void *StreamUtils::toRawBuffer(const JavaBridge &bridge, jobject stream, size_t sizeHint, size_t *length)
 {
     JNIEnv *env = bridge.env();
 
-    const jint chunkLength = 4096;
+    // Read in large chunks to keep the number of upcalls into Java small.
+    const jint chunkLength = 65536;
     jbyteArray chunkArray = env->NewByteArray(chunkLength);
 
-    size_t bufferCapacity = chunkLength;
+    // Start with the hinted size so that the buffer is not reallocated if the hint is accurate.
+    size_t bufferCapacity = sizeHint > 0 ? sizeHint : chunkLength;
     void *streamBuffer = malloc(bufferCapacity);
+    if (!streamBuffer) {
+        env->DeleteLocalRef(chunkArray);
+        return nullptr;
+    }
 
-    size_t bufferOffset = 0;
     *length = 0;
 
     jint bytesRead;
@@ -45,16 +50,101 @@ void *StreamUtils::toRawBuffer(const JavaBridge &bridge, jobject stream, size_t
                 bufferCapacity = newLength;
             }
 
-            streamBuffer = realloc(streamBuffer, bufferCapacity);
+            void *grownBuffer = realloc(streamBuffer, bufferCapacity);
+            if (!grownBuffer) {
+                free(streamBuffer);
+                env->DeleteLocalRef(chunkArray);
+                return nullptr;
+            }
+            streamBuffer = grownBuffer;
         }
 
-        void *chunkData = env->GetPrimitiveArrayCritical(chunkArray, nullptr);
-        memcpy((uint8_t *)streamBuffer + bufferOffset, chunkData, (size_t)bytesRead);
-        env->ReleasePrimitiveArrayCritical(chunkArray, chunkData, 0);
-
-        bufferOffset += bytesRead;
+        env->GetByteArrayRegion(chunkArray, 0, bytesRead, (jbyte *)streamBuffer + *length);
         *length = newLength;
     }
 
-    return realloc(streamBuffer, *length);
+    env->DeleteLocalRef(chunkArray);
+
+    if (*length == 0) {
+        free(streamBuffer);
+        return nullptr;
+    }
+    if (*length < bufferCapacity) {
+        // Keep the larger buffer if it cannot be shrunk.
+        void *shrunkBuffer = realloc(streamBuffer, *length);
+        if (shrunkBuffer) {
+            streamBuffer = shrunkBuffer;
+        }
+    }
+
+    return streamBuffer;
+}
+
+void *StreamUtils::channelToRawBuffer(const JavaBridge &bridge, jobject channel, size_t sizeHint, size_t *length)
+{
+    JNIEnv *env = bridge.env();
+
+    const size_t chunkLength = 256 * 1024;
+
+    // Start with the hinted size so that the buffer is not reallocated if the hint is accurate.
+    size_t bufferCapacity = sizeHint > 0 ? sizeHint : chunkLength;
+    uint8_t *channelBuffer = static_cast<uint8_t *>(malloc(bufferCapacity));
+    uint8_t probeByte;
+    if (!channelBuffer) {
+        return nullptr;
+    }
+
+    *length = 0;
+
+    while (true) {
+        // Once the buffer is full, read a single byte to find out whether the channel has ended,
+        // so that the buffer is only grown if there is actually more data.
+        bool probing = (*length == bufferCapacity);
+        uint8_t *target = probing ? &probeByte : channelBuffer + *length;
+        size_t targetLength = probing ? 1 : bufferCapacity - *length;
+
+        // The channel reads directly into the native buffer through a direct byte buffer.
+        jobject byteBuffer = env->NewDirectByteBuffer(target, static_cast<jlong>(targetLength));
+        jint bytesRead = bridge.ReadableByteChannel_read(channel, byteBuffer);
+        env->DeleteLocalRef(byteBuffer);
+
+        if (env->ExceptionCheck()) {
+            free(channelBuffer);
+            return nullptr;
+        }
+        if (bytesRead < 0) {
+            break;
+        }
+
+        if (probing && bytesRead > 0) {
+            bufferCapacity = bufferCapacity * 2;
+            if (bufferCapacity < *length + chunkLength) {
+                bufferCapacity = *length + chunkLength;
+            }
+
+            uint8_t *grownBuffer = static_cast<uint8_t *>(realloc(channelBuffer, bufferCapacity));
+            if (!grownBuffer) {
+                free(channelBuffer);
+                return nullptr;
+            }
+            channelBuffer = grownBuffer;
+            channelBuffer[*length] = probeByte;
+        }
+
+        *length += bytesRead;
+    }
+
+    if (*length == 0) {
+        free(channelBuffer);
+        return nullptr;
+    }
+    if (*length < bufferCapacity) {
+        // Keep the larger buffer if it cannot be shrunk.
+        uint8_t *shrunkBuffer = static_cast<uint8_t *>(realloc(channelBuffer, *length));
+        if (shrunkBuffer) {
+            channelBuffer = shrunkBuffer;
+        }
+    }
+
+    return channelBuffer;
 }
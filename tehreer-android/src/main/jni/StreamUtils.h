@@ -17,6 +17,7 @@
 #ifndef _TEHREER__STREAM_UTILS_H
 #define _TEHREER__STREAM_UTILS_H
 
+#include <cstddef>
 #include <jni.h>
 
 #include "JavaBridge.h"
@@ -25,7 +26,8 @@ namespace Tehreer {
 
 class StreamUtils {
 public:
-    static void *toRawBuffer(const JavaBridge &bridge, jobject stream, size_t *length);
+    static void *toRawBuffer(const JavaBridge &bridge, jobject stream, size_t sizeHint, size_t *length);
+    static void *channelToRawBuffer(const JavaBridge &bridge, jobject channel, size_t sizeHint, size_t *length);
 };
 
 }
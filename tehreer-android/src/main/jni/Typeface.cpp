@@ -31,6 +31,7 @@ extern "C" {
 }
 
 #include <android/asset_manager.h>
+#include <algorithm>
 #include <android/asset_manager_jni.h>
 #include <cstdint>
 #include <cstdlib>
@@ -52,6 +53,8 @@ using namespace Tehreer::SFNT::head;
 using namespace Tehreer::SFNT::name;
 using namespace Tehreer::SFNT::OS2;
 
+static const int32_t INVALID_ADVANCE = INT32_MIN;
+
 static inline FT_F26Dot6 toF26Dot6(float value)
 {
     return static_cast<FT_F26Dot6>((value * 64) + 0.5);
@@ -187,6 +190,9 @@ static inline Typeface::Slope variableSlantToSlope(FT_Fixed coordinate)
     return coordinate != 0 ? Typeface::Slope::OBLIQUE : Typeface::Slope::PLAIN;
 }
 
+std::mutex Typeface::s_variationMutex;
+std::map<Typeface::VariationKey, Typeface::Instance *> Typeface::s_variationInstances;
+
 Typeface *Typeface::createFromFile(FontFile *fontFile, FT_Long faceIndex, FT_Long instanceIndex)
 {
     if (fontFile) {
@@ -250,6 +256,10 @@ Typeface::Instance::Instance(FontFile *fontFile, FT_Face ftFace)
     m_ftSize = nullptr;
     m_ftStroker = nullptr;
     m_sfFont = SFFontCreateWithProtocol(&protocol, this);
+    m_advanceTables[0] = nullptr;
+    m_advanceTables[1] = nullptr;
+    m_charMap = nullptr;
+    m_variationKey = nullptr;
 
     FT_New_Size(m_ftFace, &m_ftSize);
 
@@ -365,8 +375,26 @@ void Typeface::Instance::setupVariation()
 
 Typeface::Instance::~Instance()
 {
+    if (m_variationKey) {
+        s_variationMutex.lock();
+
+        // Another instance may have been registered for the key if this one was already dying.
+        auto entry = s_variationInstances.find(*m_variationKey);
+        if (entry != s_variationInstances.end() && entry->second == this) {
+            s_variationInstances.erase(entry);
+        }
+
+        s_variationMutex.unlock();
+
+        delete m_variationKey;
+    }
+
     SFFontRelease(m_sfFont);
 
+    delete [] m_advanceTables[0].load();
+    delete [] m_advanceTables[1].load();
+    delete m_charMap.load();
+
     if (m_ftStroker) {
         FT_Stroker_Done(m_ftStroker);
     }
@@ -395,6 +423,19 @@ Typeface::Instance *Typeface::Instance::retain()
     return this;
 }
 
+bool Typeface::Instance::tryRetain()
+{
+    int retainCount = m_retainCount.load();
+
+    while (retainCount > 0) {
+        if (m_retainCount.compare_exchange_weak(retainCount, retainCount + 1)) {
+            return true;
+        }
+    }
+
+    return false;
+}
+
 void Typeface::Instance::release()
 {
     if (--m_retainCount == 0) {
@@ -411,18 +452,98 @@ void Typeface::Instance::loadSfntTable(FT_ULong tag, FT_Byte *buffer, FT_ULong *
     m_mutex.unlock();
 }
 
+Typeface::CharMap *Typeface::CharMap::create(FT_Face ftFace)
+{
+    CharMap *charMap = new CharMap();
+    FT_UInt glyphID = 0;
+    FT_ULong codePoint = FT_Get_First_Char(ftFace, &glyphID);
+
+    // FreeType enumerates the character map in increasing order of code points.
+    while (glyphID != 0) {
+        if (charMap->m_segments.empty() || charMap->m_segments.back().end != codePoint) {
+            charMap->m_segments.push_back({ codePoint, codePoint, charMap->m_glyphs.size() });
+        }
+
+        charMap->m_segments.back().end = codePoint + 1;
+        charMap->m_glyphs.push_back(glyphID);
+
+        codePoint = FT_Get_Next_Char(ftFace, codePoint, &glyphID);
+    }
+
+    charMap->m_segments.shrink_to_fit();
+    charMap->m_glyphs.shrink_to_fit();
+
+    return charMap;
+}
+
+FT_UInt Typeface::CharMap::lookup(FT_ULong codePoint) const
+{
+    auto segment = upper_bound(m_segments.begin(), m_segments.end(), codePoint,
+        [](FT_ULong value, const Segment &other) {
+            return value < other.start;
+        });
+    if (segment == m_segments.begin()) {
+        return 0;
+    }
+
+    --segment;
+    if (codePoint >= segment->end) {
+        return 0;
+    }
+
+    return m_glyphs[segment->offset + (codePoint - segment->start)];
+}
+
+const Typeface::CharMap *Typeface::Instance::charMap()
+{
+    CharMap *charMap = m_charMap.load(memory_order_acquire);
+
+    if (!charMap) {
+        m_mutex.lock();
+        CharMap *created = CharMap::create(m_ftFace);
+        m_mutex.unlock();
+
+        // Another thread might have published its character map in the meantime.
+        if (m_charMap.compare_exchange_strong(charMap, created, memory_order_acq_rel)) {
+            charMap = created;
+        } else {
+            delete created;
+        }
+    }
+
+    return charMap;
+}
+
 FT_UInt Typeface::Instance::getGlyphID(FT_ULong codePoint)
 {
-    m_mutex.lock();
+    return charMap()->lookup(codePoint);
+}
 
-    FT_UInt glyphID = FT_Get_Char_Index(m_ftFace, codePoint);
+std::atomic<int32_t> *Typeface::Instance::advanceTable(bool vertical)
+{
+    std::atomic<std::atomic<int32_t> *> &slot = m_advanceTables[vertical ? 1 : 0];
+    std::atomic<int32_t> *table = slot.load(memory_order_acquire);
 
-    m_mutex.unlock();
+    if (!table) {
+        FT_Long glyphCount = m_ftFace->num_glyphs;
+        std::atomic<int32_t> *created = new std::atomic<int32_t>[glyphCount];
+
+        for (FT_Long i = 0; i < glyphCount; i++) {
+            created[i].store(INVALID_ADVANCE, memory_order_relaxed);
+        }
+
+        // Another thread might have published its table in the meantime.
+        if (slot.compare_exchange_strong(table, created, memory_order_acq_rel)) {
+            table = created;
+        } else {
+            delete [] created;
+        }
+    }
 
-    return glyphID;
+    return table;
 }
 
-FT_Fixed Typeface::Instance::getUnscaledAdvance(FT_UInt glyphID, bool vertical)
+FT_Fixed Typeface::Instance::loadUnscaledAdvance(FT_UInt glyphID, bool vertical)
 {
     FT_Int32 loadFlags = FT_LOAD_NO_SCALE;
     if (vertical) {
@@ -431,7 +552,7 @@ FT_Fixed Typeface::Instance::getUnscaledAdvance(FT_UInt glyphID, bool vertical)
 
     m_mutex.lock();
 
-    FT_Fixed advance;
+    FT_Fixed advance = 0;
     FT_Get_Advance(m_ftFace, glyphID, loadFlags, &advance);
 
     m_mutex.unlock();
@@ -439,6 +560,24 @@ FT_Fixed Typeface::Instance::getUnscaledAdvance(FT_UInt glyphID, bool vertical)
     return advance;
 }
 
+FT_Fixed Typeface::Instance::getUnscaledAdvance(FT_UInt glyphID, bool vertical)
+{
+    if (glyphID >= static_cast<FT_UInt>(m_ftFace->num_glyphs)) {
+        return 0;
+    }
+
+    std::atomic<int32_t> *table = advanceTable(vertical);
+    int32_t advance = table[glyphID].load(memory_order_relaxed);
+
+    if (advance == INVALID_ADVANCE) {
+        // Racing threads compute the same value, so a plain store is sufficient.
+        advance = static_cast<int32_t>(loadUnscaledAdvance(glyphID, vertical));
+        table[glyphID].store(advance, memory_order_relaxed);
+    }
+
+    return advance;
+}
+
 Typeface::Typeface(Instance *instance)
 {
     m_instance = instance->retain();
@@ -458,14 +597,70 @@ Typeface::~Typeface()
 
 Typeface *Typeface::deriveVariation(FT_Fixed *coordArray, FT_UInt coordCount)
 {
-    Typeface *typeface = Typeface::createFromFile(m_instance->m_fontFile, ftFace()->face_index, 0);
-    FT_Face ftFace = typeface->ftFace();
+    FontFile *fontFile = m_instance->m_fontFile;
+    FT_Long faceIndex = ftFace()->face_index & 0xFFFF;
+
+    VariationKey key;
+    key.fontFile = fontFile;
+    key.faceIndex = faceIndex;
+    key.coords.assign(coordArray, coordArray + coordCount);
+
+    // Share the instance, along with its pattern cache and advance tables, among all typefaces
+    // deriving the same coordinates from the same face. Only bit-identical coordinates match, so
+    // a new weight still builds its own patterns: a SheenFigure pattern is bound to the font it
+    // was built with, and GSUB feature variations may select different lookups per coordinates.
+    Instance *instance = retainVariationInstance(key);
+
+    if (!instance) {
+        // Create the face outside the lock so that derivations of other fonts are not held up.
+        FT_Face ftFace = fontFile->createFace(faceIndex, 0);
+        if (!ftFace) {
+            return nullptr;
+        }
+
+        // Apply the coordinates before creating the instance so that its description and the font
+        // of SheenFigure are set up for them.
+        FT_Set_Var_Design_Coordinates(ftFace, coordCount, coordArray);
+
+        Instance *created = new Instance(fontFile, ftFace);
+        created->m_variationKey = new VariationKey(key);
+
+        s_variationMutex.lock();
+
+        // Another thread may have registered the same variation in the meantime.
+        auto entry = s_variationInstances.find(key);
+        if (entry != s_variationInstances.end() && entry->second->tryRetain()) {
+            instance = entry->second;
+        } else {
+            s_variationInstances[key] = created;
+            instance = created;
+        }
+
+        s_variationMutex.unlock();
+
+        if (instance != created) {
+            created->release();
+        }
+    }
 
-    FT_Set_Var_Design_Coordinates(ftFace, coordCount, coordArray);
+    Typeface *typeface = new Typeface(instance);
+    instance->release();
 
     return typeface;
 }
 
+Typeface::Instance *Typeface::retainVariationInstance(const VariationKey &key)
+{
+    std::lock_guard<std::mutex> lock(s_variationMutex);
+
+    auto entry = s_variationInstances.find(key);
+    if (entry != s_variationInstances.end() && entry->second->tryRetain()) {
+        return entry->second;
+    }
+
+    return nullptr;
+}
+
 Typeface *Typeface::deriveColor(const uint32_t *colorArray, size_t colorCount)
 {
     Palette palette;
@@ -510,25 +705,24 @@ FT_UInt Typeface::getGlyphID(FT_ULong codePoint)
     return m_instance->getGlyphID(codePoint);
 }
 
-FT_Fixed Typeface::getGlyphAdvance(FT_UInt glyphID, FT_F26Dot6 typeSize, bool vertical)
+void Typeface::getGlyphIDs(const uint32_t *codePoints, size_t count, uint32_t *glyphIDs)
 {
-    FT_Int32 loadFlags = FT_LOAD_DEFAULT;
-    if (vertical) {
-        loadFlags |= FT_LOAD_VERTICAL_LAYOUT;
-    }
+    const CharMap *charMap = m_instance->charMap();
 
-    lock();
-
-    FT_Activate_Size(m_instance->m_ftSize);
-    FT_Set_Char_Size(ftFace(), 0, typeSize, 0, 0);
-    FT_Set_Transform(ftFace(), nullptr, nullptr);
-
-    FT_Fixed advance;
-    FT_Get_Advance(ftFace(), glyphID, loadFlags, &advance);
+    for (size_t i = 0; i < count; i++) {
+        glyphIDs[i] = charMap->lookup(codePoints[i]);
+    }
+}
 
-    unlock();
+FT_Fixed Typeface::getGlyphAdvance(FT_UInt glyphID, FT_F26Dot6 typeSize, bool vertical)
+{
+    FT_Fixed unscaledAdvance = m_instance->getUnscaledAdvance(glyphID, vertical);
+    if (unitsPerEM() == 0) {
+        return 0;
+    }
 
-    return advance;
+    // Scale the advance in font units to 16.16 pixels, i.e. advance * (typeSize / 64) / unitsPerEM.
+    return FT_MulDiv(unscaledAdvance, typeSize << 10, unitsPerEM());
 }
 
 jobject Typeface::getGlyphPathNoLock(JavaBridge bridge, FT_UInt glyphID)
@@ -606,13 +800,27 @@ jobject Typeface::getGlyphPath(JavaBridge bridge, FT_UInt glyphID, FT_F26Dot6 ty
     return glyphPath;
 }
 
+static Typeface *createWithFontFile(FontFile *fontFile, FT_Long faceIndex = 0, FT_Long instanceIndex = 0)
+{
+    Typeface *typeface = nullptr;
+
+    if (fontFile) {
+        // The typeface retains the font file, so the file, including its memory mapping if any,
+        // is released as soon as the last typeface derived from it is disposed.
+        typeface = Typeface::createFromFile(fontFile, faceIndex, instanceIndex);
+        fontFile->release();
+    }
+
+    return typeface;
+}
+
 static jlong createWithAsset(JNIEnv *env, jobject obj, jobject assetManager, jstring path)
 {
     if (path) {
         const char *utfChars = env->GetStringUTFChars(path, nullptr);
         AAssetManager *nativeAssetManager = AAssetManager_fromJava(env, assetManager);
         FontFile *fontFile = FontFile::createFromAsset(nativeAssetManager, utfChars);
-        Typeface *typeface = Typeface::createFromFile(fontFile, 0, 0);
+        Typeface *typeface = createWithFontFile(fontFile);
 
         env->ReleaseStringUTFChars(path, utfChars);
 
@@ -627,7 +835,22 @@ static jlong createWithFile(JNIEnv *env, jobject obj, jstring path)
     if (path) {
         const char *utfChars = env->GetStringUTFChars(path, nullptr);
         FontFile *fontFile = FontFile::createFromPath(utfChars);
-        Typeface *typeface = Typeface::createFromFile(fontFile, 0, 0);
+        Typeface *typeface = createWithFontFile(fontFile);
+
+        env->ReleaseStringUTFChars(path, utfChars);
+
+        return reinterpret_cast<jlong>(typeface);
+    }
+
+    return 0;
+}
+
+static jlong createWithFace(JNIEnv *env, jobject obj, jstring path, jint faceIndex)
+{
+    if (path) {
+        const char *utfChars = env->GetStringUTFChars(path, nullptr);
+        FontFile *fontFile = FontFile::createFromPath(utfChars);
+        Typeface *typeface = createWithFontFile(fontFile, faceIndex & 0xFFFF, faceIndex >> 16);
 
         env->ReleaseStringUTFChars(path, utfChars);
 
@@ -637,11 +860,66 @@ static jlong createWithFile(JNIEnv *env, jobject obj, jstring path)
     return 0;
 }
 
-static jlong createFromStream(JNIEnv *env, jobject obj, jobject stream)
+static jlong createWithDescriptor(JNIEnv *env, jobject obj, jint fd)
+{
+    FontFile *fontFile = FontFile::createFromDescriptor(fd);
+    Typeface *typeface = createWithFontFile(fontFile);
+
+    return reinterpret_cast<jlong>(typeface);
+}
+
+static jlong createWithBuffer(JNIEnv *env, jobject obj, jobject buffer, jint offset, jint length)
+{
+    void *address = env->GetDirectBufferAddress(buffer);
+    if (address && length > 0) {
+        const uint8_t *data = static_cast<const uint8_t *>(address) + offset;
+        FontFile *fontFile = FontFile::createFromData(data, static_cast<size_t>(length));
+        Typeface *typeface = createWithFontFile(fontFile);
+
+        return reinterpret_cast<jlong>(typeface);
+    }
+
+    return 0;
+}
+
+static jlong createWithBytes(JNIEnv *env, jobject obj, jbyteArray bytes, jint offset, jint length)
+{
+    if (length > 0) {
+        void *buffer = malloc(static_cast<size_t>(length));
+        if (!buffer) {
+            return 0;
+        }
+
+        env->GetByteArrayRegion(bytes, offset, length, static_cast<jbyte *>(buffer));
+
+        FontFile *fontFile = FontFile::createWithBuffer(buffer, static_cast<size_t>(length));
+        Typeface *typeface = createWithFontFile(fontFile);
+
+        return reinterpret_cast<jlong>(typeface);
+    }
+
+    return 0;
+}
+
+static jlong createFromStream(JNIEnv *env, jobject obj, jobject stream, jint sizeHint)
 {
     if (stream) {
-        FontFile *fontFile = FontFile::createFromStream(JavaBridge(env), stream);
-        Typeface *typeface = Typeface::createFromFile(fontFile, 0, 0);
+        size_t bufferSize = sizeHint > 0 ? static_cast<size_t>(sizeHint) : 0;
+        FontFile *fontFile = FontFile::createFromStream(JavaBridge(env), stream, bufferSize);
+        Typeface *typeface = createWithFontFile(fontFile);
+
+        return reinterpret_cast<jlong>(typeface);
+    }
+
+    return 0;
+}
+
+static jlong createFromChannel(JNIEnv *env, jobject obj, jobject channel, jint sizeHint)
+{
+    if (channel) {
+        size_t bufferSize = sizeHint > 0 ? static_cast<size_t>(sizeHint) : 0;
+        FontFile *fontFile = FontFile::createFromChannel(JavaBridge(env), channel, bufferSize);
+        Typeface *typeface = createWithFontFile(fontFile);
 
         return reinterpret_cast<jlong>(typeface);
     }
@@ -655,6 +933,14 @@ static void dispose(JNIEnv *env, jobject obj, jlong typefaceHandle)
     delete typeface;
 }
 
+static jint getFaceIndex(JNIEnv *env, jobject obj, jlong typefaceHandle)
+{
+    Typeface *typeface = reinterpret_cast<Typeface *>(typefaceHandle);
+    FT_Long faceIndex = typeface->ftFace()->face_index;
+
+    return static_cast<jint>(faceIndex);
+}
+
 static jlong getVariationInstance(JNIEnv *env, jobject obj, jlong typefaceHandle, jfloatArray coordinates)
 {
     Typeface *typeface = reinterpret_cast<Typeface *>(typefaceHandle);
@@ -849,6 +1135,23 @@ static jint getGlyphId(JNIEnv *env, jobject obj, jlong typefaceHandle, jint code
     return static_cast<jint>(glyphId);
 }
 
+static void getGlyphIds(JNIEnv *env, jobject obj, jlong typefaceHandle,
+    jintArray codePoints, jint codeOffset, jintArray glyphIds, jint glyphOffset, jint count)
+{
+    Typeface *typeface = reinterpret_cast<Typeface *>(typefaceHandle);
+    void *codePointsBuffer = env->GetPrimitiveArrayCritical(codePoints, nullptr);
+    void *glyphIdsBuffer = env->GetPrimitiveArrayCritical(glyphIds, nullptr);
+
+    const uint32_t *codePointValues = static_cast<uint32_t *>(codePointsBuffer);
+    uint32_t *glyphIdValues = static_cast<uint32_t *>(glyphIdsBuffer);
+
+    typeface->getGlyphIDs(codePointValues + codeOffset, static_cast<size_t>(count),
+                          glyphIdValues + glyphOffset);
+
+    env->ReleasePrimitiveArrayCritical(glyphIds, glyphIdsBuffer, 0);
+    env->ReleasePrimitiveArrayCritical(codePoints, codePointsBuffer, JNI_ABORT);
+}
+
 static jfloat getGlyphAdvance(JNIEnv *env, jobject obj, jlong typefaceHandle, jint glyphId, jfloat typeSize, jboolean vertical)
 {
     Typeface *typeface = reinterpret_cast<Typeface *>(typefaceHandle);
@@ -939,8 +1242,14 @@ static jint getStrikeoutThickness(JNIEnv *env, jobject obj, jlong typefaceHandle
 static JNINativeMethod JNI_METHODS[] = {
     { "nCreateWithAsset", "(Landroid/content/res/AssetManager;Ljava/lang/String;)J", (void *)createWithAsset },
     { "nCreateWithFile", "(Ljava/lang/String;)J", (void *)createWithFile },
-    { "nCreateFromStream", "(Ljava/io/InputStream;)J", (void *)createFromStream },
+    { "nCreateWithDescriptor", "(I)J", (void *)createWithDescriptor },
+    { "nCreateWithFace", "(Ljava/lang/String;I)J", (void *)createWithFace },
+    { "nCreateWithBuffer", "(Ljava/nio/ByteBuffer;II)J", (void *)createWithBuffer },
+    { "nCreateWithBytes", "([BII)J", (void *)createWithBytes },
+    { "nCreateFromStream", "(Ljava/io/InputStream;I)J", (void *)createFromStream },
+    { "nCreateFromChannel", "(Ljava/nio/channels/ReadableByteChannel;I)J", (void *)createFromChannel },
     { "nDispose", "(J)V", (void *)dispose },
+    { "nGetFaceIndex", "(J)I", (void *)getFaceIndex },
     { "nGetVariationInstance", "(J[F)J", (void *)getVariationInstance },
     { "nGetVariationCoordinates", "(J[F)V", (void *)getVariationCoordinates },
     { "nGetColorInstance", "(J[I)J", (void *)getColorInstance },
@@ -957,6 +1266,7 @@ static JNINativeMethod JNI_METHODS[] = {
     { "nGetLeading", "(J)I", (void *)getLeading },
     { "nGetGlyphCount", "(J)I", (void *)getGlyphCount },
     { "nGetGlyphId", "(JI)I", (void *)getGlyphId },
+    { "nGetGlyphIds", "(J[II[III)V", (void *)getGlyphIds },
     { "nGetGlyphAdvance", "(JIFZ)F", (void *)getGlyphAdvance },
     { "nGetGlyphPath", "(JIF[F)Landroid/graphics/Path;", (void *)getGlyphPath },
     { "nGetBoundingBox", "(JLandroid/graphics/Rect;)V", (void *)getBoundingBox },
@@ -32,7 +32,9 @@ extern "C" {
 #include <cstddef>
 #include <cstdint>
 #include <jni.h>
+#include <map>
 #include <mutex>
+#include <vector>
 
 #include "FontFile.h"
 #include "JavaBridge.h"
@@ -95,12 +97,53 @@ public:
     void loadSfntTable(FT_ULong tag, FT_Byte *buffer, FT_ULong *length);
 
     FT_UInt getGlyphID(FT_ULong codePoint);
+    void getGlyphIDs(const uint32_t *codePoints, size_t count, uint32_t *glyphIDs);
     FT_Fixed getGlyphAdvance(FT_UInt glyphID, FT_F26Dot6 typeSize, bool vertical);
 
     jobject getGlyphPathNoLock(JavaBridge bridge, FT_UInt glyphID);
     jobject getGlyphPath(JavaBridge bridge, FT_UInt glyphID, FT_F26Dot6 typeSize, FT_Matrix *matrix, FT_Vector *delta);
 
 private:
+    // Identifies a variation instance by its exact design coordinates; there is no tolerance.
+    struct VariationKey {
+        FontFile *fontFile;
+        FT_Long faceIndex;
+        std::vector<FT_Fixed> coords;
+
+        bool operator <(const VariationKey &other) const
+        {
+            if (fontFile != other.fontFile) {
+                return fontFile < other.fontFile;
+            }
+            if (faceIndex != other.faceIndex) {
+                return faceIndex < other.faceIndex;
+            }
+
+            return coords < other.coords;
+        }
+    };
+
+    /**
+     * An immutable snapshot of the selected character map, keeping consecutive code points in
+     * sorted segments so that lookups need neither FreeType nor a lock.
+     */
+    class CharMap {
+    public:
+        static CharMap *create(FT_Face ftFace);
+
+        FT_UInt lookup(FT_ULong codePoint) const;
+
+    private:
+        struct Segment {
+            FT_ULong start;
+            FT_ULong end;
+            size_t offset;
+        };
+
+        std::vector<Segment> m_segments;
+        std::vector<FT_UInt> m_glyphs;
+    };
+
     class Instance {
     private:
         std::mutex m_mutex;
@@ -114,6 +157,10 @@ private:
         SFFontRef m_sfFont;
         PatternCache m_patternCache;
 
+        std::atomic<std::atomic<int32_t> *> m_advanceTables[2];
+        std::atomic<CharMap *> m_charMap;
+        VariationKey *m_variationKey;
+
         int32_t m_familyName;
         int32_t m_styleName;
         int32_t m_fullName;
@@ -132,16 +179,26 @@ private:
         void setupVariation();
 
         Instance *retain();
+        bool tryRetain();
         void release();
 
         void loadSfntTable(FT_ULong tag, FT_Byte *buffer, FT_ULong *length);
 
+        const CharMap *charMap();
         FT_UInt getGlyphID(FT_ULong codePoint);
+
+        std::atomic<int32_t> *advanceTable(bool vertical);
+        FT_Fixed loadUnscaledAdvance(FT_UInt glyphID, bool vertical);
         FT_Fixed getUnscaledAdvance(FT_UInt glyphID, bool vertical);
 
         friend class Typeface;
     };
 
+    static std::mutex s_variationMutex;
+    static std::map<VariationKey, Instance *> s_variationInstances;
+
+    static Instance *retainVariationInstance(const VariationKey &key);
+
     Instance *m_instance;
     Palette m_palette;
 
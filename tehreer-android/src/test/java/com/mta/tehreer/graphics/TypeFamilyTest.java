@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.graphics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TypeFamilyTest {
+    private static final TypeWidth[] WIDTHS = TypeWidth.values();
+    private static final TypeWeight[] WEIGHTS = TypeWeight.values();
+    private static final TypeSlope[] SLOPES = TypeSlope.values();
+
+    private static class Style {
+        final TypeWidth width;
+        final TypeWeight weight;
+        final TypeSlope slope;
+
+        Style(TypeWidth width, TypeWeight weight, TypeSlope slope) {
+            this.width = width;
+            this.weight = weight;
+            this.slope = slope;
+        }
+    }
+
+    // Reference implementation of the matching algorithm as it was before the table was added.
+
+    private static int widthGap(TypeWidth desired, TypeWidth candidate) {
+        return Math.abs(desired.ordinal() - candidate.ordinal());
+    }
+
+    private static int slopeGap(TypeSlope desired, TypeSlope candidate) {
+        int[] gaps = {
+            /*   PLAIN: */ 0, 2, 1,
+            /*  ITALIC: */ 2, 0, 1,
+            /* OBLIQUE: */ 2, 1, 0,
+        };
+        return gaps[(desired.ordinal() * 3) + candidate.ordinal()];
+    }
+
+    private static int weightGap(TypeWeight desired, TypeWeight candidate) {
+        int[] gaps = {
+            /* 100: */ 0, 1, 2, 3, 4, 5, 6, 7, 8,
+            /* 200: */ 1, 0, 2, 3, 4, 5, 6, 7, 8,
+            /* 300: */ 2, 1, 0, 3, 4, 5, 6, 7, 8,
+            /* 400: */ 4, 3, 2, 0, 1, 5, 6, 7, 8,
+            /* 500: */ 4, 3, 2, 1, 0, 5, 6, 7, 8,
+            /* 600: */ 8, 7, 6, 5, 4, 0, 1, 2, 3,
+            /* 700: */ 8, 7, 6, 5, 4, 3, 0, 1, 2,
+            /* 800: */ 8, 7, 6, 5, 4, 3, 2, 0, 1,
+            /* 900: */ 8, 7, 6, 5, 4, 3, 2, 1, 0,
+        };
+        return gaps[(desired.ordinal() * 9) + candidate.ordinal()];
+    }
+
+    private static int referenceMatch(Style[] styles, TypeWidth width, TypeWeight weight, TypeSlope slope) {
+        int candidate = 0;
+
+        for (int current = 1; current < styles.length; current++) {
+            int widthGap = widthGap(width, styles[current].width)
+                         - widthGap(width, styles[candidate].width);
+            if (widthGap > 0) {
+                continue;
+            }
+
+            int slopeGap = slopeGap(slope, styles[current].slope)
+                         - slopeGap(slope, styles[candidate].slope);
+            if (slopeGap > 0) {
+                continue;
+            }
+
+            int weightGap = weightGap(weight, styles[current].weight)
+                          - weightGap(weight, styles[candidate].weight);
+            if (weightGap > 0) {
+                continue;
+            }
+
+            candidate = current;
+        }
+
+        return candidate;
+    }
+
+    private static void assertTableMatches(Style[] styles) {
+        int count = styles.length;
+        int[] widths = new int[count];
+        int[] weights = new int[count];
+        int[] slopes = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            widths[i] = styles[i].width.ordinal();
+            weights[i] = styles[i].weight.ordinal();
+            slopes[i] = styles[i].slope.ordinal();
+        }
+
+        int[] table = TypeFamily.buildStyleTable(widths, weights, slopes);
+        assertEquals(WIDTHS.length * WEIGHTS.length * SLOPES.length, table.length);
+
+        for (TypeWidth width : WIDTHS) {
+            for (TypeWeight weight : WEIGHTS) {
+                for (TypeSlope slope : SLOPES) {
+                    int index = TypeFamily.styleIndex(width.ordinal(), weight.ordinal(), slope.ordinal());
+                    assertEquals(width + " " + weight + " " + slope,
+                                 referenceMatch(styles, width, weight, slope), table[index]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSingleStyle() {
+        for (TypeWidth width : WIDTHS) {
+            for (TypeWeight weight : WEIGHTS) {
+                for (TypeSlope slope : SLOPES) {
+                    assertTableMatches(new Style[] { new Style(width, weight, slope) });
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAllStyles() {
+        Style[] styles = new Style[WIDTHS.length * WEIGHTS.length * SLOPES.length];
+        int index = 0;
+
+        for (TypeWidth width : WIDTHS) {
+            for (TypeWeight weight : WEIGHTS) {
+                for (TypeSlope slope : SLOPES) {
+                    styles[index++] = new Style(width, weight, slope);
+                }
+            }
+        }
+
+        assertTableMatches(styles);
+    }
+
+    @Test
+    public void testRandomFamilies() {
+        Random random = new Random(0x5EED);
+
+        for (int i = 0; i < 500; i++) {
+            Style[] styles = new Style[1 + random.nextInt(12)];
+
+            for (int j = 0; j < styles.length; j++) {
+                styles[j] = new Style(WIDTHS[random.nextInt(WIDTHS.length)],
+                                      WEIGHTS[random.nextInt(WEIGHTS.length)],
+                                      SLOPES[random.nextInt(SLOPES.length)]);
+            }
+
+            assertTableMatches(styles);
+        }
+    }
+}
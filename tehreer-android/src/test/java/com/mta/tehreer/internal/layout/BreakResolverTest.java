@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.internal.layout;
+
+import android.graphics.Canvas;
+
+import com.mta.tehreer.graphics.Renderer;
+import com.mta.tehreer.graphics.Typeface;
+import com.mta.tehreer.layout.BreakMode;
+
+import org.junit.Test;
+
+import java.text.BreakIterator;
+import java.text.StringCharacterIterator;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class BreakResolverTest {
+    private static final String[] SAMPLES = {
+        "Lorem ipsum dolor sit amet, consectetur adipiscing elit.",
+        "اردو ایک ہند آریائی زبان ہے۔",
+        "Mixed اردو and English, with numbers 12,345.67 and (brackets).",
+        "é ạ̈ 👨‍👩‍👧 🇵🇰",
+        "Hyphenated-words—and dashes – plus\ttabs no-break spaces.",
+        "Line one\nLine two\r\nLine three Line four",
+        "中文文本没有空格。日本語のテキスト、カタカナ。",
+        "    leading and trailing whitespace    ",
+        "a",
+    };
+
+    // Reference implementation of the analysis as it was before it was reduced to a single pass.
+
+    private static void fillReference(String text, byte[] breaks, byte type, int start, int end) {
+        BreakIterator iterator = (type == BreakResolver.CHARACTER
+                                  ? BreakIterator.getCharacterInstance()
+                                  : BreakIterator.getLineInstance());
+        iterator.setText(new StringCharacterIterator(text, start, end, start));
+        iterator.first();
+
+        byte forwardType = BreakResolver.typeMode(type, true);
+        int charNext;
+        while ((charNext = iterator.next()) != BreakIterator.DONE) {
+            breaks[charNext - 1] |= forwardType;
+        }
+
+        iterator.last();
+        byte backwardType = BreakResolver.typeMode(type, false);
+        int charIndex;
+        while ((charIndex = iterator.previous()) != BreakIterator.DONE) {
+            breaks[charIndex] |= backwardType;
+        }
+    }
+
+    private static byte[] referenceBreaks(String text, int start, int end) {
+        byte[] breaks = new byte[text.length()];
+        fillReference(text, breaks, BreakResolver.LINE, start, end);
+        fillReference(text, breaks, BreakResolver.CHARACTER, start, end);
+
+        return breaks;
+    }
+
+    // A run with integral advances so that measurements are exact in any order of summation.
+    private static class FakeRun extends TextRun {
+        final int[] advances;
+
+        FakeRun(int[] advances) {
+            this.advances = advances;
+        }
+
+        @Override public int getCharStart() { return 0; }
+        @Override public int getCharEnd() { return advances.length; }
+        @Override public byte getBidiLevel() { return 0; }
+        @Override public Typeface getTypeface() { return null; }
+        @Override public float getTypeSize() { return 0; }
+        @Override public float getAscent() { return 0; }
+        @Override public float getDescent() { return 0; }
+        @Override public float getLeading() { return 0; }
+        @Override public float getCaretEdge(int charIndex) { return getRangeDistance(0, charIndex); }
+        @Override public int computeNearestCharIndex(float distance) { return 0; }
+        @Override public void draw(Renderer renderer, Canvas canvas) { }
+
+        @Override
+        public float getRangeDistance(int fromIndex, int toIndex) {
+            float distance = 0.0f;
+            for (int i = fromIndex; i < toIndex; i++) {
+                distance += advances[i];
+            }
+
+            return distance;
+        }
+    }
+
+    @Test
+    public void testTruncationBreaks() {
+        Random random = new Random(50);
+
+        for (String sample : SAMPLES) {
+            byte[] breaks = new byte[sample.length()];
+            BreakResolver.fillBreaks(sample, breaks);
+
+            int length = sample.length();
+            int[] advances = new int[length];
+            int totalWidth = 0;
+            for (int i = 0; i < length; i++) {
+                advances[i] = 1 + random.nextInt(12);
+                totalWidth += advances[i];
+            }
+
+            RunCollection runs = new RunCollection();
+            runs.add(new FakeRun(advances));
+
+            for (int i = 0; i < 200; i++) {
+                int start = random.nextInt(length);
+                int end = start + 1 + random.nextInt(length - start);
+                float extent = random.nextInt(totalWidth + 1);
+                String message = sample + " [" + start + ", " + end + ") " + extent;
+
+                for (BreakMode mode : BreakMode.values()) {
+                    assertEquals(message,
+                                 BreakResolver.suggestForwardBreak(sample, runs, breaks, start, end, extent, mode),
+                                 BreakResolver.suggestForwardTruncationBreak(sample, runs, breaks, start, end, extent, mode));
+                    assertEquals(message,
+                                 BreakResolver.suggestBackwardBreak(sample, runs, breaks, start, end, extent, mode),
+                                 BreakResolver.suggestBackwardTruncationBreak(sample, runs, breaks, start, end, extent, mode));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWholeText() {
+        for (String sample : SAMPLES) {
+            byte[] breaks = new byte[sample.length()];
+            BreakResolver.fillBreaks(sample, breaks);
+
+            assertArrayEquals(sample, referenceBreaks(sample, 0, sample.length()), breaks);
+        }
+    }
+
+    @Test
+    public void testSubRanges() {
+        StringBuilder builder = new StringBuilder();
+        for (String sample : SAMPLES) {
+            builder.append(sample).append(' ');
+        }
+        String text = builder.toString();
+        Random random = new Random(44);
+
+        for (int i = 0; i < 200; i++) {
+            int start = random.nextInt(text.length());
+            int end = start + random.nextInt(text.length() - start + 1);
+
+            byte[] breaks = new byte[text.length()];
+            BreakResolver.fillBreaks(text, breaks, start, end);
+
+            assertArrayEquals("[" + start + ", " + end + ")", referenceBreaks(text, start, end), breaks);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2021 Muhammad Tayyab Akram
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mta.tehreer.layout;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PageIndexTest {
+    private static PageIndex createIndex(long layoutKey, int pageCount) {
+        Random random = new Random(pageCount);
+        int[] pageStarts = new int[pageCount];
+        int charIndex = 0;
+
+        for (int i = 0; i < pageCount; i++) {
+            pageStarts[i] = charIndex;
+            charIndex += 1 + random.nextInt(5000);
+        }
+
+        return new PageIndex(layoutKey, charIndex, pageStarts);
+    }
+
+    private static PageIndex roundTrip(PageIndex index) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        index.writeTo(out);
+
+        return PageIndex.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        PageIndex index = createIndex(0x123456789ABCDEFL, 1000);
+        PageIndex copy = roundTrip(index);
+
+        assertEquals(index.getLayoutKey(), copy.getLayoutKey());
+        assertEquals(index.getPageCount(), copy.getPageCount());
+
+        for (int i = 0; i < index.getPageCount(); i++) {
+            assertEquals(index.getPageStart(i), copy.getPageStart(i));
+            assertEquals(index.getPageEnd(i), copy.getPageEnd(i));
+        }
+    }
+
+    @Test
+    public void testCompactness() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        createIndex(0, 1000).writeTo(out);
+
+        // Header, then at most two bytes per page as no page exceeds 16k characters.
+        assertTrue(out.size() <= 32 + 2 * 1000);
+    }
+
+    @Test
+    public void testFindPage() {
+        PageIndex index = createIndex(0, 100);
+        int lastIndex = index.getPageCount() - 1;
+
+        assertEquals(-1, index.findPage(-1));
+        assertEquals(-1, index.findPage(index.getPageEnd(lastIndex)));
+
+        for (int i = 0; i <= lastIndex; i++) {
+            assertEquals(i, index.findPage(index.getPageStart(i)));
+            assertEquals(i, index.findPage(index.getPageEnd(i) - 1));
+        }
+    }
+
+    private static PageIndex readRaw(int... varInts) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(0x54504749);
+        data.writeByte(1);
+        data.writeLong(0);
+
+        for (int value : varInts) {
+            while ((value & ~0x7F) != 0) {
+                data.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data.writeByte(value);
+        }
+
+        return PageIndex.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNegativePageCount() throws IOException {
+        readRaw(100, -1);
+    }
+
+    @Test(expected = IOException.class)
+    public void testExcessivePageCount() throws IOException {
+        readRaw(100, Integer.MAX_VALUE);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRepeatedPageStart() throws IOException {
+        readRaw(100, 3, 0, 10, 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testPageStartOutOfRange() throws IOException {
+        readRaw(100, 2, 0, 100);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNegativePageStart() throws IOException {
+        readRaw(100, 2, 10, -5);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedStream() throws IOException {
+        readRaw(100, 3, 0, 10);
+    }
+
+    @Test
+    public void testValidRawStream() throws IOException {
+        PageIndex index = readRaw(100, 3, 0, 10, 20);
+
+        assertEquals(3, index.getPageCount());
+        assertEquals(30, index.getPageStart(2));
+        assertEquals(100, index.getPageEnd(2));
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidStream() throws IOException {
+        PageIndex.readFrom(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+    }
+}